@@ -0,0 +1,278 @@
+package com.xperfect.cn.helper.photo.lib;
+
+import android.graphics.Matrix;
+import android.graphics.RectF;
+
+/**
+ * 2D affine transformation kept in primitive fields, laid out like the first two rows of an {@link
+ * Matrix}:
+ * <pre>
+ * | scaleX skewX transX |
+ * | skewY scaleY transY |
+ * |   0      0      1   |
+ * </pre>
+ * All operations are plain Java, so the per-event maths does not cross into native code and runs
+ * on the JVM; {@link #toMatrix(Matrix, float[])} converts to the framework type when it is consumed.
+ */
+public class AffineMatrix {
+
+  private float scaleX;
+  private float skewX;
+  private float transX;
+  private float skewY;
+  private float scaleY;
+  private float transY;
+
+  public AffineMatrix() {
+    reset();
+  }
+
+  public static AffineMatrix newInstance() {
+    return new AffineMatrix();
+  }
+
+  public void reset() {
+    scaleX = scaleY = 1;
+    skewX = skewY = 0;
+    transX = transY = 0;
+  }
+
+  public boolean isIdentity() {
+    return scaleX == 1 && skewX == 0 && transX == 0 && skewY == 0 && scaleY == 1 && transY == 0;
+  }
+
+  public void set(AffineMatrix src) {
+    scaleX = src.scaleX;
+    skewX = src.skewX;
+    transX = src.transX;
+    skewY = src.skewY;
+    scaleY = src.scaleY;
+    transY = src.transY;
+  }
+
+  /**
+   * @param values 9 values in the order of {@link Matrix#getValues(float[])}, the perspective row
+   * is ignored
+   */
+  public void setValues(float[] values) {
+    scaleX = values[Matrix.MSCALE_X];
+    skewX = values[Matrix.MSKEW_X];
+    transX = values[Matrix.MTRANS_X];
+    skewY = values[Matrix.MSKEW_Y];
+    scaleY = values[Matrix.MSCALE_Y];
+    transY = values[Matrix.MTRANS_Y];
+  }
+
+  /**
+   * @param values receives 9 values in the order of {@link Matrix#getValues(float[])}
+   */
+  public void getValues(float[] values) {
+    values[Matrix.MSCALE_X] = scaleX;
+    values[Matrix.MSKEW_X] = skewX;
+    values[Matrix.MTRANS_X] = transX;
+    values[Matrix.MSKEW_Y] = skewY;
+    values[Matrix.MSCALE_Y] = scaleY;
+    values[Matrix.MTRANS_Y] = transY;
+    values[Matrix.MPERSP_0] = 0;
+    values[Matrix.MPERSP_1] = 0;
+    values[Matrix.MPERSP_2] = 1;
+  }
+
+  public float getScaleX() {
+    return scaleX;
+  }
+
+  public float getSkewX() {
+    return skewX;
+  }
+
+  public float getTransX() {
+    return transX;
+  }
+
+  public float getSkewY() {
+    return skewY;
+  }
+
+  public float getScaleY() {
+    return scaleY;
+  }
+
+  public float getTransY() {
+    return transY;
+  }
+
+  /**
+   * @return the uniform scale of a matrix composed of translations, uniform scales and rotations,
+   * independent of the rotation
+   */
+  public float getScale() {
+    return (float) Math.hypot(scaleX, skewY);
+  }
+
+  /**
+   * @return the rotation in degrees, in (-180, 180]
+   */
+  public float getRotation() {
+    return (float) Math.toDegrees(Math.atan2(skewY, scaleX));
+  }
+
+  public void postTranslate(float dx, float dy) {
+    transX += dx;
+    transY += dy;
+  }
+
+  public void postScale(float sx, float sy, float px, float py) {
+    scaleX *= sx;
+    skewX *= sx;
+    transX = (transX - px) * sx + px;
+    skewY *= sy;
+    scaleY *= sy;
+    transY = (transY - py) * sy + py;
+  }
+
+  public void postRotate(float degrees, float px, float py) {
+    double radians = Math.toRadians(degrees);
+    float sin = (float) Math.sin(radians);
+    float cos = (float) Math.cos(radians);
+    postConcat(cos, -sin, px - cos * px + sin * py, sin, cos, py - sin * px - cos * py);
+  }
+
+  /**
+   * this = other * this
+   */
+  public void postConcat(AffineMatrix other) {
+    postConcat(other.scaleX, other.skewX, other.transX, other.skewY, other.scaleY, other.transY);
+  }
+
+  private void postConcat(float a, float b, float c, float d, float e, float f) {
+    float newScaleX = a * scaleX + b * skewY;
+    float newSkewX = a * skewX + b * scaleY;
+    float newTransX = a * transX + b * transY + c;
+    float newSkewY = d * scaleX + e * skewY;
+    float newScaleY = d * skewX + e * scaleY;
+    float newTransY = d * transX + e * transY + f;
+    scaleX = newScaleX;
+    skewX = newSkewX;
+    transX = newTransX;
+    skewY = newSkewY;
+    scaleY = newScaleY;
+    transY = newTransY;
+  }
+
+  /**
+   * @param inverse receives the inverse, may be this matrix
+   * @return false if the matrix is not invertible, {@code inverse} is then left untouched
+   */
+  public boolean invert(AffineMatrix inverse) {
+    float det = scaleX * scaleY - skewX * skewY;
+    if (det == 0) {
+      return false;
+    }
+    float a = scaleY / det;
+    float b = -skewX / det;
+    float d = -skewY / det;
+    float e = scaleX / det;
+    float c = -(a * transX + b * transY);
+    float f = -(d * transX + e * transY);
+    inverse.scaleX = a;
+    inverse.skewX = b;
+    inverse.transX = c;
+    inverse.skewY = d;
+    inverse.scaleY = e;
+    inverse.transY = f;
+    return true;
+  }
+
+  /**
+   * Maps points represented by float array of [x0, y0, x1, y1, ...].
+   *
+   * @param dst destination array (may be the same as source array)
+   */
+  public void mapPoints(float[] dst, int dstIndex, float[] src, int srcIndex, int pointCount) {
+    for (int i = 0; i < pointCount; i++) {
+      float x = src[srcIndex + i * 2];
+      float y = src[srcIndex + i * 2 + 1];
+      dst[dstIndex + i * 2] = scaleX * x + skewX * y + transX;
+      dst[dstIndex + i * 2 + 1] = skewY * x + scaleY * y + transY;
+    }
+  }
+
+  /**
+   * Maps a rectangle to the bounds of its transformed corners.
+   *
+   * @param bounds receives [left, top, right, bottom]
+   */
+  public void mapRect(float left, float top, float right, float bottom, float[] bounds) {
+    float x0 = scaleX * left + skewX * top;
+    float y0 = skewY * left + scaleY * top;
+    float x1 = scaleX * right + skewX * top;
+    float y1 = skewY * right + scaleY * top;
+    float x2 = scaleX * right + skewX * bottom;
+    float y2 = skewY * right + scaleY * bottom;
+    float x3 = scaleX * left + skewX * bottom;
+    float y3 = skewY * left + scaleY * bottom;
+    bounds[0] = Math.min(Math.min(x0, x1), Math.min(x2, x3)) + transX;
+    bounds[1] = Math.min(Math.min(y0, y1), Math.min(y2, y3)) + transY;
+    bounds[2] = Math.max(Math.max(x0, x1), Math.max(x2, x3)) + transX;
+    bounds[3] = Math.max(Math.max(y0, y1), Math.max(y2, y3)) + transY;
+  }
+
+  /**
+   * Maps the rectangle in place to the bounds of its transformed corners.
+   */
+  public void mapRect(RectF rect) {
+    float x0 = scaleX * rect.left + skewX * rect.top;
+    float y0 = skewY * rect.left + scaleY * rect.top;
+    float x1 = scaleX * rect.right + skewX * rect.top;
+    float y1 = skewY * rect.right + scaleY * rect.top;
+    float x2 = scaleX * rect.right + skewX * rect.bottom;
+    float y2 = skewY * rect.right + scaleY * rect.bottom;
+    float x3 = scaleX * rect.left + skewX * rect.bottom;
+    float y3 = skewY * rect.left + scaleY * rect.bottom;
+    rect.left = Math.min(Math.min(x0, x1), Math.min(x2, x3)) + transX;
+    rect.top = Math.min(Math.min(y0, y1), Math.min(y2, y3)) + transY;
+    rect.right = Math.max(Math.max(x0, x1), Math.max(x2, x3)) + transX;
+    rect.bottom = Math.max(Math.max(y0, y1), Math.max(y2, y3)) + transY;
+  }
+
+  /**
+   * Copies this transformation into a framework matrix.
+   *
+   * @param values scratch buffer of at least 9 floats
+   */
+  public void toMatrix(Matrix matrix, float[] values) {
+    getValues(values);
+    matrix.setValues(values);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof AffineMatrix)) {
+      return false;
+    }
+    AffineMatrix that = (AffineMatrix) o;
+    return scaleX == that.scaleX && skewX == that.skewX && transX == that.transX
+        && skewY == that.skewY && scaleY == that.scaleY && transY == that.transY;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = Float.floatToIntBits(scaleX);
+    result = 31 * result + Float.floatToIntBits(skewX);
+    result = 31 * result + Float.floatToIntBits(transX);
+    result = 31 * result + Float.floatToIntBits(skewY);
+    result = 31 * result + Float.floatToIntBits(scaleY);
+    result = 31 * result + Float.floatToIntBits(transY);
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "AffineMatrix{[" + scaleX + ", " + skewX + ", " + transX + "][" +
+        skewY + ", " + scaleY + ", " + transY + "]}";
+  }
+}
@@ -0,0 +1,21 @@
+package com.xperfect.cn.helper.photo.lib;
+
+/**
+ * Source of the current time for what cannot be derived from event or frame times, e.g. the
+ * start of an animation or a latency measurement. Tests substitute a manual clock.
+ */
+public interface Clock {
+
+  /**
+   * Monotonic time in nanoseconds. On Android, {@link System#nanoTime()} shares its time base with
+   * {@link android.view.MotionEvent#getEventTime()} and the choreographer's frame times.
+   */
+  long nanoTime();
+
+  Clock SYSTEM = new Clock() {
+    @Override
+    public long nanoTime() {
+      return System.nanoTime();
+    }
+  };
+}
@@ -5,28 +5,129 @@ import android.graphics.PointF;
 import android.graphics.RectF;
 import android.view.MotionEvent;
 import com.xperfect.cn.helper.photo.lib.gestures.DefaultGestureDetector;
+import com.xperfect.cn.helper.photo.lib.gestures.GestureRecognizer;
+import com.xperfect.cn.helper.photo.lib.gestures.GestureRecognizerChain;
+import com.xperfect.cn.helper.photo.lib.gestures.QuickScaleRecognizer;
 
 public class DefaultTransformHelper implements TransformHelper,
-    DefaultGestureDetector.GestureListener {
+    DefaultGestureDetector.GestureListener, FrameScheduler.Callback {
 
   public static final String TAG = DefaultTransformHelper.class.getSimpleName();
 
+  /**
+   * The left edge of the object is reached, it cannot be panned further to the right.
+   */
+  public static final int EDGE_LEFT = 1;
+  public static final int EDGE_TOP = 1 << 1;
+  public static final int EDGE_RIGHT = 1 << 2;
+  public static final int EDGE_BOTTOM = 1 << 3;
+
+  public static final float DEFAULT_MAX_SCALE_FACTOR = 8f;
+
+  private static final float EDGE_TOLERANCE = 0.5f;
+
   private boolean enabled = true;
-  private float scaleFactor = 0;
+  private float scaleFactor = 1;
+  private float rotation = 0;
 
   private boolean isRotationEnabled = true;
   private boolean isScaleEnabled = true;
   private boolean isTranslationEnabled = true;
 
   private float mMinScaleFactor = 1.0f;
+  private float mMaxScaleFactor = DEFAULT_MAX_SCALE_FACTOR;
 
   private final RectF viewBounds = new RectF();
   private final RectF objectBounds = new RectF();
   private final RectF transformBounds = new RectF();
-  private final Matrix previousTransformMatrix = new Matrix();
-  private final Matrix activeTransformMatrix = new Matrix();
-  private final Matrix activeTransformInverseMatrix = new Matrix();
+  private final AffineMatrix previousTransformMatrix = AffineMatrix.newInstance();
+  private final AffineMatrix activeTransformMatrix = AffineMatrix.newInstance();
+  private final AffineMatrix activeTransformInverseMatrix = AffineMatrix.newInstance();
+  private final AffineMatrix zoomTargetMatrix = AffineMatrix.newInstance();
+  private final Matrix transformMatrix = new Matrix();
   private final float[] tempMatrixArray = new float[9];
+  private final float[] tempPoint = new float[2];
+  private int transformVersion;
+  private int inverseVersion;
+  private int matrixVersion;
+  private int edges = EDGE_LEFT | EDGE_TOP | EDGE_RIGHT | EDGE_BOTTOM;
+
+  private boolean isFrameAligned = false;
+  private boolean hasPendingUpdate = false;
+  private final FrameScheduler frameScheduler = FrameScheduler.newInstance(this);
+  private final FrameStats frameStats = FrameStats.newInstance();
+
+  private Clock clock = Clock.SYSTEM;
+  private GestureRecorder gestureRecorder;
+  private GestureMetrics gestureMetrics;
+  private long lastEventTime;
+  private int updatesSinceApply;
+
+  private final GestureRecognizerChain recognizers = GestureRecognizerChain.newInstance();
+  private final FrameScheduler recognizerTimeouts = FrameScheduler.newInstance(
+      new FrameScheduler.Callback() {
+        @Override
+        public void onFrame(long frameTimeNanos) {
+          // frame times and event times are both taken from the monotonic clock
+          recognizers.onTimeout(frameTimeNanos / 1000000L);
+          scheduleRecognizerTimeout();
+        }
+      });
+  private QuickScaleRecognizer quickScaleRecognizer;
+  private final GestureRecognizer.Listener quickScaleListener = new GestureRecognizer.Listener() {
+    @Override
+    public void onGesture(GestureRecognizer recognizer) {
+      QuickScaleRecognizer quickScale = (QuickScaleRecognizer) recognizer;
+      switch (quickScale.getState()) {
+        case GestureRecognizer.STATE_BEGAN:
+          defaultGestureDetector.cancel();
+          break;
+        case GestureRecognizer.STATE_CHANGED:
+          if (isScaleEnabled) {
+            float factor = quickScale.getScaleFactor();
+            activeTransformMatrix
+                .postScale(factor, factor, quickScale.getFocusX(), quickScale.getFocusY());
+            limitScale(activeTransformMatrix, quickScale.getFocusX(), quickScale.getFocusY());
+            limitTranslation();
+            previousTransformMatrix.set(activeTransformMatrix);
+            dispatchTransformed();
+          }
+          break;
+        default:
+      }
+    }
+  };
+
+  private FlingAnimator flingAnimator;
+  private final FlingAnimator.Listener flingListener = new FlingAnimator.Listener() {
+    @Override
+    public void onFlingUpdate(float dx, float dy) {
+      activeTransformMatrix.postTranslate(dx, dy);
+      limitTranslation();
+      previousTransformMatrix.set(activeTransformMatrix);
+      dispatchTransformed();
+    }
+
+    @Override
+    public void onFlingEnd() {
+    }
+  };
+
+  private final ZoomAnimator zoomAnimator = ZoomAnimator.newInstance();
+  private final ZoomAnimator.Listener zoomListener = new ZoomAnimator.Listener() {
+    @Override
+    public void onZoomUpdate(float[] values) {
+      activeTransformMatrix.setValues(values);
+      limitScale(activeTransformMatrix, viewBounds.centerX(), viewBounds.centerY());
+      limitTranslation();
+      previousTransformMatrix.set(activeTransformMatrix);
+      dispatchTransformed();
+    }
+
+    @Override
+    public void onZoomEnd() {
+    }
+  };
 
   Listener listener;
   DefaultGestureDetector defaultGestureDetector;
@@ -34,12 +135,17 @@ public class DefaultTransformHelper implements TransformHelper,
   public DefaultTransformHelper() {
     defaultGestureDetector = DefaultGestureDetector.newInstance();
     defaultGestureDetector.setGestureListener(this);
+    zoomAnimator.setListener(zoomListener);
   }
 
   public static DefaultTransformHelper newInstance() {
     return new DefaultTransformHelper();
   }
 
+  public DefaultGestureDetector getGestureDetector() {
+    return defaultGestureDetector;
+  }
+
   public boolean isRotationEnabled() {
     return isRotationEnabled;
   }
@@ -56,6 +162,17 @@ public class DefaultTransformHelper implements TransformHelper,
     isScaleEnabled = scaleEnabled;
   }
 
+  public float getMaxScaleFactor() {
+    return mMaxScaleFactor;
+  }
+
+  /**
+   * Gestures, quick scale and click zooms stop at this scale.
+   */
+  public void setMaxScaleFactor(float maxScaleFactor) {
+    mMaxScaleFactor = maxScaleFactor;
+  }
+
   public boolean isTranslationEnabled() {
     return isTranslationEnabled;
   }
@@ -64,8 +181,127 @@ public class DefaultTransformHelper implements TransformHelper,
     isTranslationEnabled = translationEnabled;
   }
 
+  public boolean isFrameAligned() {
+    return isFrameAligned;
+  }
+
+  /**
+   * When frame aligned, gesture updates received within one vsync are folded together: the
+   * transform is computed, clamped and dispatched to the listener once per frame.
+   */
+  public void setFrameAligned(boolean frameAligned) {
+    if (!frameAligned) {
+      flushPendingUpdate();
+    }
+    isFrameAligned = frameAligned;
+  }
+
+  public FrameStats getFrameStats() {
+    return frameStats;
+  }
+
+  /**
+   * Sets the animator used to keep panning after the last pointer is lifted, or null to stop as
+   * soon as the gesture ends.
+   */
+  public void setFlingAnimator(FlingAnimator flingAnimator) {
+    if (this.flingAnimator != null) {
+      this.flingAnimator.cancel();
+      this.flingAnimator.setListener(null);
+    }
+    this.flingAnimator = flingAnimator;
+    if (flingAnimator != null) {
+      flingAnimator.setListener(flingListener);
+    }
+  }
+
+  public FlingAnimator getFlingAnimator() {
+    return flingAnimator;
+  }
+
+  /**
+   * Sets a recorder receiving every touch event before it reaches the gesture detector, or null to
+   * stop recording.
+   */
+  public void setGestureRecorder(GestureRecorder gestureRecorder) {
+    this.gestureRecorder = gestureRecorder;
+  }
+
+  public GestureRecorder getGestureRecorder() {
+    return gestureRecorder;
+  }
+
+  /**
+   * Sets the clock used to start zoom animations and measure latencies. Gestures are timed by
+   * their event times only.
+   */
+  public void setClock(Clock clock) {
+    this.clock = clock;
+    zoomAnimator.setClock(clock);
+  }
+
+  public Clock getClock() {
+    return clock;
+  }
+
+  /**
+   * Sets the metrics recorded for every gesture, or null to stop measuring.
+   */
+  public void setGestureMetrics(GestureMetrics gestureMetrics) {
+    this.gestureMetrics = gestureMetrics;
+  }
+
+  public GestureMetrics getGestureMetrics() {
+    return gestureMetrics;
+  }
+
+  /**
+   * @return the recognizers fed every touch event ahead of the transform gestures. Empty by
+   * default; once an exclusive recognizer begins, the rest of the gesture bypasses the transform
+   */
+  public GestureRecognizerChain getRecognizers() {
+    return recognizers;
+  }
+
+  /**
+   * Zooms with one finger: tap, then put the finger down again and drag it vertically.
+   */
+  public void setQuickScaleEnabled(boolean quickScaleEnabled) {
+    if (quickScaleEnabled && quickScaleRecognizer == null) {
+      quickScaleRecognizer = QuickScaleRecognizer.newInstance();
+      quickScaleRecognizer.setListener(quickScaleListener);
+      recognizers.add(quickScaleRecognizer);
+    } else if (!quickScaleEnabled && quickScaleRecognizer != null) {
+      recognizers.remove(quickScaleRecognizer);
+      quickScaleRecognizer.setListener(null);
+      quickScaleRecognizer = null;
+    }
+  }
+
+  public boolean isQuickScaleEnabled() {
+    return quickScaleRecognizer != null;
+  }
+
+  /**
+   * @return the quick scale recognizer, e.g. to set its slop, or null if quick scale is disabled.
+   * Its multi-tap timeout follows the click timeout of the gesture detector.
+   */
+  public QuickScaleRecognizer getQuickScaleRecognizer() {
+    return quickScaleRecognizer;
+  }
+
+  /**
+   * @return the animator used for click zooming, e.g. to configure its duration
+   */
+  public ZoomAnimator getZoomAnimator() {
+    return zoomAnimator;
+  }
+
   @Override
   public void setEnabled(boolean enabled) {
+    if (!enabled) {
+      stopAnimations();
+    }
     this.enabled = enabled;
   }
 
@@ -81,33 +317,175 @@ public class DefaultTransformHelper implements TransformHelper,
 
   @Override
   public float getScaleFactor() {
-    activeTransformMatrix.getValues(tempMatrixArray);
-    return tempMatrixArray[Matrix.MSCALE_X];
+    return scaleFactor;
+  }
+
+  /**
+   * @return the rotation of the current transform in degrees
+   */
+  public float getRotation() {
+    return rotation;
   }
 
+  /**
+   * The transform is maintained as an {@link AffineMatrix}; the framework matrix returned here is
+   * only brought up to date when it is asked for after a change.
+   */
   @Override
   public Matrix getTransform() {
-    return this.activeTransformMatrix;
+    if (matrixVersion != transformVersion) {
+      this.activeTransformMatrix.toMatrix(this.transformMatrix, tempMatrixArray);
+      matrixVersion = transformVersion;
+    }
+    return this.transformMatrix;
+  }
+
+  /**
+   * Copies the current transform without touching the framework matrix.
+   */
+  public void getTransform(AffineMatrix outTransform) {
+    outTransform.set(this.activeTransformMatrix);
+  }
+
+  /**
+   * Replaces the current transform, e.g. to restore a saved one. Running animations are stopped and
+   * a gesture in progress continues from the new transform.
+   */
+  public void setTransform(AffineMatrix transform) {
+    stopAnimations();
+    flushPendingUpdate();
+    this.activeTransformMatrix.set(transform);
+    this.previousTransformMatrix.set(transform);
+    defaultGestureDetector.restartGesture();
+    mapObjectBounds(this.transformBounds);
+    updateEdges(this.transformBounds);
+    dispatchTransformed();
+  }
+
+  /**
+   * Applies the scale and translation limits to the current transform, e.g. after {@link
+   * #setTransform(AffineMatrix)} once the object and view bounds are up to date.
+   */
+  public void limitTransform() {
+    flushPendingUpdate();
+    limitScale(this.activeTransformMatrix, viewBounds.centerX(), viewBounds.centerY());
+    limitTranslation();
+    this.previousTransformMatrix.set(this.activeTransformMatrix);
+    dispatchTransformed();
+  }
+
+  /**
+   * Resets the transform to identity.
+   */
+  public void reset() {
+    stopAnimations();
+    flushPendingUpdate();
+    this.activeTransformMatrix.reset();
+    this.previousTransformMatrix.reset();
+    defaultGestureDetector.restartGesture();
+    mapObjectBounds(this.transformBounds);
+    updateEdges(this.transformBounds);
+    dispatchTransformed();
   }
 
   @Override
   public void setObjectBounds(RectF objectBounds) {
     this.objectBounds.set(objectBounds);
+    mapObjectBounds(this.transformBounds);
+    updateEdges(this.transformBounds);
   }
 
   @Override
   public void setViewBounds(RectF viewBounds) {
     this.viewBounds.set(viewBounds);
+    mapObjectBounds(this.transformBounds);
+    updateEdges(this.transformBounds);
   }
 
   @Override
   public boolean onTouchEvent(MotionEvent motionEvent) {
     if (enabled) {
-      return defaultGestureDetector.onTouchEvent(motionEvent);
+      frameStats.onInputEvent();
+      if (gestureRecorder != null) {
+        gestureRecorder.record(motionEvent);
+      }
+      lastEventTime = motionEvent.getEventTime();
+      int action = motionEvent.getActionMasked();
+      if (action == MotionEvent.ACTION_DOWN) {
+        stopAnimations();
+      }
+      boolean handled;
+      if (recognizers.size() > 0 && dispatchToRecognizers(motionEvent)) {
+        handled = true;
+      } else {
+        handled = defaultGestureDetector.onTouchEvent(motionEvent);
+        if (action == MotionEvent.ACTION_UP) {
+          startFling();
+        }
+      }
+      if (gestureMetrics != null
+          && (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL)) {
+        gestureMetrics.onGestureEnd();
+      }
+      return handled;
+    }
+    return false;
+  }
+
+  /**
+   * @return whether an exclusive recognizer claimed the gesture
+   */
+  private boolean dispatchToRecognizers(MotionEvent motionEvent) {
+    if (quickScaleRecognizer != null && motionEvent.getActionMasked() == MotionEvent.ACTION_DOWN) {
+      // one double tap window: a second tap the detector would click zoom on arms quick scale
+      quickScaleRecognizer.setMultiTapTimeout(defaultGestureDetector.getClickTimeout());
+    }
+    recognizers.onTouchEvent(motionEvent);
+    scheduleRecognizerTimeout();
+    if (recognizers.isClaimed()) {
+      defaultGestureDetector.cancel();
+      return true;
     }
     return false;
   }
 
+  private void scheduleRecognizerTimeout() {
+    if (recognizers.getNextTimeout() != GestureRecognizer.NO_TIMEOUT) {
+      recognizerTimeouts.schedule();
+    } else {
+      recognizerTimeouts.cancel();
+    }
+  }
+
+  private void stopAnimations() {
+    zoomAnimator.cancel();
+    if (flingAnimator != null) {
+      flingAnimator.cancel();
+    }
+  }
+
+  private void startFling() {
+    if (flingAnimator == null || !isTranslationEnabled || zoomAnimator.isRunning()) {
+      return;
+    }
+    RectF bounds = this.transformBounds;
+    mapObjectBounds(bounds);
+    int minDx = 0;
+    int maxDx = 0;
+    int minDy = 0;
+    int maxDy = 0;
+    if (bounds.width() > this.viewBounds.width()) {
+      minDx = Math.round(this.viewBounds.width() - bounds.right);
+      maxDx = Math.round(-bounds.left);
+    }
+    if (bounds.height() > this.viewBounds.height()) {
+      minDy = Math.round(this.viewBounds.height() - bounds.bottom);
+      maxDy = Math.round(-bounds.top);
+    }
+    flingAnimator.fling(defaultGestureDetector.getReleaseVelocityX(),
+        defaultGestureDetector.getReleaseVelocityY(), minDx, maxDx, minDy, maxDy);
+  }
+
   @Override
   public void onGestureBegin(DefaultGestureDetector detector) {
 
@@ -115,6 +493,39 @@ public class DefaultTransformHelper implements TransformHelper,
 
   @Override
   public void onGestureUpdate(DefaultGestureDetector detector) {
+    frameStats.onGestureUpdate();
+    updatesSinceApply++;
+    if (isFrameAligned) {
+      hasPendingUpdate = true;
+      frameScheduler.schedule();
+    } else {
+      applyGestureUpdate(detector);
+    }
+  }
+
+  @Override
+  public void onFrame(long frameTimeNanos) {
+    if (hasPendingUpdate) {
+      long start = clock.nanoTime();
+      applyGestureUpdate(defaultGestureDetector);
+      frameStats.onFrame(frameTimeNanos, clock.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Applies an update still waiting for the next frame right away, so that the gesture state it
+   * depends on is not lost when the gesture ends.
+   */
+  private void flushPendingUpdate() {
+    frameScheduler.cancel();
+    if (hasPendingUpdate) {
+      applyGestureUpdate(defaultGestureDetector);
+    }
+  }
+
+  private void applyGestureUpdate(DefaultGestureDetector detector) {
+    hasPendingUpdate = false;
+    frameStats.onTransformComputed();
     this.activeTransformMatrix.set(this.previousTransformMatrix);
     if (isTranslationEnabled) {
       this.activeTransformMatrix
@@ -129,15 +540,30 @@ public class DefaultTransformHelper implements TransformHelper,
       float angle = detector.getRotation() * (float) (180 / Math.PI);
       this.activeTransformMatrix.postRotate(angle, detector.getPivotX(), detector.getPivotY());
     }
-    limitScale(detector.getPivotX(), detector.getPivotY());
-    limitTranslation();
-    if (listener != null) {
-      listener.onTransformed(this.activeTransformMatrix);
+    GestureMetrics metrics = this.gestureMetrics;
+    if (metrics != null) {
+      long start = clock.nanoTime();
+      limitScale(this.activeTransformMatrix, detector.getPivotX(), detector.getPivotY());
+      long scaled = clock.nanoTime();
+      limitTranslation();
+      long translated = clock.nanoTime();
+      metrics.recordLimitScale(scaled - start);
+      metrics.recordLimitTranslation(translated - scaled);
+      metrics.recordUpdatesPerFrame(updatesSinceApply);
+    } else {
+      limitScale(this.activeTransformMatrix, detector.getPivotX(), detector.getPivotY());
+      limitTranslation();
+    }
+    updatesSinceApply = 0;
+    dispatchTransformed();
+    if (metrics != null) {
+      metrics.recordTouchToTransform(lastEventTime, clock.nanoTime());
     }
   }
 
   @Override
   public void onGestureEnd(DefaultGestureDetector detector) {
+    flushPendingUpdate();
     this.previousTransformMatrix.set(this.activeTransformMatrix);
   }
 
@@ -156,32 +582,124 @@ public class DefaultTransformHelper implements TransformHelper,
         default:
           scale = 1;
       }
-      this.activeTransformMatrix
-          .postScale(scale, scale, detector.getPivotX(), detector.getPivotY());
-      if (listener != null) {
-        listener.onTransformed(this.activeTransformMatrix);
+      AffineMatrix target = this.zoomTargetMatrix;
+      target.set(this.activeTransformMatrix);
+      target.postScale(scale, scale, detector.getPivotX(), detector.getPivotY());
+      limitScale(target, detector.getPivotX(), detector.getPivotY());
+      clampTranslation(target);
+      if (flingAnimator != null) {
+        flingAnimator.cancel();
       }
+      zoomAnimator.start(this.activeTransformMatrix, target);
     }
   }
 
-  private void limitScale(float pivotX, float pivotY) {
-    float currentScale = getScaleFactor();
+  private void dispatchTransformed() {
+    transformVersion++;
+    scaleFactor = this.activeTransformMatrix.getScale();
+    rotation = this.activeTransformMatrix.getRotation();
+    if (listener != null) {
+      frameStats.onDispatch();
+      listener.onTransformed(getTransform());
+    }
+  }
+
+  private void limitScale(AffineMatrix matrix, float pivotX, float pivotY) {
+    float currentScale = matrix.getScale();
     if (currentScale < mMinScaleFactor) {
       float scale = mMinScaleFactor / currentScale;
-      this.activeTransformMatrix.postScale(mMinScaleFactor, mMinScaleFactor, pivotX, pivotY);
+      matrix.postScale(scale, scale, pivotX, pivotY);
+    } else if (currentScale > mMaxScaleFactor) {
+      float scale = mMaxScaleFactor / currentScale;
+      matrix.postScale(scale, scale, pivotX, pivotY);
     }
   }
 
   private void limitTranslation() {
+    boolean clamped = clampTranslation(this.activeTransformMatrix);
+    updateEdges(this.transformBounds);
+    if (clamped) {
+      if (gestureMetrics != null) {
+        gestureMetrics.onRestart();
+      }
+      defaultGestureDetector.restartGesture();
+    }
+  }
+
+  /**
+   * @param bounds the transformed object bounds
+   */
+  private void updateEdges(RectF bounds) {
+    int edges = 0;
+    if (bounds.left >= -EDGE_TOLERANCE) {
+      edges |= EDGE_LEFT;
+    }
+    if (bounds.top >= -EDGE_TOLERANCE) {
+      edges |= EDGE_TOP;
+    }
+    if (bounds.right <= this.viewBounds.width() + EDGE_TOLERANCE) {
+      edges |= EDGE_RIGHT;
+    }
+    if (bounds.bottom <= this.viewBounds.height() + EDGE_TOLERANCE) {
+      edges |= EDGE_BOTTOM;
+    }
+    this.edges = edges;
+  }
+
+  /**
+   * @return the {@link #EDGE_LEFT}, {@link #EDGE_TOP}, {@link #EDGE_RIGHT} and {@link
+   * #EDGE_BOTTOM} flags of the view edges the object has reached after the last transform
+   */
+  public int getEdges() {
+    return edges;
+  }
+
+  /**
+   * Same contract as {@link android.view.View#canScrollHorizontally(int)}: whether the object can
+   * still be panned, negative direction meaning towards its left edge.
+   */
+  public boolean canScrollHorizontally(int direction) {
+    if (direction < 0) {
+      return (edges & EDGE_LEFT) == 0;
+    } else if (direction > 0) {
+      return (edges & EDGE_RIGHT) == 0;
+    }
+    return false;
+  }
+
+  public boolean canScrollVertically(int direction) {
+    if (direction < 0) {
+      return (edges & EDGE_TOP) == 0;
+    } else if (direction > 0) {
+      return (edges & EDGE_BOTTOM) == 0;
+    }
+    return false;
+  }
+
+  /**
+   * Translates the matrix so that the transformed object stays within the view. A rotated object
+   * is clamped by the bounding box of its rotated corners, which is left in {@link
+   * #transformBounds}.
+   *
+   * @return whether the matrix had to be adjusted
+   */
+  private boolean clampTranslation(AffineMatrix matrix) {
     RectF bounds = this.transformBounds;
     bounds.set(this.objectBounds);
-    this.activeTransformMatrix.mapRect(bounds);
+    matrix.mapRect(bounds);
     float offsetLeft = getOffset(bounds.left, bounds.width(), this.viewBounds.width());
     float offsetTop = getOffset(bounds.top, bounds.height(), this.viewBounds.height());
     if (offsetLeft != bounds.left || offsetTop != bounds.top) {
-      this.activeTransformMatrix.postTranslate(offsetLeft - bounds.left, offsetTop - bounds.top);
-      defaultGestureDetector.restartGesture();
+      matrix.postTranslate(offsetLeft - bounds.left, offsetTop - bounds.top);
+      bounds.offset(offsetLeft - bounds.left, offsetTop - bounds.top);
+      return true;
     }
+    return false;
+  }
+
+  private void mapObjectBounds(RectF bounds) {
+    bounds.set(this.objectBounds);
+    this.activeTransformMatrix.mapRect(bounds);
   }
 
   private float getOffset(float offset, float imageDimension, float viewDimension) {
@@ -193,6 +711,25 @@ public class DefaultTransformHelper implements TransformHelper,
     return Math.min(Math.max(min, value), max);
   }
 
+  /**
+   * @return a counter changing whenever the transform changes, e.g. to tell whether values mapped
+   * earlier are still valid
+   */
+  public int getTransformVersion() {
+    return transformVersion;
+  }
+
+  /**
+   * @return the inverse of the current transform, recomputed only after the transform changed
+   */
+  private AffineMatrix getInverseTransform() {
+    if (inverseVersion != transformVersion) {
+      this.activeTransformMatrix.invert(this.activeTransformInverseMatrix);
+      inverseVersion = transformVersion;
+    }
+    return this.activeTransformInverseMatrix;
+  }
+
   /**
    * Maps array of 2D points from absolute to the image's relative coordinate system, and writes the
    * transformed points back into the array. Points are represented by float array of [x0, y0, x1,
@@ -205,9 +742,9 @@ public class DefaultTransformHelper implements TransformHelper,
   private void mapAbsoluteToRelative(float[] destPoints, float[] srcPoints, int numPoints) {
     for (int i = 0; i < numPoints; i++) {
       destPoints[i * 2 + 0] =
-          (srcPoints[i * 2 + 0] - transformBounds.left) / transformBounds.width();
+          (srcPoints[i * 2 + 0] - objectBounds.left) / objectBounds.width();
       destPoints[i * 2 + 1] =
-          (srcPoints[i * 2 + 1] - transformBounds.top) / transformBounds.height();
+          (srcPoints[i * 2 + 1] - objectBounds.top) / objectBounds.height();
     }
   }
 
@@ -222,23 +759,77 @@ public class DefaultTransformHelper implements TransformHelper,
    */
   private void mapRelativeToAbsolute(float[] destPoints, float[] srcPoints, int numPoints) {
     for (int i = 0; i < numPoints; i++) {
-      destPoints[i * 2 + 0] = srcPoints[i * 2 + 0] * transformBounds.width() + transformBounds.left;
-      destPoints[i * 2 + 1] = srcPoints[i * 2 + 1] * transformBounds.height() + transformBounds.top;
+      destPoints[i * 2 + 0] = srcPoints[i * 2 + 0] * objectBounds.width() + objectBounds.left;
+      destPoints[i * 2 + 1] = srcPoints[i * 2 + 1] * objectBounds.height() + objectBounds.top;
     }
   }
 
+  /**
+   * Maps array of 2D points from the view's to the object's relative coordinate system. This takes
+   * into account the zoomable transformation. Points are represented by float array of [x0, y0, x1,
+   * y1, ...].
+   *
+   * @param destPoints destination array (may be the same as source array)
+   * @param srcPoints source array
+   * @param numPoints number of points to map
+   */
+  public void mapViewToObject(float[] destPoints, float[] srcPoints, int numPoints) {
+    getInverseTransform().mapPoints(destPoints, 0, srcPoints, 0, numPoints);
+    mapAbsoluteToRelative(destPoints, destPoints, numPoints);
+  }
+
+  /**
+   * Maps array of 2D points from the object's relative to the view's coordinate system. This takes
+   * into account the zoomable transformation. Points are represented by float array of [x0, y0, x1,
+   * y1, ...].
+   *
+   * @param destPoints destination array (may be the same as source array)
+   * @param srcPoints source array
+   * @param numPoints number of points to map
+   */
+  public void mapObjectToView(float[] destPoints, float[] srcPoints, int numPoints) {
+    mapRelativeToAbsolute(destPoints, srcPoints, numPoints);
+    this.activeTransformMatrix.mapPoints(destPoints, 0, destPoints, 0, numPoints);
+  }
+
   /**
    * Maps point from the view's to the object's relative coordinate system. This takes into account
    * the zoomable transformation.
+   *
+   * @param viewPoint source point
+   * @param outPoint destination point (may be the same as source point)
    */
-  public PointF mapViewToObject(PointF viewPoint) {
-    float[] points = tempMatrixArray;
+  public void mapViewToObject(PointF viewPoint, PointF outPoint) {
+    float[] points = tempPoint;
     points[0] = viewPoint.x;
     points[1] = viewPoint.y;
-    activeTransformMatrix.invert(activeTransformMatrix);
-    activeTransformInverseMatrix.mapPoints(points, 0, points, 0, 1);
-    mapAbsoluteToRelative(points, points, 1);
-    return new PointF(points[0], points[1]);
+    mapViewToObject(points, points, 1);
+    outPoint.set(points[0], points[1]);
+  }
+
+  /**
+   * Maps point from the object's relative to the view's coordinate system. This takes into account
+   * the zoomable transformation.
+   *
+   * @param objectPoint source point
+   * @param outPoint destination point (may be the same as source point)
+   */
+  public void mapObjectToView(PointF objectPoint, PointF outPoint) {
+    float[] points = tempPoint;
+    points[0] = objectPoint.x;
+    points[1] = objectPoint.y;
+    mapObjectToView(points, points, 1);
+    outPoint.set(points[0], points[1]);
+  }
+
+  /**
+   * Maps point from the view's to the object's relative coordinate system. This takes into account
+   * the zoomable transformation.
+   */
+  public PointF mapViewToObject(PointF viewPoint) {
+    PointF objectPoint = new PointF();
+    mapViewToObject(viewPoint, objectPoint);
+    return objectPoint;
   }
 
   /**
@@ -246,11 +837,8 @@ public class DefaultTransformHelper implements TransformHelper,
    * the zoomable transformation.
    */
   public PointF mapObjectToView(PointF objectPointF) {
-    float[] points = tempMatrixArray;
-    points[0] = objectPointF.x;
-    points[1] = objectPointF.y;
-    mapRelativeToAbsolute(points, points, 1);
-    activeTransformMatrix.mapPoints(points, 0, points, 0, 1);
-    return new PointF(points[0], points[1]);
-  }
-}
\ No newline at end of file
+    PointF viewPoint = new PointF();
+    mapObjectToView(objectPointF, viewPoint);
+    return viewPoint;
+  }
+}
@@ -0,0 +1,114 @@
+package com.xperfect.cn.helper.photo.lib;
+
+import android.content.Context;
+import android.view.ViewConfiguration;
+import android.widget.OverScroller;
+
+/**
+ * Drives an inertial pan on the frame clock. Positions come from an {@link OverScroller} and are
+ * reported to the {@link Listener} as per-frame deltas, so the listener can keep clamping the
+ * transform on every frame. Nothing is allocated while the fling runs.
+ */
+public class FlingAnimator implements FrameScheduler.Callback {
+
+  public interface Listener {
+
+    void onFlingUpdate(float dx, float dy);
+
+    void onFlingEnd();
+  }
+
+  private final OverScroller scroller;
+  private final FrameScheduler frameScheduler = FrameScheduler.newInstance(this);
+  private final int minFlingVelocity;
+  private final int maxFlingVelocity;
+
+  private Listener listener;
+  private boolean running;
+  private int lastX;
+  private int lastY;
+
+  public FlingAnimator(Context context) {
+    scroller = new OverScroller(context);
+    ViewConfiguration configuration = ViewConfiguration.get(context);
+    minFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+    maxFlingVelocity = configuration.getScaledMaximumFlingVelocity();
+  }
+
+  public static FlingAnimator newInstance(Context context) {
+    return new FlingAnimator(context);
+  }
+
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Starts a fling from the current position. The deltas reported to the listener stay within
+   * the given ranges.
+   *
+   * @param velocityX horizontal velocity in pixels per second
+   * @param velocityY vertical velocity in pixels per second
+   * @return whether the velocity was high enough to start a fling
+   */
+  public boolean fling(float velocityX, float velocityY,
+      int minDx, int maxDx, int minDy, int maxDy) {
+    cancel();
+    velocityX = clampVelocity(velocityX);
+    velocityY = clampVelocity(velocityY);
+    if (Math.hypot(velocityX, velocityY) < minFlingVelocity) {
+      return false;
+    }
+    if (minDx == 0 && maxDx == 0 && minDy == 0 && maxDy == 0) {
+      return false;
+    }
+    lastX = 0;
+    lastY = 0;
+    scroller.fling(0, 0, (int) velocityX, (int) velocityY, minDx, maxDx, minDy, maxDy);
+    running = true;
+    frameScheduler.schedule();
+    return true;
+  }
+
+  public void cancel() {
+    if (running) {
+      running = false;
+      scroller.forceFinished(true);
+      frameScheduler.cancel();
+      if (listener != null) {
+        listener.onFlingEnd();
+      }
+    }
+  }
+
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public void onFrame(long frameTimeNanos) {
+    if (!running) {
+      return;
+    }
+    boolean more = scroller.computeScrollOffset();
+    int x = scroller.getCurrX();
+    int y = scroller.getCurrY();
+    if ((x != lastX || y != lastY) && listener != null) {
+      listener.onFlingUpdate(x - lastX, y - lastY);
+    }
+    lastX = x;
+    lastY = y;
+    if (more && !scroller.isFinished()) {
+      frameScheduler.schedule();
+    } else {
+      running = false;
+      if (listener != null) {
+        listener.onFlingEnd();
+      }
+    }
+  }
+
+  private float clampVelocity(float velocity) {
+    return Math.max(-maxFlingVelocity, Math.min(maxFlingVelocity, velocity));
+  }
+}
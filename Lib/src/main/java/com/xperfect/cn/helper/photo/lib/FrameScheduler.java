@@ -0,0 +1,58 @@
+package com.xperfect.cn.helper.photo.lib;
+
+import android.view.Choreographer;
+
+/**
+ * Runs a {@link Callback} at most once per vsync on the {@link Choreographer} of the calling
+ * thread. Requests made while a frame is already pending are merged into that frame.
+ */
+public class FrameScheduler implements Choreographer.FrameCallback {
+
+  public interface Callback {
+
+    void onFrame(long frameTimeNanos);
+  }
+
+  private final Callback callback;
+  private Choreographer choreographer;
+  private boolean scheduled;
+
+  public FrameScheduler(Callback callback) {
+    this.callback = callback;
+  }
+
+  public static FrameScheduler newInstance(Callback callback) {
+    return new FrameScheduler(callback);
+  }
+
+  public void schedule() {
+    if (!scheduled) {
+      scheduled = true;
+      getChoreographer().postFrameCallback(this);
+    }
+  }
+
+  public void cancel() {
+    if (scheduled) {
+      scheduled = false;
+      getChoreographer().removeFrameCallback(this);
+    }
+  }
+
+  public boolean isScheduled() {
+    return scheduled;
+  }
+
+  @Override
+  public void doFrame(long frameTimeNanos) {
+    scheduled = false;
+    callback.onFrame(frameTimeNanos);
+  }
+
+  private Choreographer getChoreographer() {
+    if (choreographer == null) {
+      choreographer = Choreographer.getInstance();
+    }
+    return choreographer;
+  }
+}
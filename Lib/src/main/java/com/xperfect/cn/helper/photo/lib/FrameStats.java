@@ -0,0 +1,130 @@
+package com.xperfect.cn.helper.photo.lib;
+
+/**
+ * Counters describing how much work the transform pipeline did, used to verify that input
+ * received within one vsync is folded into a single matrix computation and a single draw.
+ */
+public class FrameStats {
+
+  private long inputEvents;
+  private long gestureUpdates;
+  private long frames;
+  private long transformComputations;
+  private long dispatches;
+  private long totalFrameTimeNanos;
+  private long maxFrameTimeNanos;
+  private long lastFrameTimeNanos;
+  private long totalFrameIntervalNanos;
+  private long maxFrameIntervalNanos;
+
+  public static FrameStats newInstance() {
+    return new FrameStats();
+  }
+
+  public void reset() {
+    inputEvents = 0;
+    gestureUpdates = 0;
+    frames = 0;
+    transformComputations = 0;
+    dispatches = 0;
+    totalFrameTimeNanos = 0;
+    maxFrameTimeNanos = 0;
+    lastFrameTimeNanos = 0;
+    totalFrameIntervalNanos = 0;
+    maxFrameIntervalNanos = 0;
+  }
+
+  void onInputEvent() {
+    inputEvents++;
+  }
+
+  void onGestureUpdate() {
+    gestureUpdates++;
+  }
+
+  void onTransformComputed() {
+    transformComputations++;
+  }
+
+  void onDispatch() {
+    dispatches++;
+  }
+
+  /**
+   * @param frameTimeNanos vsync time reported by the choreographer
+   * @param workNanos time spent handling the frame
+   */
+  void onFrame(long frameTimeNanos, long workNanos) {
+    if (frames > 0) {
+      long interval = frameTimeNanos - lastFrameTimeNanos;
+      totalFrameIntervalNanos += interval;
+      maxFrameIntervalNanos = Math.max(maxFrameIntervalNanos, interval);
+    }
+    lastFrameTimeNanos = frameTimeNanos;
+    frames++;
+    totalFrameTimeNanos += workNanos;
+    maxFrameTimeNanos = Math.max(maxFrameTimeNanos, workNanos);
+  }
+
+  public long getInputEvents() {
+    return inputEvents;
+  }
+
+  public long getGestureUpdates() {
+    return gestureUpdates;
+  }
+
+  public long getFrames() {
+    return frames;
+  }
+
+  public long getTransformComputations() {
+    return transformComputations;
+  }
+
+  public long getDispatches() {
+    return dispatches;
+  }
+
+  public long getTotalFrameTimeNanos() {
+    return totalFrameTimeNanos;
+  }
+
+  public long getMaxFrameTimeNanos() {
+    return maxFrameTimeNanos;
+  }
+
+  public long getAverageFrameTimeNanos() {
+    return frames > 0 ? totalFrameTimeNanos / frames : 0;
+  }
+
+  public long getMaxFrameIntervalNanos() {
+    return maxFrameIntervalNanos;
+  }
+
+  public long getAverageFrameIntervalNanos() {
+    return frames > 1 ? totalFrameIntervalNanos / (frames - 1) : 0;
+  }
+
+  /**
+   * @return gesture updates that were folded into another computation, never negative
+   */
+  public long getCoalescedUpdates() {
+    return Math.max(0, gestureUpdates - transformComputations);
+  }
+
+  @Override
+  public String toString() {
+    return "FrameStats{" +
+        "inputEvents=" + inputEvents +
+        ", gestureUpdates=" + gestureUpdates +
+        ", frames=" + frames +
+        ", transformComputations=" + transformComputations +
+        ", dispatches=" + dispatches +
+        ", averageFrameTimeNanos=" + getAverageFrameTimeNanos() +
+        ", maxFrameTimeNanos=" + maxFrameTimeNanos +
+        ", averageFrameIntervalNanos=" + getAverageFrameIntervalNanos() +
+        ", maxFrameIntervalNanos=" + maxFrameIntervalNanos +
+        '}';
+  }
+}
@@ -0,0 +1,157 @@
+package com.xperfect.cn.helper.photo.lib;
+
+/**
+ * Responsiveness metrics of the gestures handled by a {@link DefaultTransformHelper}, kept in
+ * preallocated {@link LogHistogram}s so that they can stay enabled in production:
+ * <ul>
+ * <li>touch to transform latency: from the event time of the newest sample to the dispatch of
+ * the transform it produced, in nanoseconds</li>
+ * <li>gesture updates folded into each transform computation</li>
+ * <li>time spent in limitScale and limitTranslation, in nanoseconds</li>
+ * <li>gesture restarts caused by the translation limits, per gesture</li>
+ * <li>draw duration, in nanoseconds, as reported by the view through {@link #recordDraw(long)}</li>
+ * </ul>
+ * Metrics are recorded on the main thread. Use {@link #copyTo(GestureMetrics)}, e.g. from {@link
+ * Listener#onGestureEnd(GestureMetrics)}, to export a consistent snapshot.
+ */
+public class GestureMetrics {
+
+  public interface Listener {
+
+    /**
+     * Called after the last pointer of a gesture went up.
+     */
+    void onGestureEnd(GestureMetrics metrics);
+  }
+
+  private final LogHistogram touchToTransformNanos = LogHistogram.newInstance();
+  private final LogHistogram updatesPerFrame = LogHistogram.newInstance();
+  private final LogHistogram limitScaleNanos = LogHistogram.newInstance();
+  private final LogHistogram limitTranslationNanos = LogHistogram.newInstance();
+  private final LogHistogram restartsPerGesture = LogHistogram.newInstance();
+  private final LogHistogram drawNanos = LogHistogram.newInstance();
+
+  private long gestures;
+  private int gestureRestarts;
+  private Listener listener;
+
+  public static GestureMetrics newInstance() {
+    return new GestureMetrics();
+  }
+
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  public LogHistogram getTouchToTransformNanos() {
+    return touchToTransformNanos;
+  }
+
+  public LogHistogram getUpdatesPerFrame() {
+    return updatesPerFrame;
+  }
+
+  public LogHistogram getLimitScaleNanos() {
+    return limitScaleNanos;
+  }
+
+  public LogHistogram getLimitTranslationNanos() {
+    return limitTranslationNanos;
+  }
+
+  public LogHistogram getRestartsPerGesture() {
+    return restartsPerGesture;
+  }
+
+  public LogHistogram getDrawNanos() {
+    return drawNanos;
+  }
+
+  public long getGestureCount() {
+    return gestures;
+  }
+
+  /**
+   * @param eventTimeMs {@link android.view.MotionEvent#getEventTime()}, on the uptime clock
+   * @param nowNanos {@link Clock#nanoTime()}, which shares the monotonic clock on Android
+   */
+  void recordTouchToTransform(long eventTimeMs, long nowNanos) {
+    touchToTransformNanos.record(nowNanos - eventTimeMs * 1000000L);
+  }
+
+  void recordUpdatesPerFrame(int updates) {
+    updatesPerFrame.record(updates);
+  }
+
+  void recordLimitScale(long nanos) {
+    limitScaleNanos.record(nanos);
+  }
+
+  void recordLimitTranslation(long nanos) {
+    limitTranslationNanos.record(nanos);
+  }
+
+  void onRestart() {
+    gestureRestarts++;
+  }
+
+  void onGestureEnd() {
+    gestures++;
+    restartsPerGesture.record(gestureRestarts);
+    gestureRestarts = 0;
+    if (listener != null) {
+      listener.onGestureEnd(this);
+    }
+  }
+
+  public void recordDraw(long nanos) {
+    drawNanos.record(nanos);
+  }
+
+  public void reset() {
+    touchToTransformNanos.reset();
+    updatesPerFrame.reset();
+    limitScaleNanos.reset();
+    limitTranslationNanos.reset();
+    restartsPerGesture.reset();
+    drawNanos.reset();
+    gestures = 0;
+    gestureRestarts = 0;
+  }
+
+  /**
+   * Copies the recorded values, not the listener, into {@code out}.
+   */
+  public void copyTo(GestureMetrics out) {
+    touchToTransformNanos.copyTo(out.touchToTransformNanos);
+    updatesPerFrame.copyTo(out.updatesPerFrame);
+    limitScaleNanos.copyTo(out.limitScaleNanos);
+    limitTranslationNanos.copyTo(out.limitTranslationNanos);
+    restartsPerGesture.copyTo(out.restartsPerGesture);
+    drawNanos.copyTo(out.drawNanos);
+    out.gestures = gestures;
+    out.gestureRestarts = gestureRestarts;
+  }
+
+  /**
+   * @return a detached copy of the recorded values
+   */
+  public GestureMetrics snapshot() {
+    GestureMetrics snapshot = new GestureMetrics();
+    copyTo(snapshot);
+    return snapshot;
+  }
+
+  @Override
+  public String toString() {
+    return "GestureMetrics{" +
+        "gestures=" + gestures +
+        ", touchToTransformNanos={" + touchToTransformNanos + "}" +
+        ", updatesPerFrame={" + updatesPerFrame + "}" +
+        ", limitScaleNanos={" + limitScaleNanos + "}" +
+        ", limitTranslationNanos={" + limitTranslationNanos + "}" +
+        ", restartsPerGesture={" + restartsPerGesture + "}" +
+        ", drawNanos={" + drawNanos + "}" +
+        '}';
+  }
+}
@@ -0,0 +1,249 @@
+package com.xperfect.cn.helper.photo.lib;
+
+import android.view.MotionEvent;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Records the touch input fed to a {@link DefaultTransformHelper} into a ring buffer of primitive
+ * arrays, so that memory stays bounded however long it runs: once full, the oldest samples are
+ * overwritten. Every historical sample of a batched event is kept, flagged as {@link
+ * #FLAG_BATCHED} so {@link GestureReplayer} can rebuild the same batches.
+ * <p>
+ * A recording can be written to and read from a compact binary stream:
+ * <pre>
+ * int magic, int version, int sampleCount,
+ * sampleCount * (byte action, byte actionIndex, byte flags, byte pointerCount, long eventTime,
+ *                pointerCount * (byte pointerId, float x, float y))
+ * </pre>
+ */
+public class GestureRecorder {
+
+  public static final int DEFAULT_CAPACITY = 4096;
+  public static final int MAX_POINTERS = 10;
+
+  /**
+   * The sample is a historical sample, folded into the event of the next sample.
+   */
+  public static final int FLAG_BATCHED = 1;
+
+  private static final int MAGIC = 0x47524543;
+  private static final int VERSION = 1;
+
+  private final int capacity;
+  private final byte[] actions;
+  private final byte[] actionIndices;
+  private final byte[] flags;
+  private final byte[] pointerCounts;
+  private final long[] eventTimes;
+  private final byte[] pointerIds;
+  private final float[] x;
+  private final float[] y;
+
+  private int start;
+  private int size;
+  private boolean enabled = true;
+
+  public GestureRecorder(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.capacity = capacity;
+    actions = new byte[capacity];
+    actionIndices = new byte[capacity];
+    flags = new byte[capacity];
+    pointerCounts = new byte[capacity];
+    eventTimes = new long[capacity];
+    pointerIds = new byte[capacity * MAX_POINTERS];
+    x = new float[capacity * MAX_POINTERS];
+    y = new float[capacity * MAX_POINTERS];
+  }
+
+  public static GestureRecorder newInstance() {
+    return new GestureRecorder(DEFAULT_CAPACITY);
+  }
+
+  public static GestureRecorder newInstance(int capacity) {
+    return new GestureRecorder(capacity);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @return number of samples held, at most {@link #getCapacity()}
+   */
+  public int size() {
+    return size;
+  }
+
+  public void clear() {
+    start = 0;
+    size = 0;
+  }
+
+  public void record(MotionEvent event) {
+    if (!enabled) {
+      return;
+    }
+    int action = event.getActionMasked();
+    int actionIndex = event.getActionIndex();
+    int pointerCount = Math.min(event.getPointerCount(), MAX_POINTERS);
+    int historySize = event.getHistorySize();
+    for (int h = 0; h < historySize; h++) {
+      int slot = append(action, actionIndex, FLAG_BATCHED, pointerCount,
+          event.getHistoricalEventTime(h));
+      for (int p = 0; p < pointerCount; p++) {
+        int offset = slot * MAX_POINTERS + p;
+        pointerIds[offset] = (byte) event.getPointerId(p);
+        x[offset] = event.getHistoricalX(p, h);
+        y[offset] = event.getHistoricalY(p, h);
+      }
+    }
+    int slot = append(action, actionIndex, 0, pointerCount, event.getEventTime());
+    for (int p = 0; p < pointerCount; p++) {
+      int offset = slot * MAX_POINTERS + p;
+      pointerIds[offset] = (byte) event.getPointerId(p);
+      x[offset] = event.getX(p);
+      y[offset] = event.getY(p);
+    }
+  }
+
+  private int append(int action, int actionIndex, int sampleFlags, int pointerCount,
+      long eventTime) {
+    int slot;
+    if (size < capacity) {
+      slot = (start + size) % capacity;
+      size++;
+    } else {
+      slot = start;
+      start = (start + 1) % capacity;
+    }
+    actions[slot] = (byte) action;
+    actionIndices[slot] = (byte) actionIndex;
+    flags[slot] = (byte) sampleFlags;
+    pointerCounts[slot] = (byte) pointerCount;
+    eventTimes[slot] = eventTime;
+    return slot;
+  }
+
+  private int slot(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+    }
+    return (start + index) % capacity;
+  }
+
+  /**
+   * @return masked action of the event the sample belongs to
+   */
+  public int getAction(int index) {
+    return actions[slot(index)];
+  }
+
+  public int getActionIndex(int index) {
+    return actionIndices[slot(index)];
+  }
+
+  public int getFlags(int index) {
+    return flags[slot(index)];
+  }
+
+  public boolean isBatched(int index) {
+    return (flags[slot(index)] & FLAG_BATCHED) != 0;
+  }
+
+  public int getPointerCount(int index) {
+    return pointerCounts[slot(index)];
+  }
+
+  public long getEventTime(int index) {
+    return eventTimes[slot(index)];
+  }
+
+  public int getPointerId(int index, int pointerIndex) {
+    return pointerIds[slot(index) * MAX_POINTERS + pointerIndex];
+  }
+
+  public float getX(int index, int pointerIndex) {
+    return x[slot(index) * MAX_POINTERS + pointerIndex];
+  }
+
+  public float getY(int index, int pointerIndex) {
+    return y[slot(index) * MAX_POINTERS + pointerIndex];
+  }
+
+  /**
+   * Writes the samples held, oldest first. The stream is not closed.
+   */
+  public void writeTo(OutputStream outputStream) throws IOException {
+    DataOutputStream out = new DataOutputStream(outputStream);
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(size);
+    for (int i = 0; i < size; i++) {
+      int slot = slot(i);
+      out.writeByte(actions[slot]);
+      out.writeByte(actionIndices[slot]);
+      out.writeByte(flags[slot]);
+      out.writeByte(pointerCounts[slot]);
+      out.writeLong(eventTimes[slot]);
+      for (int p = 0; p < pointerCounts[slot]; p++) {
+        int offset = slot * MAX_POINTERS + p;
+        out.writeByte(pointerIds[offset]);
+        out.writeFloat(x[offset]);
+        out.writeFloat(y[offset]);
+      }
+    }
+    out.flush();
+  }
+
+  /**
+   * Reads a recording written by {@link #writeTo(OutputStream)} into a recorder sized to hold it.
+   * The stream is not closed.
+   */
+  public static GestureRecorder readFrom(InputStream inputStream) throws IOException {
+    DataInputStream in = new DataInputStream(inputStream);
+    if (in.readInt() != MAGIC) {
+      throw new IOException("not a gesture recording");
+    }
+    int version = in.readInt();
+    if (version != VERSION) {
+      throw new IOException("unsupported gesture recording version: " + version);
+    }
+    int count = in.readInt();
+    if (count < 0) {
+      throw new IOException("invalid sample count: " + count);
+    }
+    GestureRecorder recorder = new GestureRecorder(Math.max(count, 1));
+    for (int i = 0; i < count; i++) {
+      int action = in.readByte();
+      int actionIndex = in.readByte();
+      int sampleFlags = in.readByte();
+      int pointerCount = in.readByte();
+      if (pointerCount < 0 || pointerCount > MAX_POINTERS) {
+        throw new IOException("invalid pointer count: " + pointerCount);
+      }
+      int slot = recorder.append(action, actionIndex, sampleFlags, pointerCount, in.readLong());
+      for (int p = 0; p < pointerCount; p++) {
+        int offset = slot * MAX_POINTERS + p;
+        recorder.pointerIds[offset] = in.readByte();
+        recorder.x[offset] = in.readFloat();
+        recorder.y[offset] = in.readFloat();
+      }
+    }
+    return recorder;
+  }
+}
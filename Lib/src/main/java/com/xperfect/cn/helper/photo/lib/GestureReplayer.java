@@ -0,0 +1,179 @@
+package com.xperfect.cn.helper.photo.lib;
+
+import android.view.MotionEvent;
+import android.view.MotionEvent.PointerCoords;
+import android.view.MotionEvent.PointerProperties;
+
+/**
+ * Feeds a {@link GestureRecorder} recording back into a {@link TransformHelper}, rebuilding every
+ * event with its batched historical samples and original timestamps.
+ * <p>
+ * {@link #replay(TransformHelper)} dispatches everything at once, as fast as the helper consumes
+ * it. {@link #start(TransformHelper)} keeps the recorded pacing: on every frame, the events
+ * recorded up to the elapsed time are dispatched, the same way input is delivered per vsync.
+ * <p>
+ * Replay begins at the first {@link MotionEvent#ACTION_DOWN}, skipping a gesture cut off by the
+ * ring buffer wrapping around.
+ */
+public class GestureReplayer implements FrameScheduler.Callback {
+
+  public interface Listener {
+
+    void onReplayEnd();
+  }
+
+  private final GestureRecorder recording;
+  private final FrameScheduler frameScheduler = FrameScheduler.newInstance(this);
+  private final PointerProperties[] pointerProperties =
+      new PointerProperties[GestureRecorder.MAX_POINTERS];
+  private final PointerCoords[] pointerCoords = new PointerCoords[GestureRecorder.MAX_POINTERS];
+
+  private Listener listener;
+  private TransformHelper target;
+  private int position;
+  private long downTime;
+  private long baseEventTime;
+  private long baseFrameTimeNanos;
+  private boolean running;
+
+  public GestureReplayer(GestureRecorder recording) {
+    this.recording = recording;
+    for (int i = 0; i < GestureRecorder.MAX_POINTERS; i++) {
+      pointerProperties[i] = new PointerProperties();
+      pointerCoords[i] = new PointerCoords();
+    }
+  }
+
+  public static GestureReplayer newInstance(GestureRecorder recording) {
+    return new GestureReplayer(recording);
+  }
+
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Replays the whole recording synchronously.
+   *
+   * @return number of events dispatched
+   */
+  public int replay(TransformHelper helper) {
+    cancel();
+    int events = 0;
+    position = findFirstDown();
+    while (position < recording.size()) {
+      dispatchNext(helper);
+      events++;
+    }
+    return events;
+  }
+
+  /**
+   * Starts replaying at the recorded pacing, driven by the frame clock of the calling thread.
+   */
+  public void start(TransformHelper helper) {
+    cancel();
+    position = findFirstDown();
+    if (position >= recording.size()) {
+      return;
+    }
+    target = helper;
+    baseEventTime = recording.getEventTime(position);
+    baseFrameTimeNanos = -1;
+    running = true;
+    frameScheduler.schedule();
+  }
+
+  public void cancel() {
+    if (running) {
+      running = false;
+      target = null;
+      frameScheduler.cancel();
+    }
+  }
+
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public void onFrame(long frameTimeNanos) {
+    if (!running) {
+      return;
+    }
+    if (baseFrameTimeNanos < 0) {
+      baseFrameTimeNanos = frameTimeNanos;
+    }
+    long elapsedMs = (frameTimeNanos - baseFrameTimeNanos) / 1000000L;
+    while (position < recording.size()
+        && recording.getEventTime(lastSampleOf(position)) - baseEventTime <= elapsedMs) {
+      dispatchNext(target);
+    }
+    if (position < recording.size()) {
+      frameScheduler.schedule();
+    } else {
+      running = false;
+      target = null;
+      if (listener != null) {
+        listener.onReplayEnd();
+      }
+    }
+  }
+
+  private int findFirstDown() {
+    for (int i = 0; i < recording.size(); i++) {
+      if (!recording.isBatched(i) && recording.getAction(i) == MotionEvent.ACTION_DOWN) {
+        return i;
+      }
+    }
+    return recording.size();
+  }
+
+  /**
+   * @return index of the sample completing the event that starts at {@code index}
+   */
+  private int lastSampleOf(int index) {
+    int last = index;
+    while (last < recording.size() - 1 && recording.isBatched(last)) {
+      last++;
+    }
+    return last;
+  }
+
+  private void dispatchNext(TransformHelper helper) {
+    int first = position;
+    int last = lastSampleOf(first);
+    int pointerCount = recording.getPointerCount(last);
+    int action = recording.getAction(last);
+    if (action == MotionEvent.ACTION_DOWN) {
+      downTime = recording.getEventTime(last);
+    }
+    int fullAction = action
+        | (recording.getActionIndex(last) << MotionEvent.ACTION_POINTER_INDEX_SHIFT);
+    for (int p = 0; p < pointerCount; p++) {
+      pointerProperties[p].clear();
+      pointerProperties[p].id = recording.getPointerId(last, p);
+      pointerProperties[p].toolType = MotionEvent.TOOL_TYPE_FINGER;
+    }
+    setCoords(first, pointerCount);
+    MotionEvent event = MotionEvent.obtain(downTime, recording.getEventTime(first), fullAction,
+        pointerCount, pointerProperties, pointerCoords, 0, 0, 1, 1, 0, 0, 0, 0);
+    for (int i = first + 1; i <= last; i++) {
+      setCoords(i, pointerCount);
+      event.addBatch(recording.getEventTime(i), pointerCoords, 0);
+    }
+    position = last + 1;
+    helper.onTouchEvent(event);
+    event.recycle();
+  }
+
+  private void setCoords(int index, int pointerCount) {
+    for (int p = 0; p < pointerCount; p++) {
+      pointerCoords[p].clear();
+      pointerCoords[p].x = recording.getX(index, p);
+      pointerCoords[p].y = recording.getY(index, p);
+      pointerCoords[p].pressure = 1;
+      pointerCoords[p].size = 1;
+    }
+  }
+}
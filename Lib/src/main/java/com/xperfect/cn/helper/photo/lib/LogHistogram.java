@@ -0,0 +1,140 @@
+package com.xperfect.cn.helper.photo.lib;
+
+/**
+ * Histogram of non-negative values over preallocated logarithmic buckets, in the spirit of
+ * HdrHistogram: every power of two is split into {@link #SUB_BUCKETS} linear sub-buckets, so any
+ * recorded value is reported within 1/{@value #SUB_BUCKETS} of its magnitude. Recording never
+ * allocates.
+ */
+public class LogHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final long[] counts = new long[BUCKET_COUNT];
+  private long totalCount;
+  private long sum;
+  private long min = Long.MAX_VALUE;
+  private long max;
+
+  public static LogHistogram newInstance() {
+    return new LogHistogram();
+  }
+
+  /**
+   * @param value negative values are recorded as 0
+   */
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    counts[indexOf(value)]++;
+    totalCount++;
+    sum += value;
+    if (value < min) {
+      min = value;
+    }
+    if (value > max) {
+      max = value;
+    }
+  }
+
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts[i] = 0;
+    }
+    totalCount = 0;
+    sum = 0;
+    min = Long.MAX_VALUE;
+    max = 0;
+  }
+
+  public void copyTo(LogHistogram out) {
+    System.arraycopy(counts, 0, out.counts, 0, BUCKET_COUNT);
+    out.totalCount = totalCount;
+    out.sum = sum;
+    out.min = min;
+    out.max = max;
+  }
+
+  public long getTotalCount() {
+    return totalCount;
+  }
+
+  public long getMin() {
+    return totalCount > 0 ? min : 0;
+  }
+
+  public long getMax() {
+    return max;
+  }
+
+  public double getMean() {
+    return totalCount > 0 ? (double) sum / totalCount : 0;
+  }
+
+  /**
+   * @param percentile in [0, 100]
+   * @return the highest value equivalent to the one at the given percentile
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (totalCount == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(Math.max(0, Math.min(100, percentile)) / 100 * totalCount);
+    rank = Math.max(1, rank);
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(upperBoundOf(i), max);
+      }
+    }
+    return max;
+  }
+
+  public int getBucketCount() {
+    return BUCKET_COUNT;
+  }
+
+  public long getCountAt(int bucket) {
+    return counts[bucket];
+  }
+
+  public long getBucketLowerBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long subBucket = bucket % SUB_BUCKETS;
+    return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+  }
+
+  private long upperBoundOf(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    return getBucketLowerBound(bucket) + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+  }
+
+  static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  @Override
+  public String toString() {
+    return "count=" + totalCount
+        + ", min=" + getMin()
+        + ", p50=" + getValueAtPercentile(50)
+        + ", p90=" + getValueAtPercentile(90)
+        + ", p99=" + getValueAtPercentile(99)
+        + ", max=" + max;
+  }
+}
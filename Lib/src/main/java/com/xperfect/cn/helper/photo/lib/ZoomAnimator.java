@@ -0,0 +1,101 @@
+package com.xperfect.cn.helper.photo.lib;
+
+/**
+ * Interpolates a transform towards a target on the frame clock. Progress is derived from the
+ * vsync time, so a late frame jumps ahead instead of stretching the animation. The start, target
+ * and current values live in preallocated buffers.
+ */
+public class ZoomAnimator implements FrameScheduler.Callback {
+
+  public static final long DEFAULT_DURATION_MS = 250;
+
+  public interface Listener {
+
+    /**
+     * @param values interpolated matrix values, only valid during the call
+     */
+    void onZoomUpdate(float[] values);
+
+    void onZoomEnd();
+  }
+
+  private final FrameScheduler frameScheduler = FrameScheduler.newInstance(this);
+  private final float[] startValues = new float[9];
+  private final float[] targetValues = new float[9];
+  private final float[] currentValues = new float[9];
+
+  private Listener listener;
+  private Clock clock = Clock.SYSTEM;
+  private long durationNanos = DEFAULT_DURATION_MS * 1000000L;
+  private long startTimeNanos;
+  private boolean running;
+
+  public static ZoomAnimator newInstance() {
+    return new ZoomAnimator();
+  }
+
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  public void setClock(Clock clock) {
+    this.clock = clock;
+  }
+
+  public void setDuration(long durationMs) {
+    this.durationNanos = Math.max(0, durationMs) * 1000000L;
+  }
+
+  public long getDuration() {
+    return durationNanos / 1000000L;
+  }
+
+  public void start(AffineMatrix from, AffineMatrix to) {
+    cancel();
+    from.getValues(startValues);
+    to.getValues(targetValues);
+    startTimeNanos = clock.nanoTime();
+    running = true;
+    frameScheduler.schedule();
+  }
+
+  public void cancel() {
+    if (running) {
+      running = false;
+      frameScheduler.cancel();
+      if (listener != null) {
+        listener.onZoomEnd();
+      }
+    }
+  }
+
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public void onFrame(long frameTimeNanos) {
+    if (!running) {
+      return;
+    }
+    float fraction = durationNanos > 0 ?
+        (float) (frameTimeNanos - startTimeNanos) / durationNanos : 1;
+    fraction = Math.max(0, Math.min(1, fraction));
+    // decelerate
+    float t = 1 - (1 - fraction) * (1 - fraction);
+    for (int i = 0; i < 9; i++) {
+      currentValues[i] = startValues[i] + (targetValues[i] - startValues[i]) * t;
+    }
+    if (listener != null) {
+      listener.onZoomUpdate(currentValues);
+    }
+    if (fraction < 1) {
+      frameScheduler.schedule();
+    } else {
+      running = false;
+      if (listener != null) {
+        listener.onZoomEnd();
+      }
+    }
+  }
+}
@@ -26,6 +26,8 @@ public class DefaultGestureDetector extends BaseGestureDetector implements Gestu
 
   GestureListener gestureListener;
 
+  private final PointerStatistics mStatistics = PointerStatistics.newInstance();
+
   public DefaultGestureDetector() {
     detector = MultiPointerGestureDetector.newInstance();
     detector.setGestureListener(this);
@@ -35,6 +37,41 @@ public class DefaultGestureDetector extends BaseGestureDetector implements Gestu
     this.gestureListener = gestureListener;
   }
 
+  /**
+   * @see MultiPointerGestureDetector#HISTORY_MODE_NONE
+   * @see MultiPointerGestureDetector#HISTORY_MODE_COALESCED
+   * @see MultiPointerGestureDetector#HISTORY_MODE_PER_SAMPLE
+   */
+  public void setHistoryMode(int historyMode) {
+    detector.setHistoryMode(historyMode);
+  }
+
+  public int getHistoryMode() {
+    return detector.getHistoryMode();
+  }
+
+  /**
+   * @see MultiPointerGestureDetector#setTouchSlop(float)
+   */
+  public void setTouchSlop(float touchSlop) {
+    detector.setTouchSlop(touchSlop);
+  }
+
+  public float getTouchSlop() {
+    return detector.getTouchSlop();
+  }
+
+  /**
+   * @see MultiPointerGestureDetector#setClickTimeout(long)
+   */
+  public void setClickTimeout(long clickTimeout) {
+    detector.setClickTimeout(clickTimeout);
+  }
+
+  public long getClickTimeout() {
+    return detector.getClickTimeout();
+  }
+
   public boolean onTouchEvent(final MotionEvent event) {
     return detector.onTouchEvent(event);
   }
@@ -43,72 +80,71 @@ public class DefaultGestureDetector extends BaseGestureDetector implements Gestu
     detector.restartGesture();
   }
 
+  /**
+   * @see MultiPointerGestureDetector#cancel()
+   */
+  public void cancel() {
+    detector.cancel();
+  }
+
   @Override
   public float getPivotX() {
-    return calcAverage(detector.getStartX());
+    return mStatistics.getPivotX();
   }
 
   @Override
   public float getPivotY() {
-    return calcAverage(detector.getStartY());
+    return mStatistics.getPivotY();
   }
 
   @Override
   public float getTranslationX() {
-    return calcAverage(detector.getCurrentX()) -
-        calcAverage(detector.getStartX());
+    return mStatistics.getTranslationX();
   }
 
   @Override
   public float getTranslationY() {
-    return calcAverage(detector.getCurrentY()) -
-        calcAverage(detector.getStartY());
+    return mStatistics.getTranslationY();
   }
 
   @Override
   public float getScale() {
-    if (detector.getCount() < 2) {
-      return 1;
-    } else {
-      if (effectiveLength(detector.getStartX()) > 1) {
-        float startDeltaX = calcAverage(detector.getStartX()) - detector.getStartX()[0];
-        float startDeltaY = calcAverage(detector.getStartY()) - detector.getStartY()[0];
-        float currentDeltaX =
-            calcAverage(detector.getCurrentX()) - detector.getCurrentX()[0];
-        float currentDeltaY =
-            calcAverage(detector.getCurrentY()) - detector.getCurrentY()[0];
-        float startDist = (float) Math.hypot(startDeltaX, startDeltaY);
-        float currentDist = (float) Math.hypot(currentDeltaX, currentDeltaY);
-        return currentDist / startDist;
-      } else {
-        return 1;
-      }
-    }
+    return mStatistics.getScale();
   }
 
   @Override
   public float getRotation() {
-    if (detector.getCount() < 2) {
-      return 0;
-    } else {
-      if (effectiveLength(detector.getStartX()) > 1) {
-        float startDeltaX = calcAverage(detector.getStartX()) - detector.getStartX()[0];
-        float startDeltaY = calcAverage(detector.getStartY()) - detector.getStartY()[0];
-        float currentDeltaX =
-            calcAverage(detector.getCurrentX()) - detector.getCurrentX()[0];
-        float currentDeltaY =
-            calcAverage(detector.getCurrentY()) - detector.getCurrentY()[0];
-        float startAngle = (float) Math.atan2(startDeltaY, startDeltaX);
-        float currentAngle = (float) Math.atan2(currentDeltaY, currentDeltaX);
-        return currentAngle - startAngle;
-      } else {
-        return 0;
-      }
-    }
+    return mStatistics.getRotation();
+  }
+
+  public float getVelocityX() {
+    return detector.getVelocityX();
+  }
+
+  public float getVelocityY() {
+    return detector.getVelocityY();
+  }
+
+  public float getReleaseVelocityX() {
+    return detector.getReleaseVelocityX();
+  }
+
+  public float getReleaseVelocityY() {
+    return detector.getReleaseVelocityY();
+  }
+
+  /**
+   * Refreshes the cached pointer statistics, once per event before the listener is notified.
+   */
+  private void updateStatistics() {
+    // only the slots of the pointers down are filled
+    mStatistics.update(detector.getStartX(), detector.getStartY(), detector.getCurrentX(),
+        detector.getCurrentY(), detector.getCount(), detector.getPointerCount());
   }
 
   @Override
   public void onGestureBegin(MultiPointerGestureDetector detector) {
+    updateStatistics();
     if (gestureListener != null) {
       gestureListener.onGestureBegin(this);
     }
@@ -116,6 +152,7 @@ public class DefaultGestureDetector extends BaseGestureDetector implements Gestu
 
   @Override
   public void onGestureUpdate(MultiPointerGestureDetector detector) {
+    updateStatistics();
     if (gestureListener != null) {
       gestureListener.onGestureUpdate(this);
     }
@@ -123,6 +160,7 @@ public class DefaultGestureDetector extends BaseGestureDetector implements Gestu
 
   @Override
   public void onGestureEnd(MultiPointerGestureDetector detector) {
+    updateStatistics();
     if (gestureListener != null) {
       gestureListener.onGestureEnd(this);
     }
@@ -130,6 +168,7 @@ public class DefaultGestureDetector extends BaseGestureDetector implements Gestu
 
   @Override
   public void click(int count, MultiPointerGestureDetector detector) {
+    updateStatistics();
     if (gestureListener != null) {
       gestureListener.click(count, this);
     }
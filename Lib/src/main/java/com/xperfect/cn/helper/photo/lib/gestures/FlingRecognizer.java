@@ -0,0 +1,57 @@
+package com.xperfect.cn.helper.photo.lib.gestures;
+
+import android.view.MotionEvent;
+
+/**
+ * Recognizes the release of the pointers while their focus moves faster than the minimum
+ * velocity.
+ */
+public class FlingRecognizer extends GestureRecognizer {
+
+  public static final float DEFAULT_MIN_VELOCITY = 150;
+
+  private float minVelocity = DEFAULT_MIN_VELOCITY;
+  private float velocityX;
+  private float velocityY;
+
+  public static FlingRecognizer newInstance() {
+    return new FlingRecognizer();
+  }
+
+  /**
+   * @param minVelocity in pixels per second
+   */
+  public void setMinVelocity(float minVelocity) {
+    this.minVelocity = minVelocity;
+  }
+
+  /**
+   * @return release velocity in pixels per second
+   */
+  public float getVelocityX() {
+    return velocityX;
+  }
+
+  public float getVelocityY() {
+    return velocityY;
+  }
+
+  @Override
+  protected void onTouchEvent(PointerSnapshot snapshot) {
+    switch (snapshot.getAction()) {
+      case MotionEvent.ACTION_UP:
+        velocityX = snapshot.getVelocityX();
+        velocityY = snapshot.getVelocityY();
+        if (Math.hypot(velocityX, velocityY) >= minVelocity) {
+          recognize();
+        } else {
+          fail();
+        }
+        break;
+      case MotionEvent.ACTION_CANCEL:
+        fail();
+        break;
+      default:
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package com.xperfect.cn.helper.photo.lib.gestures;
+
+/**
+ * One gesture of a {@link GestureRecognizerChain}, fed the shared {@link PointerSnapshot} of every
+ * event.
+ * <p>
+ * Every gesture starts {@link #STATE_POSSIBLE} at {@link android.view.MotionEvent#ACTION_DOWN}.
+ * A recognizer that can no longer match {@link #fail() fails} as early as it can and is skipped
+ * for the rest of the gesture. Discrete gestures, such as taps, go straight to {@link
+ * #STATE_ENDED} with {@link #recognize()}. Continuous ones {@link #begin()}, {@link #change()} and
+ * {@link #end()}. The listener is told about every state but {@link #STATE_FAILED}.
+ * <p>
+ * Subclasses implement custom gestures.
+ */
+public abstract class GestureRecognizer {
+
+  public static final int STATE_POSSIBLE = 0;
+  public static final int STATE_BEGAN = 1;
+  public static final int STATE_CHANGED = 2;
+  public static final int STATE_ENDED = 3;
+  /**
+   * Taken over by a recognizer of higher priority after it began.
+   */
+  public static final int STATE_CANCELLED = 4;
+  public static final int STATE_FAILED = 5;
+
+  public static final long NO_TIMEOUT = Long.MAX_VALUE;
+
+  public interface Listener {
+
+    void onGesture(GestureRecognizer recognizer);
+  }
+
+  private int state = STATE_POSSIBLE;
+  private int priority;
+  private boolean exclusive;
+  private long timeout = NO_TIMEOUT;
+  private Listener listener;
+  GestureRecognizerChain chain;
+
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  public int getState() {
+    return state;
+  }
+
+  public int getPriority() {
+    return priority;
+  }
+
+  /**
+   * When two recognizers that cannot {@link #canRecognizeWith(GestureRecognizer) run together}
+   * both match, the one with the higher priority wins, even if it begins later.
+   */
+  public void setPriority(int priority) {
+    this.priority = priority;
+    if (chain != null) {
+      chain.sort();
+    }
+  }
+
+  public boolean isExclusive() {
+    return exclusive;
+  }
+
+  /**
+   * @param exclusive whether this gesture, once begun, takes the touch stream away from the
+   * transform gestures of the owner of the chain
+   */
+  public void setExclusive(boolean exclusive) {
+    this.exclusive = exclusive;
+  }
+
+  /**
+   * @return whether the gesture has begun and not ended yet
+   */
+  public boolean isActive() {
+    return state == STATE_BEGAN || state == STATE_CHANGED;
+  }
+
+  /**
+   * @return whether nothing more is expected from this recognizer until the next down
+   */
+  public boolean isFinished() {
+    return state >= STATE_ENDED;
+  }
+
+  /**
+   * @return whether both gestures may be recognized at the same time, e.g. pinch and rotate.
+   * Checked both ways, either recognizer can allow it
+   */
+  public boolean canRecognizeWith(GestureRecognizer other) {
+    return false;
+  }
+
+  /**
+   * Called for every event while the recognizer is neither failed nor finished.
+   */
+  protected abstract void onTouchEvent(PointerSnapshot snapshot);
+
+  /**
+   * Called once the time set with {@link #setTimeout(long)} is reached without another event
+   * having cleared it.
+   *
+   * @param time current time, in the event time base
+   */
+  protected void onTimeout(PointerSnapshot snapshot, long time) {
+  }
+
+  /**
+   * Called at every down before the event is delivered. State kept across gestures, e.g. the
+   * previous tap of a double tap, is left to the subclass.
+   */
+  protected void onReset() {
+  }
+
+  /**
+   * @param time event time at which {@link #onTimeout(PointerSnapshot, long)} is called, or
+   * {@link #NO_TIMEOUT}
+   */
+  protected final void setTimeout(long time) {
+    timeout = time;
+  }
+
+  long getTimeout() {
+    return timeout;
+  }
+
+  final void reset() {
+    state = STATE_POSSIBLE;
+    timeout = NO_TIMEOUT;
+    onReset();
+  }
+
+  protected final void recognize() {
+    if (state == STATE_POSSIBLE && arbitrate()) {
+      setState(STATE_ENDED);
+    }
+  }
+
+  protected final void begin() {
+    if (state == STATE_POSSIBLE && arbitrate()) {
+      setState(STATE_BEGAN);
+    }
+  }
+
+  protected final void change() {
+    if (isActive()) {
+      setState(STATE_CHANGED);
+    }
+  }
+
+  protected final void end() {
+    if (isActive()) {
+      setState(STATE_ENDED);
+    }
+  }
+
+  protected final void fail() {
+    if (!isFinished()) {
+      timeout = NO_TIMEOUT;
+      state = isActive() ? STATE_CANCELLED : STATE_FAILED;
+      if (state == STATE_CANCELLED && listener != null) {
+        listener.onGesture(this);
+      }
+    }
+  }
+
+  private boolean arbitrate() {
+    if (chain != null && !chain.arbitrate(this)) {
+      fail();
+      return false;
+    }
+    return true;
+  }
+
+  private void setState(int state) {
+    this.state = state;
+    if (isFinished()) {
+      timeout = NO_TIMEOUT;
+    }
+    if (listener != null) {
+      listener.onGesture(this);
+    }
+  }
+}
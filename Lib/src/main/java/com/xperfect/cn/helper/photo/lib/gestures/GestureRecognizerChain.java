@@ -0,0 +1,157 @@
+package com.xperfect.cn.helper.photo.lib.gestures;
+
+import android.view.MotionEvent;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Registry of {@link GestureRecognizer}s sharing one {@link PointerSnapshot} per event.
+ * <p>
+ * Recognizers are visited in decreasing priority. Failed and finished ones are skipped until the
+ * next down, so a gesture that cannot match costs a state check per event. When a recognizer
+ * begins, or recognizes a discrete gesture, every other recognizer it cannot run together with
+ * fails or is cancelled if its priority is not higher; if a higher priority one is already
+ * active, the newcomer fails instead.
+ * <p>
+ * Timeouts, e.g. of a long press, are not scheduled by the chain. The owner polls {@link
+ * #getNextTimeout()} and calls {@link #onTimeout(long)}.
+ */
+public class GestureRecognizerChain {
+
+  private static final Comparator<GestureRecognizer> BY_PRIORITY =
+      new Comparator<GestureRecognizer>() {
+        @Override
+        public int compare(GestureRecognizer a, GestureRecognizer b) {
+          return b.getPriority() < a.getPriority() ? -1
+              : (b.getPriority() == a.getPriority() ? 0 : 1);
+        }
+      };
+
+  private final PointerSnapshot snapshot = PointerSnapshot.newInstance();
+  private GestureRecognizer[] recognizers = new GestureRecognizer[0];
+  private boolean claimed;
+
+  public static GestureRecognizerChain newInstance() {
+    return new GestureRecognizerChain();
+  }
+
+  public void add(GestureRecognizer recognizer) {
+    if (recognizer.chain == this) {
+      return;
+    }
+    if (recognizer.chain != null) {
+      recognizer.chain.remove(recognizer);
+    }
+    recognizer.chain = this;
+    recognizers = Arrays.copyOf(recognizers, recognizers.length + 1);
+    recognizers[recognizers.length - 1] = recognizer;
+    sort();
+  }
+
+  public void remove(GestureRecognizer recognizer) {
+    if (recognizer.chain != this) {
+      return;
+    }
+    recognizer.chain = null;
+    GestureRecognizer[] remaining = new GestureRecognizer[recognizers.length - 1];
+    int i = 0;
+    for (GestureRecognizer r : recognizers) {
+      if (r != recognizer) {
+        remaining[i++] = r;
+      }
+    }
+    recognizers = remaining;
+  }
+
+  public int size() {
+    return recognizers.length;
+  }
+
+  public PointerSnapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * @return whether an {@link GestureRecognizer#isExclusive() exclusive} recognizer began since
+   * the last down, its events should not drive anything else
+   */
+  public boolean isClaimed() {
+    return claimed;
+  }
+
+  public void onTouchEvent(MotionEvent event) {
+    snapshot.update(event);
+    if (snapshot.getAction() == MotionEvent.ACTION_DOWN) {
+      claimed = false;
+      for (GestureRecognizer recognizer : recognizers) {
+        recognizer.reset();
+      }
+    }
+    for (GestureRecognizer recognizer : recognizers) {
+      if (!recognizer.isFinished()) {
+        recognizer.onTouchEvent(snapshot);
+      }
+    }
+    if (snapshot.isGestureEnd()) {
+      // nothing can match past the end of the stream
+      for (GestureRecognizer recognizer : recognizers) {
+        if (recognizer.isActive()) {
+          recognizer.fail();
+        }
+      }
+    }
+  }
+
+  /**
+   * @return earliest time, in the event time base, at which {@link #onTimeout(long)} is due, or
+   * {@link GestureRecognizer#NO_TIMEOUT}
+   */
+  public long getNextTimeout() {
+    long next = GestureRecognizer.NO_TIMEOUT;
+    for (GestureRecognizer recognizer : recognizers) {
+      if (!recognizer.isFinished()) {
+        next = Math.min(next, recognizer.getTimeout());
+      }
+    }
+    return next;
+  }
+
+  public void onTimeout(long time) {
+    for (GestureRecognizer recognizer : recognizers) {
+      if (!recognizer.isFinished() && recognizer.getTimeout() <= time) {
+        recognizer.setTimeout(GestureRecognizer.NO_TIMEOUT);
+        recognizer.onTimeout(snapshot, time);
+      }
+    }
+  }
+
+  void sort() {
+    Arrays.sort(recognizers, BY_PRIORITY);
+  }
+
+  /**
+   * @return whether {@code winner} may begin
+   */
+  boolean arbitrate(GestureRecognizer winner) {
+    for (GestureRecognizer other : recognizers) {
+      if (other != winner && other.isActive() && other.getPriority() > winner.getPriority()
+          && !compatible(winner, other)) {
+        return false;
+      }
+    }
+    for (GestureRecognizer other : recognizers) {
+      if (other != winner && !other.isFinished() && other.getPriority() <= winner.getPriority()
+          && !compatible(winner, other)) {
+        other.fail();
+      }
+    }
+    if (winner.isExclusive()) {
+      claimed = true;
+    }
+    return true;
+  }
+
+  private static boolean compatible(GestureRecognizer a, GestureRecognizer b) {
+    return a.canRecognizeWith(b) || b.canRecognizeWith(a);
+  }
+}
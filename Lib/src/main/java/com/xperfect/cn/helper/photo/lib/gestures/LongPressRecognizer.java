@@ -0,0 +1,78 @@
+package com.xperfect.cn.helper.photo.lib.gestures;
+
+import android.view.MotionEvent;
+
+/**
+ * Begins when a single pointer stays down without moving for the {@link
+ * #setLongPressTimeout(long) timeout}, then follows the pointer until it is lifted, e.g. for drag
+ * after long press.
+ */
+public class LongPressRecognizer extends GestureRecognizer {
+
+  public static final long DEFAULT_LONG_PRESS_TIMEOUT = 500;
+
+  private long longPressTimeout = DEFAULT_LONG_PRESS_TIMEOUT;
+  private float touchSlop = TapRecognizer.DEFAULT_TOUCH_SLOP;
+
+  private float x;
+  private float y;
+
+  public static LongPressRecognizer newInstance() {
+    return new LongPressRecognizer();
+  }
+
+  public void setLongPressTimeout(long longPressTimeout) {
+    this.longPressTimeout = longPressTimeout;
+  }
+
+  public void setTouchSlop(float touchSlop) {
+    this.touchSlop = touchSlop;
+  }
+
+  /**
+   * @return position of the pointer
+   */
+  public float getX() {
+    return x;
+  }
+
+  public float getY() {
+    return y;
+  }
+
+  @Override
+  protected void onTouchEvent(PointerSnapshot snapshot) {
+    switch (snapshot.getAction()) {
+      case MotionEvent.ACTION_DOWN:
+        x = snapshot.getX(0);
+        y = snapshot.getY(0);
+        setTimeout(snapshot.getEventTime() + longPressTimeout);
+        break;
+      case MotionEvent.ACTION_MOVE:
+        if (isActive()) {
+          x = snapshot.getX(0);
+          y = snapshot.getY(0);
+          change();
+        } else if (Math.hypot(snapshot.getX(0) - snapshot.getDownX(),
+            snapshot.getY(0) - snapshot.getDownY()) > touchSlop) {
+          fail();
+        }
+        break;
+      case MotionEvent.ACTION_UP:
+        if (isActive()) {
+          end();
+        } else {
+          fail();
+        }
+        break;
+      default:
+        // a second pointer or a cancel
+        fail();
+    }
+  }
+
+  @Override
+  protected void onTimeout(PointerSnapshot snapshot, long time) {
+    begin();
+  }
+}
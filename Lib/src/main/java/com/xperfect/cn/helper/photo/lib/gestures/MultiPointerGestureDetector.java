@@ -1,8 +1,7 @@
 package com.xperfect.cn.helper.photo.lib.gestures;
 
-import android.annotation.TargetApi;
-import android.os.Build;
 import android.view.MotionEvent;
+import java.util.Arrays;
 
 public class MultiPointerGestureDetector {
 
@@ -19,13 +18,43 @@ public class MultiPointerGestureDetector {
     void click(int count, MultiPointerGestureDetector detector);
   }
 
+  /**
+   * Only the latest sample of a batched {@link MotionEvent#ACTION_MOVE} is used.
+   */
+  public static final int HISTORY_MODE_NONE = 0;
+  /**
+   * Every batched sample is tracked, the listener is updated once per event.
+   */
+  public static final int HISTORY_MODE_COALESCED = 1;
+  /**
+   * Every batched sample is tracked and reported to the listener.
+   */
+  public static final int HISTORY_MODE_PER_SAMPLE = 2;
+
   private static final int MAX_POINTERS = 10;
-  private static final int DEFAULT_ID = -1;
   private static final int DEFAULT_VALUE = 0;
+  private static final int CURRENT_SAMPLE = -1;
+  /**
+   * Longest time, in milliseconds, between the downs and between the releases of two taps that
+   * make a click.
+   */
+  public static final long DEFAULT_CLICK_TIMEOUT = 500;
+  /**
+   * Time of a tap that never happened, too far back to make a click with any real one.
+   */
+  private static final long NO_TIME = Long.MIN_VALUE / 2;
+  /**
+   * Time constant of the exponential velocity filter.
+   */
+  private static final float VELOCITY_TIME_CONSTANT_MS = 30f;
+  /**
+   * A pointer resting longer than this before it is lifted has no release velocity.
+   */
+  private static final long VELOCITY_STALE_MS = 100;
 
   private boolean mGestureInProgress;
   private int mCount;
-  private final int mPointerId[] = new int[MAX_POINTERS];
+  private final PointerTable mPointers = PointerTable.newInstance(MAX_POINTERS);
   private final float mStartX[] = new float[MAX_POINTERS];
   private final float mStartY[] = new float[MAX_POINTERS];
   private final float mCurrentX[] = new float[MAX_POINTERS];
@@ -34,10 +63,24 @@ public class MultiPointerGestureDetector {
   private final long mCurrentTimeTemple[] = new long[MAX_POINTERS];
   private final long mStartTime[] = new long[MAX_POINTERS];
   private final long mCurrentTime[] = new long[MAX_POINTERS];
+  private final int mPointerIndex[] = new int[MAX_POINTERS];
+  private final float mSampleX[] = new float[MAX_POINTERS];
+  private final float mSampleY[] = new float[MAX_POINTERS];
+  private final long mSampleTime[] = new long[MAX_POINTERS];
+  private final float mVelocityX[] = new float[MAX_POINTERS];
+  private final float mVelocityY[] = new float[MAX_POINTERS];
+  private float mReleaseVelocityX;
+  private float mReleaseVelocityY;
+
+  private int mHistoryMode = HISTORY_MODE_NONE;
+  private long mClickTimeout = DEFAULT_CLICK_TIMEOUT;
+  private float mTouchSlop = 0;
 
   private GestureListener mListener = null;
 
   public MultiPointerGestureDetector() {
+    Arrays.fill(mStartTimeTemple, NO_TIME);
+    Arrays.fill(mCurrentTimeTemple, NO_TIME);
     reset();
   }
 
@@ -49,17 +92,73 @@ public class MultiPointerGestureDetector {
     mListener = listener;
   }
 
-  @TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+  public void setHistoryMode(int historyMode) {
+    mHistoryMode = historyMode;
+  }
+
+  public int getHistoryMode() {
+    return mHistoryMode;
+  }
+
+  /**
+   * A gesture only starts once a pointer moved further than the slop from where it went down,
+   * moves below it do not reach the listener. 0 starts on the first move.
+   *
+   * @param touchSlop distance in pixels, e.g. {@link android.view.ViewConfiguration#getScaledTouchSlop()}
+   */
+  public void setTouchSlop(float touchSlop) {
+    mTouchSlop = Math.max(0, touchSlop);
+  }
+
+  public float getTouchSlop() {
+    return mTouchSlop;
+  }
+
+  /**
+   * Taps are timed by their event times, a UI thread falling behind on input does not change
+   * which taps make a click.
+   *
+   * @param clickTimeout in milliseconds, see {@link #DEFAULT_CLICK_TIMEOUT}
+   */
+  public void setClickTimeout(long clickTimeout) {
+    mClickTimeout = clickTimeout;
+  }
+
+  public long getClickTimeout() {
+    return mClickTimeout;
+  }
+
   public void reset() {
     mGestureInProgress = false;
-    for (int i = 0; i < MAX_POINTERS; i++) {
-      mPointerId[i] = Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH ?
-          -1 : MotionEvent.INVALID_POINTER_ID;
+    for (int slot = 0; slot < mPointers.size(); slot++) {
+      clearSlot(slot);
     }
+    mPointers.clear();
   }
 
   protected boolean shouldStartGesture() {
-    return true;
+    if (mTouchSlop <= 0) {
+      return true;
+    }
+    float slopSquare = mTouchSlop * mTouchSlop;
+    for (int position = 0; position < mPointers.size(); position++) {
+      float dx = mCurrentX[position] - mStartX[position];
+      float dy = mCurrentY[position] - mStartY[position];
+      if (dx * dx + dy * dy > slopSquare) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Called after the current positions have been updated with a sample of a move event, before
+   * the listener is notified.
+   *
+   * @param eventTime time of the sample, in the {@link android.os.SystemClock#uptimeMillis()}
+   * time base
+   */
+  protected void onSample(long eventTime) {
   }
 
   private void startGesture() {
@@ -85,11 +184,14 @@ public class MultiPointerGestureDetector {
     int actionIndex = event.getActionIndex();
     switch (event.getActionMasked()) {
       case MotionEvent.ACTION_DOWN:
-      case MotionEvent.ACTION_POINTER_DOWN:
+      case MotionEvent.ACTION_POINTER_DOWN: {
+        // the start positions are re-seeded below, end the running gesture on its old baseline
+        boolean wasInProgress = mGestureInProgress;
+        stopGesture();
         switch (event.getActionMasked()) {
           case MotionEvent.ACTION_DOWN:
-            stopGesture();
             reset();
+            wasInProgress = false;
             mCount = pointerCount;
             break;
           case MotionEvent.ACTION_POINTER_DOWN:
@@ -97,72 +199,57 @@ public class MultiPointerGestureDetector {
             mCount = pointerCount < mCount ? mCount
                 : (pointerCount > MAX_POINTERS ? MAX_POINTERS : pointerCount);
         }
-        for (int position = 0; position < MAX_POINTERS; position++) {
-          //有效区间
-          if (position < pointerCount) {
-            mPointerId[position] = event.getPointerId(position);
-          } else {
-            mPointerId[position] = DEFAULT_ID;
+        // pointers keep their slots, new ones are appended
+        for (int index = 0; index < pointerCount; index++) {
+          int id = event.getPointerId(index);
+          boolean added = !mPointers.contains(id);
+          int position = mPointers.add(id);
+          if (position == PointerTable.NO_SLOT) {
+            continue;
           }
-          int index = event.findPointerIndex(mPointerId[position]);
-          if (index != -1) {
-            mCurrentX[position] = mStartX[position] = event.getX(index);
-            mCurrentY[position] = mStartY[position] = event.getY(index);
-            if (position == actionIndex) {
-              mStartTime[position] = System.currentTimeMillis();
-            }
-          } else {
-            mCurrentX[position] = mStartX[position] = DEFAULT_VALUE;
-            mCurrentY[position] = mStartY[position] = DEFAULT_VALUE;
-            mStartTime[position] = DEFAULT_VALUE;
+          if (added) {
+            mVelocityX[position] = mVelocityY[position] = 0;
           }
+          if (index == actionIndex) {
+            mStartTime[position] = event.getEventTime();
+          }
+          mCurrentX[position] = mStartX[position] = event.getX(index);
+          mCurrentY[position] = mStartY[position] = event.getY(index);
+          mSampleX[position] = mCurrentX[position];
+          mSampleY[position] = mCurrentY[position];
+          mSampleTime[position] = event.getEventTime();
         }
-        if (mGestureInProgress && mCount > 0) {
+        if (wasInProgress && mCount > 0) {
           startGesture();
-        } else {
         }
         break;
+      }
       case MotionEvent.ACTION_POINTER_UP:
       case MotionEvent.ACTION_UP: {
-        boolean isAllDouble = false;
-        for (int position = 0; position < MAX_POINTERS; position++) {
-          //有效区间, pointerCount 比实际触点多1
-          if (position < pointerCount - 1) {
-            if (position < actionIndex) {
-              mPointerId[position] = event.getPointerId(position);
-            } else {
-              mPointerId[position] = event.getPointerId(position + 1);
-              mStartTime[position] = mStartTime[position + 1];
-              mStartTimeTemple[position] = mStartTimeTemple[position + 1];
-              mCurrentTime[position] = mCurrentTime[position + 1];
-              mCurrentTimeTemple[position] = mCurrentTimeTemple[position + 1];
-              mStartX[position] = mStartX[position + 1];
-              mStartY[position] = mStartY[position + 1];
-              mCurrentX[position] = mCurrentX[position + 1];
-              mCurrentY[position] = mCurrentY[position + 1];
-            }
-          } else if (position < pointerCount) {
-            mPointerId[position] = pointerCount == 1 ? event.getPointerId(0) : DEFAULT_ID;
-          }
-          if (mPointerId[position] == -1) {
-            mCurrentX[position] = mStartX[position] = DEFAULT_VALUE;
-            mCurrentY[position] = mStartY[position] = DEFAULT_VALUE;
-            mStartTime[position] = mCurrentTime[position] = DEFAULT_VALUE;
-          } else {
-            if (position == actionIndex) {
-              mCurrentTime[position] = System.currentTimeMillis();
-            }
-            long deltaStartTime = mStartTime[position] - mStartTimeTemple[position];
-            long deltaCurrentTime = mCurrentTime[position] - mCurrentTimeTemple[position];
-            if (deltaStartTime < 500 && deltaCurrentTime < 500) {
-              isAllDouble = true;
-            } else {
-              isAllDouble = false;
-            }
-            mStartTimeTemple[position] = mStartTime[position];
-            mCurrentTimeTemple[position] = mCurrentTime[position];
+        boolean wasInProgress = mGestureInProgress;
+        if (event.getActionMasked() == MotionEvent.ACTION_POINTER_UP) {
+          stopGesture();
+        }
+        if (event.getActionMasked() == MotionEvent.ACTION_UP) {
+          captureReleaseVelocity(event.getEventTime());
+        }
+        int upId = event.getPointerId(actionIndex);
+        int upPosition = mPointers.slotOf(upId);
+        if (upPosition != PointerTable.NO_SLOT) {
+          mCurrentTime[upPosition] = event.getEventTime();
+          if (event.getActionMasked() == MotionEvent.ACTION_POINTER_UP) {
+            removeSlot(upId);
           }
         }
+        // a click when every pointer still down went down and up again soon enough
+        boolean isAllDouble = mPointers.size() > 0;
+        for (int position = 0; position < mPointers.size(); position++) {
+          long deltaStartTime = mStartTime[position] - mStartTimeTemple[position];
+          long deltaCurrentTime = mCurrentTime[position] - mCurrentTimeTemple[position];
+          isAllDouble &= deltaStartTime < mClickTimeout && deltaCurrentTime < mClickTimeout;
+          mStartTimeTemple[position] = mStartTime[position];
+          mCurrentTimeTemple[position] = mCurrentTime[position];
+        }
         if (isAllDouble && mCount == pointerCount && mListener != null) {
           mListener.click(event.getPointerCount(), this);
         }
@@ -173,9 +260,12 @@ public class MultiPointerGestureDetector {
             mCount = 0;
             break;
           case MotionEvent.ACTION_POINTER_UP:
-            if (mGestureInProgress) {
+            if (wasInProgress) {
+              for (int i = 0; i < mPointers.size(); i++) {
+                mStartX[i] = mCurrentX[i];
+                mStartY[i] = mCurrentY[i];
+              }
               startGesture();
-            } else {
             }
             break;
           default:
@@ -183,19 +273,30 @@ public class MultiPointerGestureDetector {
         break;
       }
       case MotionEvent.ACTION_MOVE: {
-        for (int position = 0; position < MAX_POINTERS; position++) {
-          int index = event.findPointerIndex(mPointerId[position]);
-          if (index != -1) {
-            mCurrentX[position] = event.getX(index);
-            mCurrentY[position] = event.getY(index);
-          }
+        for (int position = 0; position < mPointers.size(); position++) {
+          mPointerIndex[position] = -1;
         }
-        if (!mGestureInProgress && shouldStartGesture()) {
-          startGesture();
+        for (int index = 0; index < pointerCount; index++) {
+          int position = mPointers.slotOf(event.getPointerId(index));
+          if (position != PointerTable.NO_SLOT) {
+            mPointerIndex[position] = index;
+          }
         }
-        if (mGestureInProgress && mListener != null) {
-          mListener.onGestureUpdate(this);
+        if (mHistoryMode != HISTORY_MODE_NONE) {
+          int historySize = event.getHistorySize();
+          for (int pos = 0; pos < historySize; pos++) {
+            updateCurrentPositions(event, pos);
+            updateVelocity(event.getHistoricalEventTime(pos));
+            onSample(event.getHistoricalEventTime(pos));
+            if (mHistoryMode == HISTORY_MODE_PER_SAMPLE) {
+              dispatchUpdate();
+            }
+          }
         }
+        updateCurrentPositions(event, CURRENT_SAMPLE);
+        updateVelocity(event.getEventTime());
+        onSample(event.getEventTime());
+        dispatchUpdate();
         break;
       }
       case MotionEvent.ACTION_CANCEL: {
@@ -207,12 +308,125 @@ public class MultiPointerGestureDetector {
     return true;
   }
 
+  /**
+   * Drops the pointer, the one in the last slot takes over its slot with all of its state.
+   */
+  private void removeSlot(int id) {
+    int position = mPointers.remove(id);
+    int last = mPointers.size();
+    if (position != last) {
+      mStartX[position] = mStartX[last];
+      mStartY[position] = mStartY[last];
+      mCurrentX[position] = mCurrentX[last];
+      mCurrentY[position] = mCurrentY[last];
+      mStartTime[position] = mStartTime[last];
+      mStartTimeTemple[position] = mStartTimeTemple[last];
+      mCurrentTime[position] = mCurrentTime[last];
+      mCurrentTimeTemple[position] = mCurrentTimeTemple[last];
+      mSampleX[position] = mSampleX[last];
+      mSampleY[position] = mSampleY[last];
+      mSampleTime[position] = mSampleTime[last];
+      mVelocityX[position] = mVelocityX[last];
+      mVelocityY[position] = mVelocityY[last];
+    }
+    clearSlot(last);
+  }
+
+  /**
+   * Empties the slot; the click timestamps are kept, they are compared with those of the next
+   * tap in the same slot.
+   */
+  private void clearSlot(int position) {
+    mCurrentX[position] = mStartX[position] = DEFAULT_VALUE;
+    mCurrentY[position] = mStartY[position] = DEFAULT_VALUE;
+    mVelocityX[position] = mVelocityY[position] = DEFAULT_VALUE;
+  }
+
+  /**
+   * Copies one sample of a move event into the current positions. Pointer indices must have been
+   * resolved into {@link #mPointerIndex} beforehand.
+   *
+   * @param pos historical position, or {@link #CURRENT_SAMPLE} for the latest sample
+   */
+  private void updateCurrentPositions(MotionEvent event, int pos) {
+    for (int position = 0; position < mPointers.size(); position++) {
+      int index = mPointerIndex[position];
+      if (index != -1) {
+        if (pos == CURRENT_SAMPLE) {
+          mCurrentX[position] = event.getX(index);
+          mCurrentY[position] = event.getY(index);
+        } else {
+          mCurrentX[position] = event.getHistoricalX(index, pos);
+          mCurrentY[position] = event.getHistoricalY(index, pos);
+        }
+      }
+    }
+  }
+
+  /**
+   * Folds the displacement since the previous sample into the per pointer velocity, using an
+   * exponential filter weighted by the elapsed time.
+   */
+  private void updateVelocity(long eventTime) {
+    for (int position = 0; position < mPointers.size(); position++) {
+      if (mPointerIndex[position] == -1) {
+        continue;
+      }
+      long deltaTime = eventTime - mSampleTime[position];
+      if (deltaTime <= 0) {
+        continue;
+      }
+      float velocityX = (mCurrentX[position] - mSampleX[position]) * 1000f / deltaTime;
+      float velocityY = (mCurrentY[position] - mSampleY[position]) * 1000f / deltaTime;
+      float alpha = deltaTime / (deltaTime + VELOCITY_TIME_CONSTANT_MS);
+      mVelocityX[position] += alpha * (velocityX - mVelocityX[position]);
+      mVelocityY[position] += alpha * (velocityY - mVelocityY[position]);
+      mSampleX[position] = mCurrentX[position];
+      mSampleY[position] = mCurrentY[position];
+      mSampleTime[position] = eventTime;
+    }
+  }
+
+  private void captureReleaseVelocity(long eventTime) {
+    float sumX = 0;
+    float sumY = 0;
+    int count = 0;
+    for (int position = 0; position < mPointers.size(); position++) {
+      count++;
+      if (eventTime - mSampleTime[position] <= VELOCITY_STALE_MS) {
+        sumX += mVelocityX[position];
+        sumY += mVelocityY[position];
+      }
+    }
+    mReleaseVelocityX = count > 0 ? sumX / count : 0;
+    mReleaseVelocityY = count > 0 ? sumY / count : 0;
+  }
+
+  private void dispatchUpdate() {
+    if (!mGestureInProgress && shouldStartGesture()) {
+      startGesture();
+    }
+    if (mGestureInProgress && mListener != null) {
+      mListener.onGestureUpdate(this);
+    }
+  }
+
+  /**
+   * Ends the gesture and forgets all pointers, the following events up to the next down are not
+   * tracked.
+   */
+  public void cancel() {
+    stopGesture();
+    reset();
+    mCount = 0;
+  }
+
   public void restartGesture() {
     if (!mGestureInProgress) {
       return;
     }
     stopGesture();
-    for (int i = 0; i < MAX_POINTERS; i++) {
+    for (int i = 0; i < mPointers.size(); i++) {
       mStartX[i] = mCurrentX[i];
       mStartY[i] = mCurrentY[i];
     }
@@ -227,6 +441,52 @@ public class MultiPointerGestureDetector {
     return mCount;
   }
 
+  /**
+   * @return number of pointers currently down, they occupy the first slots of the start and
+   * current arrays
+   */
+  public int getPointerCount() {
+    return mPointers.size();
+  }
+
+  /**
+   * @return average horizontal velocity of the pointers currently down, in pixels per second
+   */
+  public float getVelocityX() {
+    return averageVelocity(mVelocityX);
+  }
+
+  /**
+   * @return average vertical velocity of the pointers currently down, in pixels per second
+   */
+  public float getVelocityY() {
+    return averageVelocity(mVelocityY);
+  }
+
+  /**
+   * @return horizontal velocity when the last pointer was lifted, in pixels per second
+   */
+  public float getReleaseVelocityX() {
+    return mReleaseVelocityX;
+  }
+
+  /**
+   * @return vertical velocity when the last pointer was lifted, in pixels per second
+   */
+  public float getReleaseVelocityY() {
+    return mReleaseVelocityY;
+  }
+
+  private float averageVelocity(float[] velocity) {
+    float sum = 0;
+    int count = 0;
+    for (int position = 0; position < mPointers.size(); position++) {
+      sum += velocity[position];
+      count++;
+    }
+    return count > 0 ? sum / count : 0;
+  }
+
   public float[] getStartX() {
     return mStartX;
   }
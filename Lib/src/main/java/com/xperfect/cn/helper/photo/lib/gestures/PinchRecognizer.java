@@ -0,0 +1,94 @@
+package com.xperfect.cn.helper.photo.lib.gestures;
+
+import android.view.MotionEvent;
+
+/**
+ * Begins once the span of two or more pointers changed by more than the slop, then reports the
+ * scale around their focus until fewer than two pointers are left. Runs together with {@link
+ * RotateRecognizer}.
+ */
+public class PinchRecognizer extends GestureRecognizer {
+
+  public static final float DEFAULT_SPAN_SLOP = 32;
+
+  private float spanSlop = DEFAULT_SPAN_SLOP;
+  private float startSpan;
+  private float previousSpan;
+  private float span;
+
+  public static PinchRecognizer newInstance() {
+    return new PinchRecognizer();
+  }
+
+  public void setSpanSlop(float spanSlop) {
+    this.spanSlop = spanSlop;
+  }
+
+  /**
+   * @return scale since the previous event
+   */
+  public float getScaleFactor() {
+    return previousSpan > 0 ? span / previousSpan : 1;
+  }
+
+  /**
+   * @return scale since the pointers went down, re-based whenever their count changes
+   */
+  public float getScale() {
+    return startSpan > 0 ? span / startSpan : 1;
+  }
+
+  @Override
+  public boolean canRecognizeWith(GestureRecognizer other) {
+    return other instanceof RotateRecognizer;
+  }
+
+  @Override
+  protected void onReset() {
+    startSpan = previousSpan = span = 0;
+  }
+
+  @Override
+  protected void onTouchEvent(PointerSnapshot snapshot) {
+    switch (snapshot.getAction()) {
+      case MotionEvent.ACTION_POINTER_DOWN:
+        startSpan = previousSpan = span = snapshot.getSpan();
+        break;
+      case MotionEvent.ACTION_MOVE:
+        if (snapshot.getPointerCount() < 2) {
+          return;
+        }
+        if (startSpan <= 0) {
+          startSpan = previousSpan = span = snapshot.getSpan();
+          return;
+        }
+        previousSpan = span;
+        span = snapshot.getSpan();
+        if (isActive()) {
+          change();
+        } else if (Math.abs(span - startSpan) > spanSlop) {
+          begin();
+        }
+        break;
+      case MotionEvent.ACTION_POINTER_UP:
+        if (snapshot.getPointerCount() > 2) {
+          // the span of the remaining pointers is only known on the next move
+          startSpan = previousSpan = span = 0;
+          break;
+        }
+        end();
+        if (!isFinished()) {
+          startSpan = previousSpan = span = 0;
+        }
+        break;
+      case MotionEvent.ACTION_UP:
+        end();
+        fail();
+        break;
+      case MotionEvent.ACTION_CANCEL:
+        fail();
+        break;
+      default:
+    }
+  }
+}
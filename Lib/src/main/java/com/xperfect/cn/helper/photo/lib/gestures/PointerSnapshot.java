@@ -0,0 +1,186 @@
+package com.xperfect.cn.helper.photo.lib.gestures;
+
+import android.view.MotionEvent;
+
+/**
+ * Pointer state of the latest event, computed once per event by {@link GestureRecognizerChain} and
+ * shared by all of its recognizers: positions, focus, span, angle and a filtered focus velocity.
+ * Span and angle are only computed when asked for, recognizers not using them, such as quick scale,
+ * do not pay for them. Times are event times, in the {@link android.os.SystemClock#uptimeMillis()}
+ * time base.
+ */
+public class PointerSnapshot {
+
+  public static final int MAX_POINTERS = 10;
+
+  /**
+   * Time constant of the exponential velocity filter, as in {@link MultiPointerGestureDetector}.
+   */
+  private static final float VELOCITY_TIME_CONSTANT_MS = 30f;
+
+  private int action;
+  private int actionIndex;
+  private long downTime;
+  private long eventTime;
+  private int pointerCount;
+  private final int[] ids = new int[MAX_POINTERS];
+  private final float[] x = new float[MAX_POINTERS];
+  private final float[] y = new float[MAX_POINTERS];
+  private float focusX;
+  private float focusY;
+  private float span;
+  private float angle;
+  private boolean spanValid;
+  private boolean angleValid;
+  private float downX;
+  private float downY;
+  private float velocityX;
+  private float velocityY;
+  private long sampleTime;
+  private float sampleX;
+  private float sampleY;
+
+  public static PointerSnapshot newInstance() {
+    return new PointerSnapshot();
+  }
+
+  public void update(MotionEvent event) {
+    int previousCount = pointerCount;
+    action = event.getActionMasked();
+    actionIndex = event.getActionIndex();
+    downTime = event.getDownTime();
+    eventTime = event.getEventTime();
+    pointerCount = Math.min(event.getPointerCount(), MAX_POINTERS);
+    float sumX = 0;
+    float sumY = 0;
+    for (int i = 0; i < pointerCount; i++) {
+      ids[i] = event.getPointerId(i);
+      x[i] = event.getX(i);
+      y[i] = event.getY(i);
+      sumX += x[i];
+      sumY += y[i];
+    }
+    focusX = sumX / pointerCount;
+    focusY = sumY / pointerCount;
+    spanValid = false;
+    angleValid = false;
+
+    if (action == MotionEvent.ACTION_DOWN) {
+      downX = x[0];
+      downY = y[0];
+    }
+    if (action == MotionEvent.ACTION_DOWN || pointerCount != previousCount) {
+      // the focus jumps when pointers come and go, start over
+      velocityX = velocityY = 0;
+      sampleTime = eventTime;
+      sampleX = focusX;
+      sampleY = focusY;
+    } else if (eventTime > sampleTime) {
+      long deltaTime = eventTime - sampleTime;
+      float alpha = deltaTime / (deltaTime + VELOCITY_TIME_CONSTANT_MS);
+      velocityX += alpha * ((focusX - sampleX) * 1000f / deltaTime - velocityX);
+      velocityY += alpha * ((focusY - sampleY) * 1000f / deltaTime - velocityY);
+      sampleTime = eventTime;
+      sampleX = focusX;
+      sampleY = focusY;
+    }
+  }
+
+  /**
+   * @return the masked action
+   */
+  public int getAction() {
+    return action;
+  }
+
+  public int getActionIndex() {
+    return actionIndex;
+  }
+
+  public long getDownTime() {
+    return downTime;
+  }
+
+  public long getEventTime() {
+    return eventTime;
+  }
+
+  public int getPointerCount() {
+    return pointerCount;
+  }
+
+  public int getPointerId(int index) {
+    return ids[index];
+  }
+
+  public float getX(int index) {
+    return x[index];
+  }
+
+  public float getY(int index) {
+    return y[index];
+  }
+
+  public float getFocusX() {
+    return focusX;
+  }
+
+  public float getFocusY() {
+    return focusY;
+  }
+
+  /**
+   * @return twice the average distance of the pointers to the focus
+   */
+  public float getSpan() {
+    if (!spanValid) {
+      float distance = 0;
+      for (int i = 0; i < pointerCount; i++) {
+        distance += (float) Math.hypot(x[i] - focusX, y[i] - focusY);
+      }
+      span = 2 * distance / pointerCount;
+      spanValid = true;
+    }
+    return span;
+  }
+
+  /**
+   * @return angle of the line from the first to the second pointer, in radians
+   */
+  public float getAngle() {
+    if (!angleValid) {
+      angle = pointerCount > 1 ? (float) Math.atan2(y[1] - y[0], x[1] - x[0]) : 0;
+      angleValid = true;
+    }
+    return angle;
+  }
+
+  /**
+   * @return position of the first pointer at {@link MotionEvent#ACTION_DOWN}
+   */
+  public float getDownX() {
+    return downX;
+  }
+
+  public float getDownY() {
+    return downY;
+  }
+
+  /**
+   * @return velocity of the focus in pixels per second, reset when the pointer count changes
+   */
+  public float getVelocityX() {
+    return velocityX;
+  }
+
+  public float getVelocityY() {
+    return velocityY;
+  }
+
+  /**
+   * @return whether the last event lifted the last pointer or cancelled the gesture
+   */
+  public boolean isGestureEnd() {
+    return action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL;
+  }
+}
@@ -0,0 +1,128 @@
+package com.xperfect.cn.helper.photo.lib.gestures;
+
+/**
+ * Centroid/spread accumulator for the pointer arrays of {@link MultiPointerGestureDetector}.
+ * <p>
+ * All sums are gathered in a single pass per event and every {@link GestureDetector} value is then
+ * served from the cached results, instead of rescanning the start/current arrays for each getter.
+ * The scanned slots must all hold a pointer, as the compact slots of the detector do; any
+ * coordinate is valid, including negative ones of events mapped from another view.
+ */
+public class PointerStatistics implements GestureDetector {
+
+  private int mPointerCount;
+  private int mStartCount;
+
+  private float mStartCenterX;
+  private float mStartCenterY;
+  private float mCurrentCenterX;
+  private float mCurrentCenterY;
+
+  private float mScale = 1;
+  private float mRotation = 0;
+
+  public static PointerStatistics newInstance() {
+    return new PointerStatistics();
+  }
+
+  public void reset() {
+    mPointerCount = 0;
+    mStartCount = 0;
+    mStartCenterX = mStartCenterY = 0;
+    mCurrentCenterX = mCurrentCenterY = 0;
+    mScale = 1;
+    mRotation = 0;
+  }
+
+  /**
+   * Recomputes all cached values from the given slots.
+   *
+   * @param pointerCount number of pointers the detector reports as down
+   * @param length number of slots to scan, all of them filled
+   */
+  public void update(float[] startX, float[] startY, float[] currentX, float[] currentY,
+      int pointerCount, int length) {
+    float startSumX = 0;
+    float startSumY = 0;
+    float currentSumX = 0;
+    float currentSumY = 0;
+    for (int i = 0; i < length; i++) {
+      startSumX += startX[i];
+      startSumY += startY[i];
+      currentSumX += currentX[i];
+      currentSumY += currentY[i];
+    }
+    mPointerCount = pointerCount;
+    mStartCount = length;
+    mStartCenterX = length > 0 ? startSumX / length : 0;
+    mStartCenterY = length > 0 ? startSumY / length : 0;
+    mCurrentCenterX = length > 0 ? currentSumX / length : 0;
+    mCurrentCenterY = length > 0 ? currentSumY / length : 0;
+
+    if (mPointerCount < 2 || mStartCount < 2) {
+      mScale = 1;
+      mRotation = 0;
+      return;
+    }
+    // spread is measured from the centroid to the first pointer
+    float startDeltaX = mStartCenterX - startX[0];
+    float startDeltaY = mStartCenterY - startY[0];
+    float currentDeltaX = mCurrentCenterX - currentX[0];
+    float currentDeltaY = mCurrentCenterY - currentY[0];
+    float startDist = (float) Math.hypot(startDeltaX, startDeltaY);
+    float currentDist = (float) Math.hypot(currentDeltaX, currentDeltaY);
+    mScale = currentDist / startDist;
+    mRotation = (float) (Math.atan2(currentDeltaY, currentDeltaX)
+        - Math.atan2(startDeltaY, startDeltaX));
+  }
+
+  public int getPointerCount() {
+    return mPointerCount;
+  }
+
+  public float getStartCenterX() {
+    return mStartCenterX;
+  }
+
+  public float getStartCenterY() {
+    return mStartCenterY;
+  }
+
+  public float getCurrentCenterX() {
+    return mCurrentCenterX;
+  }
+
+  public float getCurrentCenterY() {
+    return mCurrentCenterY;
+  }
+
+  @Override
+  public float getPivotX() {
+    return mStartCenterX;
+  }
+
+  @Override
+  public float getPivotY() {
+    return mStartCenterY;
+  }
+
+  @Override
+  public float getTranslationX() {
+    return mCurrentCenterX - mStartCenterX;
+  }
+
+  @Override
+  public float getTranslationY() {
+    return mCurrentCenterY - mStartCenterY;
+  }
+
+  @Override
+  public float getScale() {
+    return mScale;
+  }
+
+  @Override
+  public float getRotation() {
+    return mRotation;
+  }
+}
@@ -0,0 +1,102 @@
+package com.xperfect.cn.helper.photo.lib.gestures;
+
+/**
+ * Maps pointer ids to a compact range of slots [0, {@link #size()}), so that per pointer state can
+ * be kept in parallel arrays and only the pointers actually down are visited.
+ * <p>
+ * Lookups are a single array access. {@link #remove(int)} moves the pointer in the last slot into
+ * the freed one, the caller moves its own per slot state the same way.
+ */
+public class PointerTable {
+
+  /**
+   * Pointer ids reported by {@link android.view.MotionEvent} are in [0, 31].
+   */
+  public static final int MAX_POINTER_ID = 31;
+  public static final int NO_SLOT = -1;
+
+  private final int[] slots = new int[MAX_POINTER_ID + 1];
+  private final int[] ids;
+  private int size;
+
+  public PointerTable(int capacity) {
+    ids = new int[capacity];
+    for (int id = 0; id <= MAX_POINTER_ID; id++) {
+      slots[id] = NO_SLOT;
+    }
+  }
+
+  public static PointerTable newInstance(int capacity) {
+    return new PointerTable(capacity);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int capacity() {
+    return ids.length;
+  }
+
+  public int getId(int slot) {
+    return ids[slot];
+  }
+
+  /**
+   * @return slot of the pointer, or {@link #NO_SLOT} if it is not in the table
+   */
+  public int slotOf(int id) {
+    return id >= 0 && id <= MAX_POINTER_ID ? slots[id] : NO_SLOT;
+  }
+
+  public boolean contains(int id) {
+    return slotOf(id) != NO_SLOT;
+  }
+
+  /**
+   * @return slot of the pointer, appended if not in the table yet, or {@link #NO_SLOT} if the table
+   * is full or the id out of range
+   */
+  public int add(int id) {
+    if (id < 0 || id > MAX_POINTER_ID) {
+      return NO_SLOT;
+    }
+    if (slots[id] != NO_SLOT) {
+      return slots[id];
+    }
+    if (size == ids.length) {
+      return NO_SLOT;
+    }
+    ids[size] = id;
+    slots[id] = size;
+    return size++;
+  }
+
+  /**
+   * Removes the pointer, moving the one in the last slot into its slot. Afterwards, the slot at
+   * {@link #size()} is the one that was vacated.
+   *
+   * @return former slot of the pointer, or {@link #NO_SLOT} if it was not in the table
+   */
+  public int remove(int id) {
+    int slot = slotOf(id);
+    if (slot == NO_SLOT) {
+      return NO_SLOT;
+    }
+    int last = --size;
+    if (slot != last) {
+      int movedId = ids[last];
+      ids[slot] = movedId;
+      slots[movedId] = slot;
+    }
+    slots[id] = NO_SLOT;
+    return slot;
+  }
+
+  public void clear() {
+    for (int slot = 0; slot < size; slot++) {
+      slots[ids[slot]] = NO_SLOT;
+    }
+    size = 0;
+  }
+}
@@ -0,0 +1,159 @@
+package com.xperfect.cn.helper.photo.lib.gestures;
+
+import android.view.MotionEvent;
+
+/**
+ * One finger zoom: tap, then put the finger down again and drag it vertically. Dragging down
+ * zooms in and dragging up zooms out, around the point of the second down. Exclusive by default,
+ * the drag does not pan.
+ */
+public class QuickScaleRecognizer extends GestureRecognizer {
+
+  /**
+   * Drag distance, in pixels, that scales by e.
+   */
+  public static final float DEFAULT_SCALE_DISTANCE = 200;
+
+  private long multiTapTimeout = TapRecognizer.DEFAULT_MULTI_TAP_TIMEOUT;
+  private long pressTimeout = TapRecognizer.DEFAULT_PRESS_TIMEOUT;
+  private float touchSlop = TapRecognizer.DEFAULT_TOUCH_SLOP;
+  private float multiTapSlop = TapRecognizer.DEFAULT_MULTI_TAP_SLOP;
+  private float scaleDistance = DEFAULT_SCALE_DISTANCE;
+
+  private boolean armed;
+  private boolean tapped;
+  private long tapUpTime;
+  private float tapX;
+  private float tapY;
+  private float focusX;
+  private float focusY;
+  private float previousY;
+  private float scaleFactor = 1;
+  private float scale = 1;
+
+  public QuickScaleRecognizer() {
+    setExclusive(true);
+  }
+
+  public static QuickScaleRecognizer newInstance() {
+    return new QuickScaleRecognizer();
+  }
+
+  public void setMultiTapTimeout(long multiTapTimeout) {
+    this.multiTapTimeout = multiTapTimeout;
+  }
+
+  public long getMultiTapTimeout() {
+    return multiTapTimeout;
+  }
+
+  public void setPressTimeout(long pressTimeout) {
+    this.pressTimeout = pressTimeout;
+  }
+
+  public long getPressTimeout() {
+    return pressTimeout;
+  }
+
+  public void setTouchSlop(float touchSlop) {
+    this.touchSlop = touchSlop;
+  }
+
+  public float getTouchSlop() {
+    return touchSlop;
+  }
+
+  public void setMultiTapSlop(float multiTapSlop) {
+    this.multiTapSlop = multiTapSlop;
+  }
+
+  public float getMultiTapSlop() {
+    return multiTapSlop;
+  }
+
+  public void setScaleDistance(float scaleDistance) {
+    this.scaleDistance = scaleDistance;
+  }
+
+  public float getScaleDistance() {
+    return scaleDistance;
+  }
+
+  public float getFocusX() {
+    return focusX;
+  }
+
+  public float getFocusY() {
+    return focusY;
+  }
+
+  /**
+   * @return scale since the previous event
+   */
+  public float getScaleFactor() {
+    return scaleFactor;
+  }
+
+  /**
+   * @return scale since the drag began
+   */
+  public float getScale() {
+    return scale;
+  }
+
+  /**
+   * Taps fail by themselves once the drag moves past their slop, and the first tap must reach
+   * this recognizer to arm it.
+   */
+  @Override
+  public boolean canRecognizeWith(GestureRecognizer other) {
+    return other instanceof TapRecognizer;
+  }
+
+  @Override
+  protected void onTouchEvent(PointerSnapshot snapshot) {
+    switch (snapshot.getAction()) {
+      case MotionEvent.ACTION_DOWN:
+        // armed when this down follows a tap closely enough
+        armed = tapped && snapshot.getEventTime() - tapUpTime <= multiTapTimeout
+            && Math.hypot(snapshot.getX(0) - tapX, snapshot.getY(0) - tapY) <= multiTapSlop;
+        tapped = false;
+        focusX = snapshot.getX(0);
+        focusY = previousY = snapshot.getY(0);
+        scaleFactor = scale = 1;
+        break;
+      case MotionEvent.ACTION_MOVE:
+        float y = snapshot.getY(0);
+        if (isActive()) {
+          scaleFactor = (float) Math.exp((y - previousY) / scaleDistance);
+          scale *= scaleFactor;
+          previousY = y;
+          change();
+        } else if (Math.hypot(snapshot.getX(0) - focusX, y - focusY) > touchSlop) {
+          if (armed) {
+            previousY = y;
+            begin();
+          } else {
+            fail();
+          }
+        }
+        break;
+      case MotionEvent.ACTION_UP:
+        if (isActive()) {
+          end();
+          return;
+        }
+        // remember a tap, the next down may start the drag
+        tapped = !armed && snapshot.getEventTime() - snapshot.getDownTime() <= pressTimeout;
+        tapUpTime = snapshot.getEventTime();
+        tapX = snapshot.getX(0);
+        tapY = snapshot.getY(0);
+        fail();
+        break;
+      default:
+        // a second pointer or a cancel
+        tapped = false;
+        fail();
+    }
+  }
+}
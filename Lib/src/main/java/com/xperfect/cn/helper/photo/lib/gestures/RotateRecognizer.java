@@ -0,0 +1,107 @@
+package com.xperfect.cn.helper.photo.lib.gestures;
+
+import android.view.MotionEvent;
+
+/**
+ * Begins once the line through the first two pointers turned by more than the slop, then reports
+ * the rotation until fewer than two pointers are left. Runs together with {@link
+ * PinchRecognizer}.
+ */
+public class RotateRecognizer extends GestureRecognizer {
+
+  public static final float DEFAULT_ANGLE_SLOP = (float) Math.toRadians(5);
+
+  private float angleSlop = DEFAULT_ANGLE_SLOP;
+  private boolean tracking;
+  private float startAngle;
+  private float previousAngle;
+  private float angle;
+
+  public static RotateRecognizer newInstance() {
+    return new RotateRecognizer();
+  }
+
+  /**
+   * @param angleSlop in radians
+   */
+  public void setAngleSlop(float angleSlop) {
+    this.angleSlop = angleSlop;
+  }
+
+  /**
+   * @return rotation since the previous event, in radians
+   */
+  public float getRotationDelta() {
+    return normalize(angle - previousAngle);
+  }
+
+  /**
+   * @return rotation since the pointers went down, in radians, re-based whenever their count
+   * changes
+   */
+  public float getRotation() {
+    return angle - startAngle;
+  }
+
+  @Override
+  public boolean canRecognizeWith(GestureRecognizer other) {
+    return other instanceof PinchRecognizer;
+  }
+
+  @Override
+  protected void onReset() {
+    tracking = false;
+  }
+
+  @Override
+  protected void onTouchEvent(PointerSnapshot snapshot) {
+    switch (snapshot.getAction()) {
+      case MotionEvent.ACTION_POINTER_DOWN:
+        tracking = true;
+        startAngle = previousAngle = angle = snapshot.getAngle();
+        break;
+      case MotionEvent.ACTION_MOVE:
+        if (snapshot.getPointerCount() < 2) {
+          return;
+        }
+        if (!tracking) {
+          tracking = true;
+          startAngle = previousAngle = angle = snapshot.getAngle();
+          return;
+        }
+        previousAngle = angle;
+        // unwrapped, so that the total rotation may exceed half a turn
+        angle = previousAngle + normalize(snapshot.getAngle() - previousAngle);
+        if (isActive()) {
+          change();
+        } else if (Math.abs(angle - startAngle) > angleSlop) {
+          begin();
+        }
+        break;
+      case MotionEvent.ACTION_POINTER_UP:
+        tracking = false;
+        if (snapshot.getPointerCount() == 2) {
+          end();
+        }
+        break;
+      case MotionEvent.ACTION_UP:
+        end();
+        fail();
+        break;
+      case MotionEvent.ACTION_CANCEL:
+        fail();
+        break;
+      default:
+    }
+  }
+
+  private static float normalize(float radians) {
+    while (radians > Math.PI) {
+      radians -= 2 * Math.PI;
+    }
+    while (radians < -Math.PI) {
+      radians += 2 * Math.PI;
+    }
+    return radians;
+  }
+}
@@ -0,0 +1,152 @@
+package com.xperfect.cn.helper.photo.lib.gestures;
+
+import android.view.MotionEvent;
+
+/**
+ * Recognizes {@link #getTapCount() n} taps in a row, each with {@link #getPointerCount() m}
+ * pointers: a tap with {@code newInstance(1, 1)}, a double tap with {@code newInstance(2, 1)}, a
+ * two finger double tap with {@code newInstance(2, 2)}. Fires on the release of the last tap.
+ * <p>
+ * Taps of different counts can be recognized together, a double tap does not suppress the tap
+ * before it.
+ */
+public class TapRecognizer extends GestureRecognizer {
+
+  public static final long DEFAULT_PRESS_TIMEOUT = 500;
+  public static final long DEFAULT_MULTI_TAP_TIMEOUT = 300;
+  public static final float DEFAULT_TOUCH_SLOP = 16;
+  public static final float DEFAULT_MULTI_TAP_SLOP = 100;
+
+  private final int tapCount;
+  private final int pointerCount;
+  private long pressTimeout = DEFAULT_PRESS_TIMEOUT;
+  private long multiTapTimeout = DEFAULT_MULTI_TAP_TIMEOUT;
+  private float touchSlop = DEFAULT_TOUCH_SLOP;
+  private float multiTapSlop = DEFAULT_MULTI_TAP_SLOP;
+
+  private int taps;
+  private int maxPointers;
+  private float startFocusX;
+  private float startFocusY;
+  private float tapX;
+  private float tapY;
+  private long tapUpTime;
+
+  public TapRecognizer(int tapCount, int pointerCount) {
+    this.tapCount = tapCount;
+    this.pointerCount = pointerCount;
+  }
+
+  public static TapRecognizer newInstance(int tapCount, int pointerCount) {
+    return new TapRecognizer(tapCount, pointerCount);
+  }
+
+  public int getTapCount() {
+    return tapCount;
+  }
+
+  public int getPointerCount() {
+    return pointerCount;
+  }
+
+  /**
+   * @param pressTimeout longest press, in milliseconds, still counting as a tap
+   */
+  public void setPressTimeout(long pressTimeout) {
+    this.pressTimeout = pressTimeout;
+  }
+
+  /**
+   * @param multiTapTimeout longest time, in milliseconds, between a release and the next tap
+   */
+  public void setMultiTapTimeout(long multiTapTimeout) {
+    this.multiTapTimeout = multiTapTimeout;
+  }
+
+  /**
+   * @param touchSlop distance in pixels the pointers may move during a tap
+   */
+  public void setTouchSlop(float touchSlop) {
+    this.touchSlop = touchSlop;
+  }
+
+  /**
+   * @param multiTapSlop distance in pixels between consecutive taps
+   */
+  public void setMultiTapSlop(float multiTapSlop) {
+    this.multiTapSlop = multiTapSlop;
+  }
+
+  /**
+   * @return focus of the last tap
+   */
+  public float getX() {
+    return tapX;
+  }
+
+  public float getY() {
+    return tapY;
+  }
+
+  @Override
+  public boolean canRecognizeWith(GestureRecognizer other) {
+    return other instanceof TapRecognizer;
+  }
+
+  @Override
+  protected void onTouchEvent(PointerSnapshot snapshot) {
+    switch (snapshot.getAction()) {
+      case MotionEvent.ACTION_DOWN:
+        if (taps > 0 && (snapshot.getEventTime() - tapUpTime > multiTapTimeout
+            || Math.hypot(snapshot.getFocusX() - tapX, snapshot.getFocusY() - tapY)
+            > multiTapSlop)) {
+          taps = 0;
+        }
+        maxPointers = 1;
+        startFocusX = snapshot.getFocusX();
+        startFocusY = snapshot.getFocusY();
+        break;
+      case MotionEvent.ACTION_POINTER_DOWN:
+        maxPointers = Math.max(maxPointers, snapshot.getPointerCount());
+        if (maxPointers > pointerCount) {
+          miss();
+          return;
+        }
+        // the focus moves with every pointer going down
+        startFocusX = snapshot.getFocusX();
+        startFocusY = snapshot.getFocusY();
+        break;
+      case MotionEvent.ACTION_MOVE:
+        if (snapshot.getPointerCount() == maxPointers && Math.hypot(
+            snapshot.getFocusX() - startFocusX, snapshot.getFocusY() - startFocusY)
+            > touchSlop) {
+          miss();
+        }
+        break;
+      case MotionEvent.ACTION_UP:
+        if (maxPointers != pointerCount
+            || snapshot.getEventTime() - snapshot.getDownTime() > pressTimeout) {
+          miss();
+          return;
+        }
+        taps++;
+        tapX = startFocusX;
+        tapY = startFocusY;
+        tapUpTime = snapshot.getEventTime();
+        if (taps == tapCount) {
+          taps = 0;
+          recognize();
+        }
+        break;
+      case MotionEvent.ACTION_CANCEL:
+        miss();
+        break;
+      default:
+    }
+  }
+
+  private void miss() {
+    taps = 0;
+    fail();
+  }
+}
@@ -0,0 +1,254 @@
+package com.xperfect.cn.helper.photo.lib.gestures;
+
+import android.view.MotionEvent;
+import android.view.MotionEvent.PointerCoords;
+import android.view.MotionEvent.PointerProperties;
+
+/**
+ * Merges the touch streams of several views into one, as if all pointers were down on a single
+ * view.
+ * <p>
+ * View groups split motion events between their children, so one finger on each of two views
+ * arrives as two streams, each starting with its own {@link MotionEvent#ACTION_DOWN}. Fed to one
+ * detector, the second down would reset the gesture of the first. The merger gives every pointer
+ * of every stream an id of its own and turns the downs and ups of a stream into {@link
+ * MotionEvent#ACTION_POINTER_DOWN} and {@link MotionEvent#ACTION_POINTER_UP} while other pointers
+ * are down. A cancelled stream lifts its pointers, the merged stream is only cancelled when no
+ * other pointer is left.
+ * <p>
+ * Events must already be in the coordinates of the merged stream. Historical samples are kept for
+ * the pointers of the stream that moved, the other pointers repeat their last position.
+ */
+public class TouchStreamMerger {
+
+  public static final int MAX_POINTERS = 10;
+
+  public interface Listener {
+
+    /**
+     * @param event merged event, recycled on return
+     */
+    void onMergedEvent(MotionEvent event);
+  }
+
+  private final int[] streams = new int[MAX_POINTERS];
+  private final int[] sourceIds = new int[MAX_POINTERS];
+  private final PointerProperties[] properties = new PointerProperties[MAX_POINTERS];
+  private final PointerCoords[] coords = new PointerCoords[MAX_POINTERS];
+  private int count;
+  private long downTime;
+  private Listener listener;
+
+  public TouchStreamMerger() {
+    for (int i = 0; i < MAX_POINTERS; i++) {
+      properties[i] = new PointerProperties();
+      properties[i].toolType = MotionEvent.TOOL_TYPE_FINGER;
+      coords[i] = new PointerCoords();
+    }
+  }
+
+  public static TouchStreamMerger newInstance() {
+    return new TouchStreamMerger();
+  }
+
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * @return number of pointers down in the merged stream
+   */
+  public int getPointerCount() {
+    return count;
+  }
+
+  /**
+   * @param stream identifies the view the event was delivered to
+   */
+  public void onTouchEvent(int stream, MotionEvent event) {
+    long eventTime = event.getEventTime();
+    switch (event.getActionMasked()) {
+      case MotionEvent.ACTION_DOWN:
+        // the stream starts over, whatever is left of it is stale
+        cancelStream(stream, eventTime);
+        // fall through
+      case MotionEvent.ACTION_POINTER_DOWN: {
+        if (count == MAX_POINTERS) {
+          return;
+        }
+        updatePositions(stream, event);
+        int index = event.getActionIndex();
+        int slot = add(stream, event.getPointerId(index), event.getX(index), event.getY(index));
+        if (count == 1) {
+          downTime = eventTime;
+          dispatch(MotionEvent.ACTION_DOWN, slot, eventTime);
+        } else {
+          dispatch(MotionEvent.ACTION_POINTER_DOWN, slot, eventTime);
+        }
+        break;
+      }
+      case MotionEvent.ACTION_MOVE:
+        dispatchMove(stream, event);
+        break;
+      case MotionEvent.ACTION_POINTER_UP:
+      case MotionEvent.ACTION_UP: {
+        updatePositions(stream, event);
+        int slot = slotOf(stream, event.getPointerId(event.getActionIndex()));
+        if (slot >= 0) {
+          lift(slot, eventTime);
+        }
+        break;
+      }
+      case MotionEvent.ACTION_CANCEL:
+        cancelStream(stream, eventTime);
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Lifts the pointers of a stream that will not deliver any more events, e.g. of a removed view.
+   */
+  public void cancelStream(int stream, long eventTime) {
+    boolean others = false;
+    boolean own = false;
+    for (int slot = 0; slot < count; slot++) {
+      if (streams[slot] == stream) {
+        own = true;
+      } else {
+        others = true;
+      }
+    }
+    if (!own) {
+      return;
+    }
+    if (!others) {
+      dispatch(MotionEvent.ACTION_CANCEL, 0, eventTime);
+      count = 0;
+      return;
+    }
+    for (int slot = count - 1; slot >= 0; slot--) {
+      if (streams[slot] == stream) {
+        lift(slot, eventTime);
+      }
+    }
+  }
+
+  private void lift(int slot, long eventTime) {
+    dispatch(count == 1 ? MotionEvent.ACTION_UP : MotionEvent.ACTION_POINTER_UP, slot, eventTime);
+    remove(slot);
+  }
+
+  private void dispatchMove(int stream, MotionEvent event) {
+    if (!hasStream(stream)) {
+      return;
+    }
+    int historySize = event.getHistorySize();
+    MotionEvent merged = null;
+    for (int h = 0; h <= historySize; h++) {
+      long sampleTime = h < historySize ? event.getHistoricalEventTime(h) : event.getEventTime();
+      for (int p = 0; p < event.getPointerCount(); p++) {
+        int slot = slotOf(stream, event.getPointerId(p));
+        if (slot >= 0) {
+          coords[slot].x = h < historySize ? event.getHistoricalX(p, h) : event.getX(p);
+          coords[slot].y = h < historySize ? event.getHistoricalY(p, h) : event.getY(p);
+        }
+      }
+      if (merged == null) {
+        merged = obtain(MotionEvent.ACTION_MOVE, sampleTime);
+      } else {
+        merged.addBatch(sampleTime, coords, 0);
+      }
+    }
+    deliver(merged);
+  }
+
+  private void updatePositions(int stream, MotionEvent event) {
+    for (int p = 0; p < event.getPointerCount(); p++) {
+      int slot = slotOf(stream, event.getPointerId(p));
+      if (slot >= 0) {
+        coords[slot].x = event.getX(p);
+        coords[slot].y = event.getY(p);
+      }
+    }
+  }
+
+  private void dispatch(int action, int slot, long eventTime) {
+    deliver(obtain(action | (slot << MotionEvent.ACTION_POINTER_INDEX_SHIFT), eventTime));
+  }
+
+  private MotionEvent obtain(int action, long eventTime) {
+    return MotionEvent.obtain(downTime, eventTime, action, count, properties, coords, 0, 0, 1, 1,
+        0, 0, 0, 0);
+  }
+
+  private void deliver(MotionEvent event) {
+    if (listener != null) {
+      listener.onMergedEvent(event);
+    }
+    event.recycle();
+  }
+
+  private boolean hasStream(int stream) {
+    for (int slot = 0; slot < count; slot++) {
+      if (streams[slot] == stream) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int slotOf(int stream, int sourceId) {
+    for (int slot = 0; slot < count; slot++) {
+      if (streams[slot] == stream && sourceIds[slot] == sourceId) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Appends the pointer with the lowest id not in use.
+   */
+  private int add(int stream, int sourceId, float x, float y) {
+    int id = 0;
+    while (isIdUsed(id)) {
+      id++;
+    }
+    int slot = count++;
+    streams[slot] = stream;
+    sourceIds[slot] = sourceId;
+    properties[slot].id = id;
+    coords[slot].clear();
+    coords[slot].x = x;
+    coords[slot].y = y;
+    coords[slot].pressure = 1;
+    coords[slot].size = 1;
+    return slot;
+  }
+
+  private boolean isIdUsed(int id) {
+    for (int slot = 0; slot < count; slot++) {
+      if (properties[slot].id == id) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void remove(int slot) {
+    // keeps the order of the remaining pointers, the freed objects move to the end
+    PointerProperties removedProperties = properties[slot];
+    PointerCoords removedCoords = coords[slot];
+    for (int i = slot; i < count - 1; i++) {
+      streams[i] = streams[i + 1];
+      sourceIds[i] = sourceIds[i + 1];
+      properties[i] = properties[i + 1];
+      coords[i] = coords[i + 1];
+    }
+    count--;
+    properties[count] = removedProperties;
+    coords[count] = removedCoords;
+  }
+}
@@ -0,0 +1,78 @@
+package com.xperfect.cn.helper.photo.lib.overlay;
+
+/**
+ * Uniform grid over the relative [0..1] square. Item indices are stored cell by cell in one
+ * array, so a query touches only the cells overlapping the query rectangle.
+ */
+class GridIndex {
+
+  private final int cellsPerSide;
+  private final int[] cellStart;
+  private int[] cellItems = new int[0];
+  private int[] cellCursor;
+
+  GridIndex(int cellsPerSide) {
+    this.cellsPerSide = cellsPerSide;
+    this.cellStart = new int[cellsPerSide * cellsPerSide + 1];
+    this.cellCursor = new int[cellsPerSide * cellsPerSide];
+  }
+
+  void build(float[] xs, float[] ys, int count) {
+    int cells = cellsPerSide * cellsPerSide;
+    if (cellItems.length < count) {
+      cellItems = new int[count];
+    }
+    for (int i = 0; i <= cells; i++) {
+      cellStart[i] = 0;
+    }
+    for (int i = 0; i < count; i++) {
+      cellStart[cellOf(xs[i], ys[i]) + 1]++;
+    }
+    for (int i = 0; i < cells; i++) {
+      cellStart[i + 1] += cellStart[i];
+      cellCursor[i] = cellStart[i];
+    }
+    for (int i = 0; i < count; i++) {
+      cellItems[cellCursor[cellOf(xs[i], ys[i])]++] = i;
+    }
+  }
+
+  /**
+   * Writes the indices of the items inside the given rectangle into {@code out}.
+   *
+   * @return number of indices written, or -1 if {@code out} is too small
+   */
+  int query(float[] xs, float[] ys, float left, float top, float right, float bottom, int[] out) {
+    int firstColumn = cell(left);
+    int lastColumn = cell(right);
+    int firstRow = cell(top);
+    int lastRow = cell(bottom);
+    int count = 0;
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        int cell = row * cellsPerSide + column;
+        for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+          int item = cellItems[i];
+          float x = xs[item];
+          float y = ys[item];
+          if (x >= left && x <= right && y >= top && y <= bottom) {
+            if (count == out.length) {
+              return -1;
+            }
+            out[count++] = item;
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  private int cellOf(float x, float y) {
+    return cell(y) * cellsPerSide + cell(x);
+  }
+
+  private int cell(float value) {
+    int cell = (int) (value * cellsPerSide);
+    return cell < 0 ? 0 : (cell >= cellsPerSide ? cellsPerSide - 1 : cell);
+  }
+}
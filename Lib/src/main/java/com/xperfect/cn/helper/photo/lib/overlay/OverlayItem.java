@@ -0,0 +1,37 @@
+package com.xperfect.cn.helper.photo.lib.overlay;
+
+/**
+ * A marker anchored to the photo, in the object's relative coordinate system where [0, 0] is the
+ * top left and [1, 1] the bottom right corner of the image.
+ */
+public class OverlayItem {
+
+  private final float x;
+  private final float y;
+  private Object tag;
+
+  public OverlayItem(float x, float y) {
+    this.x = x;
+    this.y = y;
+  }
+
+  public static OverlayItem newInstance(float x, float y) {
+    return new OverlayItem(x, y);
+  }
+
+  public float getX() {
+    return x;
+  }
+
+  public float getY() {
+    return y;
+  }
+
+  public Object getTag() {
+    return tag;
+  }
+
+  public void setTag(Object tag) {
+    this.tag = tag;
+  }
+}
@@ -0,0 +1,167 @@
+package com.xperfect.cn.helper.photo.lib.overlay;
+
+import android.graphics.Canvas;
+import android.graphics.RectF;
+import com.xperfect.cn.helper.photo.lib.DefaultTransformHelper;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Markers that follow the photo transform. Items are kept in a grid spatial index in the object's
+ * relative coordinates; each update culls them against the visible rectangle and maps only the
+ * visible ones to view coordinates, so drawing cost tracks what is on screen rather than the total
+ * number of markers.
+ */
+public class OverlayLayer {
+
+  public static final int DEFAULT_GRID_SIZE = 32;
+
+  public interface Renderer {
+
+    /**
+     * Draws one visible item, centered on the given view coordinates.
+     */
+    void draw(Canvas canvas, OverlayItem item, float viewX, float viewY);
+  }
+
+  private final List<OverlayItem> items = new ArrayList<>();
+  private final GridIndex index;
+  private final float[] viewCorners = new float[8];
+
+  private Renderer renderer;
+  private float cullMargin;
+  private boolean indexDirty = true;
+  private boolean cullDirty = true;
+  private int updatedVersion;
+  private float[] xs = new float[0];
+  private float[] ys = new float[0];
+  private int[] visible = new int[0];
+  private int visibleCount;
+  private float[] visiblePoints = new float[0];
+
+  public OverlayLayer() {
+    this(DEFAULT_GRID_SIZE);
+  }
+
+  /**
+   * @param gridSize number of index cells along each side of the image
+   */
+  public OverlayLayer(int gridSize) {
+    index = new GridIndex(gridSize);
+  }
+
+  public static OverlayLayer newInstance() {
+    return new OverlayLayer();
+  }
+
+  public void setRenderer(Renderer renderer) {
+    this.renderer = renderer;
+  }
+
+  /**
+   * @param cullMargin distance in view pixels by which items may lie outside the view and still
+   * be drawn, typically the marker radius
+   */
+  public void setCullMargin(float cullMargin) {
+    this.cullMargin = cullMargin;
+    cullDirty = true;
+  }
+
+  /**
+   * Forces the next {@link #update} to cull again, e.g. after the view bounds changed.
+   */
+  public void invalidate() {
+    cullDirty = true;
+  }
+
+  public void addItem(OverlayItem item) {
+    items.add(item);
+    indexDirty = true;
+  }
+
+  public void removeItem(OverlayItem item) {
+    if (items.remove(item)) {
+      indexDirty = true;
+    }
+  }
+
+  public void clear() {
+    items.clear();
+    indexDirty = true;
+  }
+
+  public int getItemCount() {
+    return items.size();
+  }
+
+  public int getVisibleCount() {
+    return visibleCount;
+  }
+
+  /**
+   * Culls the items against the view bounds. Does nothing unless the transform or the items
+   * changed since the last call.
+   */
+  public void update(DefaultTransformHelper helper, RectF viewBounds) {
+    if (indexDirty) {
+      rebuildIndex();
+    } else if (!cullDirty && updatedVersion == helper.getTransformVersion()) {
+      return;
+    }
+    cullDirty = false;
+    updatedVersion = helper.getTransformVersion();
+
+    float[] corners = viewCorners;
+    corners[0] = corners[6] = viewBounds.left - cullMargin;
+    corners[1] = corners[3] = viewBounds.top - cullMargin;
+    corners[2] = corners[4] = viewBounds.right + cullMargin;
+    corners[5] = corners[7] = viewBounds.bottom + cullMargin;
+    helper.mapViewToObject(corners, corners, 4);
+    float left = Math.min(Math.min(corners[0], corners[2]), Math.min(corners[4], corners[6]));
+    float right = Math.max(Math.max(corners[0], corners[2]), Math.max(corners[4], corners[6]));
+    float top = Math.min(Math.min(corners[1], corners[3]), Math.min(corners[5], corners[7]));
+    float bottom = Math.max(Math.max(corners[1], corners[3]), Math.max(corners[5], corners[7]));
+
+    visibleCount = index.query(xs, ys, left, top, right, bottom, visible);
+    if (visibleCount < 0) {
+      visible = new int[items.size()];
+      visibleCount = index.query(xs, ys, left, top, right, bottom, visible);
+    }
+    if (visiblePoints.length < visibleCount * 2) {
+      visiblePoints = new float[items.size() * 2];
+    }
+    for (int i = 0; i < visibleCount; i++) {
+      visiblePoints[i * 2] = xs[visible[i]];
+      visiblePoints[i * 2 + 1] = ys[visible[i]];
+    }
+    helper.mapObjectToView(visiblePoints, visiblePoints, visibleCount);
+  }
+
+  /**
+   * Draws the items found visible by the last {@link #update}, in view coordinates.
+   */
+  public void draw(Canvas canvas) {
+    if (renderer == null) {
+      return;
+    }
+    for (int i = 0; i < visibleCount; i++) {
+      renderer.draw(canvas, items.get(visible[i]), visiblePoints[i * 2], visiblePoints[i * 2 + 1]);
+    }
+  }
+
+  private void rebuildIndex() {
+    int count = items.size();
+    if (xs.length < count) {
+      xs = new float[count];
+      ys = new float[count];
+    }
+    for (int i = 0; i < count; i++) {
+      OverlayItem item = items.get(i);
+      xs[i] = item.getX();
+      ys[i] = item.getY();
+    }
+    index.build(xs, ys, count);
+    visibleCount = 0;
+    indexDirty = false;
+  }
+}
@@ -0,0 +1,376 @@
+package com.xperfect.cn.helper.photo.lib.pipeline;
+
+import android.content.Context;
+import android.graphics.Matrix;
+import android.graphics.RectF;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.view.MotionEvent;
+import android.view.MotionEvent.PointerCoords;
+import android.view.MotionEvent.PointerProperties;
+import com.xperfect.cn.helper.photo.lib.AffineMatrix;
+import com.xperfect.cn.helper.photo.lib.DefaultTransformHelper;
+import com.xperfect.cn.helper.photo.lib.FlingAnimator;
+import com.xperfect.cn.helper.photo.lib.gestures.DefaultGestureDetector;
+import com.xperfect.cn.helper.photo.lib.gestures.QuickScaleRecognizer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs gesture detection, transform and clamping of a {@link DefaultTransformHelper} on an input
+ * thread, so that a busy UI thread neither delays nor drops gesture updates. All pipelines share
+ * one input thread, started with the first of them and stopped once the last one quits; each keeps
+ * its own ring and helper.
+ * <p>
+ * The UI thread {@link #offer(MotionEvent) offers} touch events, which are copied into a {@link
+ * PointerSnapshotRing} without allocating. The input thread drains the ring, rebuilds the events,
+ * historical samples included, and feeds them to a helper it owns; flings and zoom animations run
+ * on its own frame clock. Every new transform is published through a {@link TransformBuffer},
+ * which {@link #getTransform(AffineMatrix)} reads from the UI thread without locking.
+ * <p>
+ * Bounds and transform changes coming from the UI thread are posted to the input thread, in
+ * order with the touch events offered before them. A transform set from the UI thread cancels
+ * the running fling or zoom animation, and transforms published before it was applied are not
+ * returned.
+ * <p>
+ * The helper of the input thread mirrors a helper of the UI thread: {@link
+ * #copySettings(DefaultTransformHelper)} takes over its settings, typically at the start of every
+ * gesture. Only helpers passing {@link #canMirror(DefaultTransformHelper)} can be mirrored.
+ */
+public class BackgroundTransformPipeline implements DefaultTransformHelper.Listener {
+
+  public static final int DEFAULT_RING_CAPACITY = 512;
+
+  public interface Listener {
+
+    /**
+     * Called on the input thread when a new transform was published, at most once until the next
+     * {@link #getTransform(AffineMatrix)}. Typically posts a redraw to the UI thread.
+     */
+    void onTransformPublished();
+  }
+
+  private static final Object THREAD_LOCK = new Object();
+  private static HandlerThread sharedThread;
+  private static int sharedThreadUsers;
+
+  private final Handler handler;
+  private final DefaultTransformHelper helper = DefaultTransformHelper.newInstance();
+  private final PointerSnapshotRing ring;
+  private final TransformBuffer buffer = TransformBuffer.newInstance();
+  private final AtomicBoolean drainScheduled = new AtomicBoolean();
+  private final AtomicBoolean publishPending = new AtomicBoolean();
+  private final AtomicInteger pendingTransforms = new AtomicInteger();
+
+  // input thread only
+  private final AffineMatrix publishTransform = AffineMatrix.newInstance();
+  private final PointerProperties[] pointerProperties =
+      new PointerProperties[PointerSnapshotRing.MAX_POINTERS];
+  private final PointerCoords[] pointerCoords =
+      new PointerCoords[PointerSnapshotRing.MAX_POINTERS];
+  private long downTime;
+
+  private volatile Listener listener;
+  private volatile boolean quit;
+
+  private final Runnable drainRunnable = new Runnable() {
+    @Override
+    public void run() {
+      drain();
+    }
+  };
+
+  public BackgroundTransformPipeline(Context context, int ringCapacity) {
+    ring = PointerSnapshotRing.newInstance(ringCapacity);
+    for (int i = 0; i < PointerSnapshotRing.MAX_POINTERS; i++) {
+      pointerProperties[i] = new PointerProperties();
+      pointerCoords[i] = new PointerCoords();
+    }
+    helper.setFlingAnimator(FlingAnimator.newInstance(context));
+    helper.setListener(this);
+    handler = new Handler(acquireLooper());
+  }
+
+  public static BackgroundTransformPipeline newInstance(Context context) {
+    return new BackgroundTransformPipeline(context, DEFAULT_RING_CAPACITY);
+  }
+
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * @return the helper driven on the input thread; only touch it from {@link #post(Runnable)},
+   * settings copied with {@link #copySettings(DefaultTransformHelper)} overwrite its own
+   */
+  public DefaultTransformHelper getHelper() {
+    return helper;
+  }
+
+  /**
+   * Runs {@code runnable} on the input thread, after the events offered so far.
+   */
+  public void post(Runnable runnable) {
+    if (!quit) {
+      scheduleDrain();
+      handler.post(runnable);
+    }
+  }
+
+  /**
+   * UI thread: queues {@code event} for the input thread. The event may be recycled on return.
+   */
+  public void offer(MotionEvent event) {
+    if (quit) {
+      return;
+    }
+    ring.offer(event);
+    scheduleDrain();
+  }
+
+  public void setBounds(RectF objectBounds, RectF viewBounds) {
+    final RectF object = new RectF(objectBounds);
+    final RectF view = new RectF(viewBounds);
+    post(new Runnable() {
+      @Override
+      public void run() {
+        helper.setObjectBounds(object);
+        helper.setViewBounds(view);
+        helper.setEnabled(!object.isEmpty() && !view.isEmpty());
+      }
+    });
+  }
+
+  /**
+   * @return whether the input thread can stand in for {@code helper}. A gesture recorder, gesture
+   * metrics and recognizers added besides quick scale call back on the thread driving the helper,
+   * gestures of such a helper must stay on the UI thread.
+   */
+  public static boolean canMirror(DefaultTransformHelper helper) {
+    int quickScale = helper.isQuickScaleEnabled() ? 1 : 0;
+    return helper.getGestureRecorder() == null && helper.getGestureMetrics() == null
+        && helper.getRecognizers().size() == quickScale;
+  }
+
+  /**
+   * UI thread: copies the settings of {@code source} to the helper of the input thread, in order
+   * with the events offered before: enabled transforms, maximum scale, touch slop, click timeout,
+   * history mode, zoom duration and quick scale.
+   */
+  public void copySettings(DefaultTransformHelper source) {
+    final Settings settings = Settings.of(source);
+    post(new Runnable() {
+      @Override
+      public void run() {
+        settings.applyTo(helper);
+      }
+    });
+  }
+
+  /**
+   * UI thread: replaces the transform of the input thread, stopping its animations.
+   */
+  public void setTransform(AffineMatrix transform) {
+    if (quit) {
+      return;
+    }
+    final AffineMatrix copy = AffineMatrix.newInstance();
+    copy.set(transform);
+    pendingTransforms.incrementAndGet();
+    post(new Runnable() {
+      @Override
+      public void run() {
+        // published first, so that once the count drops the buffer holds this transform or a
+        // newer one
+        helper.setTransform(copy);
+        pendingTransforms.decrementAndGet();
+      }
+    });
+  }
+
+  /**
+   * UI thread: copies the newest published transform into {@code outTransform}.
+   *
+   * @return whether it changed since the last call; false while a transform set with {@link
+   * #setTransform(AffineMatrix)} is not applied yet, what was published is outdated then
+   */
+  public boolean getTransform(AffineMatrix outTransform) {
+    publishPending.set(false);
+    if (pendingTransforms.get() > 0) {
+      return false;
+    }
+    return buffer.read(outTransform);
+  }
+
+  /**
+   * Stops taking events and releases the input thread once the work already queued is done. The
+   * thread itself stops with the last pipeline.
+   */
+  public void quit() {
+    if (quit) {
+      return;
+    }
+    quit = true;
+    listener = null;
+    handler.post(new Runnable() {
+      @Override
+      public void run() {
+        // the looper outlives this pipeline, its animations must not
+        helper.setListener(null);
+        helper.setEnabled(false);
+        releaseLooper();
+      }
+    });
+  }
+
+  private static Looper acquireLooper() {
+    synchronized (THREAD_LOCK) {
+      if (sharedThread == null) {
+        sharedThread = new HandlerThread("PhotoInput", Process.THREAD_PRIORITY_DISPLAY);
+        sharedThread.start();
+      }
+      sharedThreadUsers++;
+      return sharedThread.getLooper();
+    }
+  }
+
+  private static void releaseLooper() {
+    synchronized (THREAD_LOCK) {
+      if (--sharedThreadUsers == 0) {
+        sharedThread.quitSafely();
+        sharedThread = null;
+      }
+    }
+  }
+
+  @Override
+  public void onTransformed(Matrix transform) {
+    // input thread
+    helper.getTransform(publishTransform);
+    buffer.publish(publishTransform);
+    Listener listener = this.listener;
+    if (listener != null && publishPending.compareAndSet(false, true)) {
+      listener.onTransformPublished();
+    }
+  }
+
+  private void scheduleDrain() {
+    if (drainScheduled.compareAndSet(false, true)) {
+      handler.post(drainRunnable);
+    }
+  }
+
+  private void drain() {
+    // cleared first, so that events offered while draining schedule another pass
+    drainScheduled.set(false);
+    long position = ring.getReadPosition();
+    long end = ring.getWritePosition();
+    while (position < end) {
+      long last = position;
+      while (last < end - 1 && ring.isBatched(last)) {
+        last++;
+      }
+      dispatch(position, last);
+      position = last + 1;
+      ring.release(position);
+    }
+  }
+
+  private void dispatch(long first, long last) {
+    int pointerCount = ring.getPointerCount(last);
+    int action = ring.getAction(last);
+    if (action == MotionEvent.ACTION_DOWN) {
+      downTime = ring.getEventTime(last);
+    }
+    int fullAction = action
+        | (ring.getActionIndex(last) << MotionEvent.ACTION_POINTER_INDEX_SHIFT);
+    for (int p = 0; p < pointerCount; p++) {
+      pointerProperties[p].clear();
+      pointerProperties[p].id = ring.getPointerId(last, p);
+      pointerProperties[p].toolType = MotionEvent.TOOL_TYPE_FINGER;
+    }
+    setCoords(first, pointerCount);
+    MotionEvent event = MotionEvent.obtain(downTime, ring.getEventTime(first), fullAction,
+        pointerCount, pointerProperties, pointerCoords, 0, 0, 1, 1, 0, 0, 0, 0);
+    for (long i = first + 1; i <= last; i++) {
+      setCoords(i, pointerCount);
+      event.addBatch(ring.getEventTime(i), pointerCoords, 0);
+    }
+    helper.onTouchEvent(event);
+    event.recycle();
+  }
+
+  private void setCoords(long position, int pointerCount) {
+    for (int p = 0; p < pointerCount; p++) {
+      pointerCoords[p].clear();
+      pointerCoords[p].x = ring.getX(position, p);
+      pointerCoords[p].y = ring.getY(position, p);
+      pointerCoords[p].pressure = 1;
+      pointerCoords[p].size = 1;
+    }
+  }
+
+  /**
+   * Settings of a helper, read on one thread and applied on another.
+   */
+  private static class Settings {
+
+    boolean rotationEnabled;
+    boolean scaleEnabled;
+    boolean translationEnabled;
+    float maxScaleFactor;
+    float touchSlop;
+    long clickTimeout;
+    int historyMode;
+    long zoomDuration;
+    boolean quickScaleEnabled;
+    long pressTimeout;
+    float quickScaleTouchSlop;
+    float multiTapSlop;
+    float scaleDistance;
+
+    static Settings of(DefaultTransformHelper helper) {
+      Settings settings = new Settings();
+      settings.rotationEnabled = helper.isRotationEnabled();
+      settings.scaleEnabled = helper.isScaleEnabled();
+      settings.translationEnabled = helper.isTranslationEnabled();
+      settings.maxScaleFactor = helper.getMaxScaleFactor();
+      DefaultGestureDetector detector = helper.getGestureDetector();
+      settings.touchSlop = detector.getTouchSlop();
+      settings.clickTimeout = detector.getClickTimeout();
+      settings.historyMode = detector.getHistoryMode();
+      settings.zoomDuration = helper.getZoomAnimator().getDuration();
+      QuickScaleRecognizer quickScale = helper.getQuickScaleRecognizer();
+      settings.quickScaleEnabled = quickScale != null;
+      if (quickScale != null) {
+        settings.pressTimeout = quickScale.getPressTimeout();
+        settings.quickScaleTouchSlop = quickScale.getTouchSlop();
+        settings.multiTapSlop = quickScale.getMultiTapSlop();
+        settings.scaleDistance = quickScale.getScaleDistance();
+      }
+      return settings;
+    }
+
+    void applyTo(DefaultTransformHelper helper) {
+      helper.setRotationEnabled(rotationEnabled);
+      helper.setScaleEnabled(scaleEnabled);
+      helper.setTranslationEnabled(translationEnabled);
+      helper.setMaxScaleFactor(maxScaleFactor);
+      DefaultGestureDetector detector = helper.getGestureDetector();
+      detector.setTouchSlop(touchSlop);
+      detector.setClickTimeout(clickTimeout);
+      detector.setHistoryMode(historyMode);
+      helper.getZoomAnimator().setDuration(zoomDuration);
+      helper.setQuickScaleEnabled(quickScaleEnabled);
+      QuickScaleRecognizer quickScale = helper.getQuickScaleRecognizer();
+      if (quickScale != null) {
+        quickScale.setPressTimeout(pressTimeout);
+        quickScale.setTouchSlop(quickScaleTouchSlop);
+        quickScale.setMultiTapSlop(multiTapSlop);
+        quickScale.setScaleDistance(scaleDistance);
+      }
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package com.xperfect.cn.helper.photo.lib.pipeline;
+
+import android.view.MotionEvent;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-producer/single-consumer ring of pointer snapshots, one slot per sample, in preallocated
+ * primitive arrays. The UI thread offers every touch event, historical samples flagged as {@link
+ * #FLAG_BATCHED}; the input thread reads the slots between {@link #getReadPosition()} and {@link
+ * #getWritePosition()} and releases them.
+ * <p>
+ * Positions only grow; each side publishes its own with a lazy set and reads the other's
+ * volatile, so no lock is taken. A full ring drops move events, whose absolute positions are
+ * superseded by the next one anyway, while the producer waits for room for any other action.
+ */
+public class PointerSnapshotRing {
+
+  public static final int MAX_POINTERS = 10;
+  public static final int FLAG_BATCHED = 1;
+
+  private final int capacity;
+  private final int mask;
+  private final int[] actions;
+  private final int[] actionIndices;
+  private final int[] flags;
+  private final int[] pointerCounts;
+  private final long[] eventTimes;
+  private final int[] pointerIds;
+  private final float[] x;
+  private final float[] y;
+
+  private final AtomicLong readPosition = new AtomicLong();
+  private final AtomicLong writePosition = new AtomicLong();
+  private long droppedSamples;
+
+  /**
+   * @param capacity number of samples, rounded up to a power of two
+   */
+  public PointerSnapshotRing(int capacity) {
+    int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+    this.capacity = size;
+    this.mask = size - 1;
+    actions = new int[size];
+    actionIndices = new int[size];
+    flags = new int[size];
+    pointerCounts = new int[size];
+    eventTimes = new long[size];
+    pointerIds = new int[size * MAX_POINTERS];
+    x = new float[size * MAX_POINTERS];
+    y = new float[size * MAX_POINTERS];
+  }
+
+  public static PointerSnapshotRing newInstance(int capacity) {
+    return new PointerSnapshotRing(capacity);
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Producer side.
+   *
+   * @return false if the event was a move dropped because the ring is full
+   */
+  public boolean offer(MotionEvent event) {
+    int action = event.getActionMasked();
+    int historySize = event.getHistorySize();
+    int samples = historySize + 1;
+    if (samples > capacity) {
+      // keep the current sample only
+      historySize = 0;
+      samples = 1;
+    }
+    long write = writePosition.get();
+    while (write + samples - readPosition.get() > capacity) {
+      if (action == MotionEvent.ACTION_MOVE) {
+        droppedSamples += samples;
+        return false;
+      }
+      Thread.yield();
+    }
+    int actionIndex = event.getActionIndex();
+    int pointerCount = Math.min(event.getPointerCount(), MAX_POINTERS);
+    for (int h = 0; h < historySize; h++) {
+      int slot = (int) (write++ & mask);
+      setHeader(slot, action, actionIndex, FLAG_BATCHED, pointerCount,
+          event.getHistoricalEventTime(h));
+      for (int p = 0; p < pointerCount; p++) {
+        int offset = slot * MAX_POINTERS + p;
+        pointerIds[offset] = event.getPointerId(p);
+        x[offset] = event.getHistoricalX(p, h);
+        y[offset] = event.getHistoricalY(p, h);
+      }
+    }
+    int slot = (int) (write++ & mask);
+    setHeader(slot, action, actionIndex, 0, pointerCount, event.getEventTime());
+    for (int p = 0; p < pointerCount; p++) {
+      int offset = slot * MAX_POINTERS + p;
+      pointerIds[offset] = event.getPointerId(p);
+      x[offset] = event.getX(p);
+      y[offset] = event.getY(p);
+    }
+    writePosition.lazySet(write);
+    return true;
+  }
+
+  private void setHeader(int slot, int action, int actionIndex, int sampleFlags,
+      int pointerCount, long eventTime) {
+    actions[slot] = action;
+    actionIndices[slot] = actionIndex;
+    flags[slot] = sampleFlags;
+    pointerCounts[slot] = pointerCount;
+    eventTimes[slot] = eventTime;
+  }
+
+  /**
+   * @return number of move samples dropped so far, read on the producer thread
+   */
+  public long getDroppedSamples() {
+    return droppedSamples;
+  }
+
+  /**
+   * Consumer side: position of the oldest unread sample.
+   */
+  public long getReadPosition() {
+    return readPosition.get();
+  }
+
+  /**
+   * Consumer side: position after the newest published sample.
+   */
+  public long getWritePosition() {
+    return writePosition.get();
+  }
+
+  /**
+   * Consumer side: hands the slots before {@code position} back to the producer.
+   */
+  public void release(long position) {
+    readPosition.lazySet(position);
+  }
+
+  public int getAction(long position) {
+    return actions[(int) (position & mask)];
+  }
+
+  public int getActionIndex(long position) {
+    return actionIndices[(int) (position & mask)];
+  }
+
+  public boolean isBatched(long position) {
+    return (flags[(int) (position & mask)] & FLAG_BATCHED) != 0;
+  }
+
+  public int getPointerCount(long position) {
+    return pointerCounts[(int) (position & mask)];
+  }
+
+  public long getEventTime(long position) {
+    return eventTimes[(int) (position & mask)];
+  }
+
+  public int getPointerId(long position, int pointerIndex) {
+    return pointerIds[(int) (position & mask) * MAX_POINTERS + pointerIndex];
+  }
+
+  public float getX(long position, int pointerIndex) {
+    return x[(int) (position & mask) * MAX_POINTERS + pointerIndex];
+  }
+
+  public float getY(long position, int pointerIndex) {
+    return y[(int) (position & mask) * MAX_POINTERS + pointerIndex];
+  }
+}
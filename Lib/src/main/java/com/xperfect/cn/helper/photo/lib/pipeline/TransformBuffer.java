@@ -0,0 +1,55 @@
+package com.xperfect.cn.helper.photo.lib.pipeline;
+
+import com.xperfect.cn.helper.photo.lib.AffineMatrix;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands the latest transform from one writer thread to one reader thread without locking. The
+ * writer fills a back buffer and swaps it with the shared middle one; the reader swaps the middle
+ * buffer with its front one when a newer transform was published. Neither side ever waits and the
+ * reader always sees a complete transform, the newest at the time of the swap.
+ */
+public class TransformBuffer {
+
+  private static final int INDEX_MASK = 3;
+  private static final int FRESH = 4;
+
+  private final float[][] buffers = new float[3][9];
+  private final AtomicInteger middle = new AtomicInteger(1);
+  private int back = 0;
+  private int front = 2;
+
+  public TransformBuffer() {
+    AffineMatrix identity = AffineMatrix.newInstance();
+    for (float[] buffer : buffers) {
+      identity.getValues(buffer);
+    }
+  }
+
+  public static TransformBuffer newInstance() {
+    return new TransformBuffer();
+  }
+
+  /**
+   * Writer side.
+   */
+  public void publish(AffineMatrix transform) {
+    transform.getValues(buffers[back]);
+    back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+  }
+
+  /**
+   * Reader side.
+   *
+   * @param outTransform receives the newest published transform
+   * @return whether a transform was published since the last read
+   */
+  public boolean read(AffineMatrix outTransform) {
+    boolean fresh = (middle.get() & FRESH) != 0;
+    if (fresh) {
+      front = middle.getAndSet(front) & INDEX_MASK;
+    }
+    outTransform.setValues(buffers[front]);
+    return fresh;
+  }
+}
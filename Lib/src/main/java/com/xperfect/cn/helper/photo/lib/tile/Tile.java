@@ -0,0 +1,63 @@
+package com.xperfect.cn.helper.photo.lib.tile;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+/**
+ * One cell of a pyramid level. Tiles are created once per level and reused for the lifetime of the
+ * source; only their bitmap comes and goes.
+ */
+class Tile implements Runnable {
+
+  interface Decoder {
+
+    void decode(Tile tile);
+  }
+
+  static final int STATE_EMPTY = 0;
+  static final int STATE_DECODING = 1;
+  static final int STATE_READY = 2;
+
+  final int level;
+  final int sampleSize;
+  /**
+   * Region of the source image covered by this tile, in source pixels.
+   */
+  final Rect imageRect = new Rect();
+
+  int state = STATE_EMPTY;
+  Bitmap bitmap;
+  /**
+   * Part of {@link #bitmap} holding decoded pixels, reused bitmaps may be larger than the region.
+   */
+  final Rect bitmapRect = new Rect();
+  /**
+   * Frame in which the tile was last found visible.
+   */
+  volatile int visibleFrame;
+  /**
+   * Bitmap produced by the decode thread, handed over to the main thread.
+   */
+  Bitmap decoded;
+
+  Tile previous;
+  Tile next;
+
+  private final Decoder decoder;
+
+  Tile(Decoder decoder, int level, int sampleSize, int left, int top, int right, int bottom) {
+    this.decoder = decoder;
+    this.level = level;
+    this.sampleSize = sampleSize;
+    this.imageRect.set(left, top, right, bottom);
+  }
+
+  @Override
+  public void run() {
+    decoder.decode(this);
+  }
+
+  int getByteCount() {
+    return bitmap == null ? 0 : bitmap.getAllocationByteCount();
+  }
+}
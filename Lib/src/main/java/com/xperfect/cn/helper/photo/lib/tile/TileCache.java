@@ -0,0 +1,154 @@
+package com.xperfect.cn.helper.photo.lib.tile;
+
+import android.graphics.Bitmap;
+import java.util.ArrayDeque;
+
+/**
+ * Least recently used set of decoded tiles bounded by a byte budget. The recency list is
+ * threaded through the tiles themselves, so touching a tile allocates nothing. Bitmaps of evicted
+ * tiles are kept in a small pool for {@code inBitmap} reuse.
+ */
+class TileCache {
+
+  private static final int MAX_POOL_SIZE = 4;
+
+  private final ArrayDeque<Bitmap> bitmapPool = new ArrayDeque<>(MAX_POOL_SIZE);
+  private final int bitmapSize;
+  private long maxBytes;
+  private long bytes;
+  /**
+   * Most recently used.
+   */
+  private Tile head;
+  /**
+   * Least recently used.
+   */
+  private Tile tail;
+
+  /**
+   * @param bitmapSize width and height of the tile bitmaps worth pooling
+   */
+  TileCache(int bitmapSize, long maxBytes) {
+    this.bitmapSize = bitmapSize;
+    this.maxBytes = maxBytes;
+  }
+
+  void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+    trimToSize(maxBytes);
+  }
+
+  long getMaxBytes() {
+    return maxBytes;
+  }
+
+  long getBytes() {
+    return bytes;
+  }
+
+  void put(Tile tile) {
+    unlink(tile);
+    bytes += tile.getByteCount();
+    linkFirst(tile);
+    trimToSize(maxBytes);
+  }
+
+  void touch(Tile tile) {
+    if (tile != head) {
+      unlink(tile);
+      bytes += tile.getByteCount();
+      linkFirst(tile);
+    }
+  }
+
+  /**
+   * Evicts least recently used tiles until at most {@code size} bytes remain.
+   */
+  void trimToSize(long size) {
+    while (bytes > size && tail != null) {
+      evict(tail);
+    }
+  }
+
+  /**
+   * Evicts all tiles that were not visible in the given frame.
+   */
+  void evictInvisible(int frame) {
+    Tile tile = tail;
+    while (tile != null) {
+      Tile previous = tile.previous;
+      if (tile.visibleFrame != frame) {
+        evict(tile);
+      }
+      tile = previous;
+    }
+  }
+
+  void evict(Tile tile) {
+    unlink(tile);
+    Bitmap bitmap = tile.bitmap;
+    tile.bitmap = null;
+    tile.state = Tile.STATE_EMPTY;
+    if (bitmap != null) {
+      recycle(bitmap);
+    }
+  }
+
+  void clear() {
+    trimToSize(0);
+    clearPool();
+  }
+
+  synchronized void clearPool() {
+    while (!bitmapPool.isEmpty()) {
+      bitmapPool.poll().recycle();
+    }
+  }
+
+  /**
+   * @return a pooled tile bitmap, or null
+   */
+  synchronized Bitmap obtainBitmap() {
+    return bitmapPool.poll();
+  }
+
+  synchronized void recycle(Bitmap bitmap) {
+    if (bitmapPool.size() < MAX_POOL_SIZE && bitmap.isMutable() && !bitmap.isRecycled()
+        && bitmap.getWidth() == bitmapSize && bitmap.getHeight() == bitmapSize) {
+      bitmapPool.offer(bitmap);
+    } else {
+      bitmap.recycle();
+    }
+  }
+
+  private void linkFirst(Tile tile) {
+    tile.previous = null;
+    tile.next = head;
+    if (head != null) {
+      head.previous = tile;
+    }
+    head = tile;
+    if (tail == null) {
+      tail = tile;
+    }
+  }
+
+  private void unlink(Tile tile) {
+    if (tile.previous == null && tile.next == null && head != tile) {
+      return;
+    }
+    if (tile.previous != null) {
+      tile.previous.next = tile.next;
+    } else {
+      head = tile.next;
+    }
+    if (tile.next != null) {
+      tile.next.previous = tile.previous;
+    } else {
+      tail = tile.previous;
+    }
+    tile.previous = null;
+    tile.next = null;
+    bytes -= tile.getByteCount();
+  }
+}
@@ -0,0 +1,472 @@
+package com.xperfect.cn.helper.photo.lib.tile;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Process;
+import android.util.Log;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Draws a huge image as a pyramid of tiles decoded with {@link BitmapRegionDecoder}.
+ * <p>
+ * Only the tiles intersecting the visible part of the image are decoded, at the power of two
+ * sample size matching the current zoom. Decoding runs on a shared background pool, decoded tiles
+ * live in a byte bounded LRU cache and evicted bitmaps are reused through {@code inBitmap}, so the
+ * heap used stays roughly constant whatever the size of the source. While a tile is decoding the
+ * coarser tiles already in the cache are drawn in its place, and only there.
+ * <p>
+ * All methods except the decoding itself must be called on the main thread.
+ */
+public class TiledImageRenderer implements Tile.Decoder, Handler.Callback {
+
+  public static final String TAG = TiledImageRenderer.class.getSimpleName();
+
+  public interface Callback {
+
+    /**
+     * Called on the main thread whenever the source is ready or a tile finished decoding.
+     */
+    void onTilesChanged(TiledImageRenderer renderer);
+  }
+
+  public static final int DEFAULT_TILE_SIZE = 512;
+  /**
+   * Coarser levels drawn underneath the wanted level while its tiles are decoding.
+   */
+  private static final int FALLBACK_LEVELS = 2;
+  /**
+   * Tiles not visible within this many frames are skipped by the decode thread.
+   */
+  private static final int STALE_FRAMES = 2;
+
+  private static final int MSG_SOURCE_READY = 1;
+  private static final int MSG_TILE_DECODED = 2;
+
+  private static ExecutorService sDecodeExecutor;
+
+  private final int tileSize;
+  private final TileCache cache;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper(), this);
+  private final ThreadLocal<BitmapFactory.Options> decodeOptions =
+      new ThreadLocal<BitmapFactory.Options>() {
+        @Override
+        protected BitmapFactory.Options initialValue() {
+          return new BitmapFactory.Options();
+        }
+      };
+
+  private final Matrix inverseTransform = new Matrix();
+  private final RectF visibleRect = new RectF();
+  private final RectF imageRect = new RectF();
+  private final RectF tileRect = new RectF();
+  private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+  private Callback callback;
+  private Bitmap.Config bitmapConfig = Bitmap.Config.ARGB_8888;
+  private volatile int generation;
+  private volatile int frame;
+  private volatile BitmapRegionDecoder decoder;
+  private int imageWidth;
+  private int imageHeight;
+  private Tile[][] levels;
+  private int[] levelColumns;
+  private int[] levelRows;
+
+  public TiledImageRenderer() {
+    this(DEFAULT_TILE_SIZE, Runtime.getRuntime().maxMemory() / 8);
+  }
+
+  /**
+   * @param tileSize edge of a tile bitmap, in pixels
+   * @param maxCacheBytes budget of the decoded tile cache
+   */
+  public TiledImageRenderer(int tileSize, long maxCacheBytes) {
+    this.tileSize = tileSize;
+    this.cache = new TileCache(tileSize, maxCacheBytes);
+  }
+
+  public static TiledImageRenderer newInstance() {
+    return new TiledImageRenderer();
+  }
+
+  public void setCallback(Callback callback) {
+    this.callback = callback;
+  }
+
+  public void setBitmapConfig(Bitmap.Config bitmapConfig) {
+    this.bitmapConfig = bitmapConfig;
+  }
+
+  public void setMaxCacheBytes(long maxCacheBytes) {
+    cache.setMaxBytes(maxCacheBytes);
+  }
+
+  public long getCacheBytes() {
+    return cache.getBytes();
+  }
+
+  /**
+   * Opens the image at the given path in the background, replacing the current source.
+   *
+   * @param filePath local JPEG, PNG or WebP file, or null to release the current source
+   */
+  public void setSource(final String filePath) {
+    release();
+    if (filePath == null) {
+      return;
+    }
+    final int requestGeneration = generation;
+    getDecodeExecutor().execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          BitmapRegionDecoder regionDecoder = BitmapRegionDecoder.newInstance(filePath, false);
+          mainHandler.obtainMessage(MSG_SOURCE_READY, requestGeneration, 0, regionDecoder)
+              .sendToTarget();
+        } catch (IOException e) {
+          Log.w(TAG, "Cannot open " + filePath, e);
+        }
+      }
+    });
+  }
+
+  public boolean hasSource() {
+    return decoder != null;
+  }
+
+  public int getImageWidth() {
+    return imageWidth;
+  }
+
+  public int getImageHeight() {
+    return imageHeight;
+  }
+
+  /**
+   * Releases the source, the cached tiles and pending decodes.
+   */
+  public void release() {
+    generation++;
+    final BitmapRegionDecoder oldDecoder = decoder;
+    decoder = null;
+    cache.clear();
+    levels = null;
+    levelColumns = null;
+    levelRows = null;
+    imageWidth = 0;
+    imageHeight = 0;
+    if (oldDecoder != null) {
+      // queued behind pending decodes, which then see the new generation and bail out
+      getDecodeExecutor().execute(new Runnable() {
+        @Override
+        public void run() {
+          oldDecoder.recycle();
+        }
+      });
+    }
+  }
+
+  /**
+   * Evicts every decoded tile that was not drawn by the last {@link #draw} call.
+   */
+  public void evictInvisibleTiles() {
+    cache.evictInvisible(frame);
+  }
+
+  /**
+   * Evicts decoded tiles, least recently used first, until at most the given bytes remain.
+   */
+  public void trimToSize(long bytes) {
+    cache.trimToSize(bytes);
+    if (bytes == 0) {
+      cache.clearPool();
+    }
+  }
+
+  /**
+   * Draws the visible tiles. The canvas must already be transformed by {@code transform}, tiles are
+   * drawn in the coordinate system of {@code objectBounds}.
+   *
+   * @param transform transformation from object to view coordinates
+   * @param objectBounds where the whole image is laid out, before the transformation
+   * @param viewBounds visible area, in view coordinates
+   * @return whether every tile of the wanted level was drawn
+   */
+  public boolean draw(Canvas canvas, Matrix transform, RectF objectBounds, RectF viewBounds) {
+    if (decoder == null || levels == null || objectBounds.isEmpty()) {
+      return false;
+    }
+    frame++;
+    if (!transform.invert(inverseTransform)) {
+      return false;
+    }
+    visibleRect.set(viewBounds);
+    inverseTransform.mapRect(visibleRect);
+    if (!visibleRect.intersect(objectBounds)) {
+      return true;
+    }
+    float imagePerObjectX = imageWidth / objectBounds.width();
+    float imagePerObjectY = imageHeight / objectBounds.height();
+    imageRect.set(
+        (visibleRect.left - objectBounds.left) * imagePerObjectX,
+        (visibleRect.top - objectBounds.top) * imagePerObjectY,
+        (visibleRect.right - objectBounds.left) * imagePerObjectX,
+        (visibleRect.bottom - objectBounds.top) * imagePerObjectY);
+
+    // image pixels covered by one view pixel
+    float imagePerView = imagePerObjectX / transform.mapRadius(1f);
+    int wantedLevel = getLevel(imagePerView);
+    int wantedTileSize = tileSize << wantedLevel;
+    int firstColumn = Math.max(0, (int) (imageRect.left / wantedTileSize));
+    int lastColumn = Math.min(levelColumns[wantedLevel] - 1,
+        (int) (imageRect.right / wantedTileSize));
+    int firstRow = Math.max(0, (int) (imageRect.top / wantedTileSize));
+    int lastRow = Math.min(levelRows[wantedLevel] - 1, (int) (imageRect.bottom / wantedTileSize));
+    boolean complete = true;
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        Tile tile = getTile(wantedLevel, column, row);
+        tile.visibleFrame = frame;
+        if (tile.state != Tile.STATE_READY) {
+          complete = false;
+          if (tile.state == Tile.STATE_EMPTY) {
+            tile.state = Tile.STATE_DECODING;
+            getDecodeExecutor().execute(tile);
+          }
+        }
+      }
+    }
+    if (!complete) {
+      // coarser tiles only where the wanted level has holes, so that a complete level is drawn
+      // once and its fallbacks can age out of the cache
+      int firstLevel = Math.min(wantedLevel + FALLBACK_LEVELS, levels.length - 1);
+      for (int level = firstLevel; level > wantedLevel; level--) {
+        int shift = level - wantedLevel;
+        int levelTileSize = tileSize << level;
+        int levelFirstColumn = Math.max(0, (int) (imageRect.left / levelTileSize));
+        int levelLastColumn = Math.min(levelColumns[level] - 1,
+            (int) (imageRect.right / levelTileSize));
+        int levelFirstRow = Math.max(0, (int) (imageRect.top / levelTileSize));
+        int levelLastRow = Math.min(levelRows[level] - 1,
+            (int) (imageRect.bottom / levelTileSize));
+        for (int row = levelFirstRow; row <= levelLastRow; row++) {
+          for (int column = levelFirstColumn; column <= levelLastColumn; column++) {
+            Tile tile = getTile(level, column, row);
+            if (tile.state == Tile.STATE_READY && !isReady(wantedLevel,
+                Math.max(firstColumn, column << shift),
+                Math.min(lastColumn, ((column + 1) << shift) - 1),
+                Math.max(firstRow, row << shift),
+                Math.min(lastRow, ((row + 1) << shift) - 1))) {
+              drawTile(canvas, tile, objectBounds, imagePerObjectX, imagePerObjectY);
+              cache.touch(tile);
+            }
+          }
+        }
+      }
+    }
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        Tile tile = getTile(wantedLevel, column, row);
+        if (tile.state == Tile.STATE_READY) {
+          drawTile(canvas, tile, objectBounds, imagePerObjectX, imagePerObjectY);
+          cache.touch(tile);
+        }
+      }
+    }
+    return complete;
+  }
+
+  /**
+   * @return whether every tile of the level in the given range is decoded
+   */
+  private boolean isReady(int level, int firstColumn, int lastColumn, int firstRow, int lastRow) {
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        if (getTile(level, column, row).state != Tile.STATE_READY) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private void drawTile(Canvas canvas, Tile tile, RectF objectBounds,
+      float imagePerObjectX, float imagePerObjectY) {
+    tileRect.set(
+        objectBounds.left + tile.imageRect.left / imagePerObjectX,
+        objectBounds.top + tile.imageRect.top / imagePerObjectY,
+        objectBounds.left + tile.imageRect.right / imagePerObjectX,
+        objectBounds.top + tile.imageRect.bottom / imagePerObjectY);
+    canvas.drawBitmap(tile.bitmap, tile.bitmapRect, tileRect, paint);
+  }
+
+  /**
+   * @return the level whose sample size is the largest power of two not above the given ratio
+   */
+  private int getLevel(float imagePerView) {
+    int level = 0;
+    while (level < levels.length - 1 && (2 << level) <= imagePerView) {
+      level++;
+    }
+    return level;
+  }
+
+  private Tile getTile(int level, int column, int row) {
+    Tile[] tiles = levels[level];
+    if (tiles == null) {
+      tiles = new Tile[levelColumns[level] * levelRows[level]];
+      int levelTileSize = tileSize << level;
+      for (int r = 0; r < levelRows[level]; r++) {
+        for (int c = 0; c < levelColumns[level]; c++) {
+          tiles[r * levelColumns[level] + c] = new Tile(this, level, 1 << level,
+              c * levelTileSize, r * levelTileSize,
+              Math.min(imageWidth, (c + 1) * levelTileSize),
+              Math.min(imageHeight, (r + 1) * levelTileSize));
+        }
+      }
+      levels[level] = tiles;
+    }
+    return tiles[row * levelColumns[level] + column];
+  }
+
+  private void onSourceReady(BitmapRegionDecoder regionDecoder) {
+    imageWidth = regionDecoder.getWidth();
+    imageHeight = regionDecoder.getHeight();
+    int levelCount = 1;
+    while ((tileSize << (levelCount - 1)) < Math.max(imageWidth, imageHeight)) {
+      levelCount++;
+    }
+    levels = new Tile[levelCount][];
+    levelColumns = new int[levelCount];
+    levelRows = new int[levelCount];
+    for (int level = 0; level < levelCount; level++) {
+      int levelTileSize = tileSize << level;
+      levelColumns[level] = (imageWidth + levelTileSize - 1) / levelTileSize;
+      levelRows[level] = (imageHeight + levelTileSize - 1) / levelTileSize;
+    }
+    decoder = regionDecoder;
+  }
+
+  /**
+   * Runs on the decode pool.
+   */
+  @Override
+  public void decode(Tile tile) {
+    int requestGeneration = generation;
+    BitmapRegionDecoder regionDecoder = decoder;
+    Bitmap bitmap = null;
+    if (regionDecoder != null && frame - tile.visibleFrame <= STALE_FRAMES) {
+      BitmapFactory.Options options = decodeOptions.get();
+      options.inSampleSize = tile.sampleSize;
+      options.inPreferredConfig = bitmapConfig;
+      options.inMutable = true;
+      Bitmap reusable = cache.obtainBitmap();
+      options.inBitmap = reusable != null ? reusable
+          : Bitmap.createBitmap(tileSize, tileSize, bitmapConfig);
+      try {
+        bitmap = regionDecoder.decodeRegion(tile.imageRect, options);
+      } catch (IllegalArgumentException e) {
+        // the pooled bitmap cannot hold this region, decode into a fresh one
+        cache.recycle(options.inBitmap);
+        options.inBitmap = null;
+        bitmap = decodeQuietly(regionDecoder, tile, options);
+      } catch (IllegalStateException e) {
+        // source released while decoding
+        cache.recycle(options.inBitmap);
+      } finally {
+        options.inBitmap = null;
+      }
+    }
+    tile.decoded = bitmap;
+    mainHandler.obtainMessage(MSG_TILE_DECODED, requestGeneration, 0, tile).sendToTarget();
+  }
+
+  private Bitmap decodeQuietly(BitmapRegionDecoder regionDecoder, Tile tile,
+      BitmapFactory.Options options) {
+    try {
+      return regionDecoder.decodeRegion(tile.imageRect, options);
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public boolean handleMessage(Message msg) {
+    switch (msg.what) {
+      case MSG_SOURCE_READY: {
+        BitmapRegionDecoder regionDecoder = (BitmapRegionDecoder) msg.obj;
+        if (msg.arg1 != generation) {
+          regionDecoder.recycle();
+        } else {
+          onSourceReady(regionDecoder);
+          notifyTilesChanged();
+        }
+        return true;
+      }
+      case MSG_TILE_DECODED: {
+        Tile tile = (Tile) msg.obj;
+        Bitmap bitmap = tile.decoded;
+        tile.decoded = null;
+        if (msg.arg1 != generation || tile.state != Tile.STATE_DECODING || bitmap == null) {
+          if (bitmap != null) {
+            cache.recycle(bitmap);
+          }
+          if (msg.arg1 == generation) {
+            tile.state = Tile.STATE_EMPTY;
+          }
+          return true;
+        }
+        tile.bitmap = bitmap;
+        tile.bitmapRect.set(0, 0,
+            (tile.imageRect.width() + tile.sampleSize - 1) / tile.sampleSize,
+            (tile.imageRect.height() + tile.sampleSize - 1) / tile.sampleSize);
+        tile.state = Tile.STATE_READY;
+        cache.put(tile);
+        notifyTilesChanged();
+        return true;
+      }
+      default:
+        return false;
+    }
+  }
+
+  private void notifyTilesChanged() {
+    if (callback != null) {
+      callback.onTilesChanged(this);
+    }
+  }
+
+  private static synchronized ExecutorService getDecodeExecutor() {
+    if (sDecodeExecutor == null) {
+      int threads = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+      sDecodeExecutor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+        private int count;
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+          Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+              Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+              runnable.run();
+            }
+          }, TAG + "-" + count++);
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return sDecodeExecutor;
+  }
+}
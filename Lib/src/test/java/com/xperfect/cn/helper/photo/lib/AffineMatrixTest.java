@@ -0,0 +1,118 @@
+package com.xperfect.cn.helper.photo.lib;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class AffineMatrixTest {
+
+  private static final float EPSILON = 1e-4f;
+
+  @Test
+  public void postOperations_composeInOrder() {
+    AffineMatrix matrix = AffineMatrix.newInstance();
+    matrix.postTranslate(10, 20);
+    matrix.postScale(2, 2, 0, 0);
+    float[] point = {1, 1};
+    matrix.mapPoints(point, 0, point, 0, 1);
+    assertArrayEquals(new float[]{22, 42}, point, EPSILON);
+  }
+
+  @Test
+  public void postScale_keepsPivotFixed() {
+    AffineMatrix matrix = AffineMatrix.newInstance();
+    matrix.postTranslate(5, -3);
+    matrix.postScale(3, 0.5f, 100, 50);
+    float[] pivot = {95, 53};
+    matrix.mapPoints(pivot, 0, pivot, 0, 1);
+    assertArrayEquals(new float[]{100, 50}, pivot, EPSILON);
+  }
+
+  @Test
+  public void postRotate_quarterTurnAroundPivot() {
+    AffineMatrix matrix = AffineMatrix.newInstance();
+    matrix.postRotate(90, 10, 10);
+    float[] points = {20, 10, 10, 10};
+    matrix.mapPoints(points, 0, points, 0, 2);
+    assertArrayEquals(new float[]{10, 20, 10, 10}, points, EPSILON);
+  }
+
+  @Test
+  public void invert_roundTrips() {
+    AffineMatrix matrix = AffineMatrix.newInstance();
+    matrix.postScale(2.5f, 2.5f, 40, 60);
+    matrix.postRotate(33, 120, 80);
+    matrix.postTranslate(-17, 9);
+    AffineMatrix inverse = AffineMatrix.newInstance();
+    assertTrue(matrix.invert(inverse));
+
+    float[] points = {0, 0, 123, 456, -7, 31};
+    float[] mapped = new float[points.length];
+    matrix.mapPoints(mapped, 0, points, 0, 3);
+    inverse.mapPoints(mapped, 0, mapped, 0, 3);
+    assertArrayEquals(points, mapped, 1e-3f);
+
+    inverse.postConcat(matrix);
+    assertEquals(1, inverse.getScaleX(), EPSILON);
+    assertEquals(0, inverse.getSkewX(), EPSILON);
+    assertEquals(0, inverse.getTransX(), 1e-3f);
+    assertEquals(0, inverse.getSkewY(), EPSILON);
+    assertEquals(1, inverse.getScaleY(), EPSILON);
+    assertEquals(0, inverse.getTransY(), 1e-3f);
+  }
+
+  @Test
+  public void invert_singularLeavesTargetUntouched() {
+    AffineMatrix matrix = AffineMatrix.newInstance();
+    matrix.postScale(0, 1, 0, 0);
+    AffineMatrix inverse = AffineMatrix.newInstance();
+    inverse.postTranslate(1, 2);
+    assertFalse(matrix.invert(inverse));
+    assertEquals(1, inverse.getTransX(), 0);
+    assertEquals(2, inverse.getTransY(), 0);
+  }
+
+  @Test
+  public void mapRect_boundsRotatedCorners() {
+    AffineMatrix matrix = AffineMatrix.newInstance();
+    matrix.postRotate(45, 0, 0);
+    float[] bounds = new float[4];
+    matrix.mapRect(0, 0, 10, 10, bounds);
+    float half = (float) (10 / Math.sqrt(2));
+    assertArrayEquals(new float[]{-half, 0, half, 2 * half}, bounds, EPSILON);
+  }
+
+  @Test
+  public void scale_isIndependentOfRotation() {
+    AffineMatrix matrix = AffineMatrix.newInstance();
+    matrix.postScale(2, 2, 30, 40);
+    matrix.postRotate(90, 500, 500);
+    assertEquals(0, matrix.getScaleX(), EPSILON);
+    assertEquals(2, matrix.getScale(), EPSILON);
+    assertEquals(90, matrix.getRotation(), EPSILON);
+
+    matrix.postRotate(135, 0, 0);
+    assertEquals(2, matrix.getScale(), EPSILON);
+    assertEquals(-135, matrix.getRotation(), EPSILON);
+  }
+
+  @Test
+  public void values_useFrameworkLayout() {
+    float[] values = {2, 0.5f, 30, -0.25f, 3, 40, 0, 0, 1};
+    AffineMatrix matrix = AffineMatrix.newInstance();
+    matrix.setValues(values);
+    assertEquals(2, matrix.getScaleX(), 0);
+    assertEquals(0.5f, matrix.getSkewX(), 0);
+    assertEquals(30, matrix.getTransX(), 0);
+    assertEquals(-0.25f, matrix.getSkewY(), 0);
+    assertEquals(3, matrix.getScaleY(), 0);
+    assertEquals(40, matrix.getTransY(), 0);
+
+    float[] out = new float[9];
+    matrix.getValues(out);
+    assertArrayEquals(values, out, 0);
+  }
+}
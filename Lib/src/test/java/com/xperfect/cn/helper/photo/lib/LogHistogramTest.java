@@ -0,0 +1,55 @@
+package com.xperfect.cn.helper.photo.lib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LogHistogramTest {
+
+  @Test
+  public void buckets_coverEveryValueOnce() {
+    LogHistogram histogram = LogHistogram.newInstance();
+    long[] values = {0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789L, Long.MAX_VALUE};
+    for (long value : values) {
+      int bucket = LogHistogram.indexOf(value);
+      assertTrue(bucket < histogram.getBucketCount());
+      assertTrue(histogram.getBucketLowerBound(bucket) <= value);
+      if (bucket + 1 < histogram.getBucketCount()) {
+        assertTrue(histogram.getBucketLowerBound(bucket + 1) > value);
+      }
+    }
+  }
+
+  @Test
+  public void percentiles_withinRelativePrecision() {
+    LogHistogram histogram = LogHistogram.newInstance();
+    for (int i = 1; i <= 10000; i++) {
+      histogram.record(i * 1000L);
+    }
+    assertEquals(10000, histogram.getTotalCount());
+    assertEquals(1000, histogram.getMin());
+    assertEquals(10000000, histogram.getMax());
+    assertEquals(5000500, histogram.getMean(), 1);
+    assertWithin(5000000, histogram.getValueAtPercentile(50));
+    assertWithin(9900000, histogram.getValueAtPercentile(99));
+    assertEquals(10000000, histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void copyTo_detachesSnapshot() {
+    LogHistogram histogram = LogHistogram.newInstance();
+    histogram.record(42);
+    LogHistogram snapshot = LogHistogram.newInstance();
+    histogram.copyTo(snapshot);
+    histogram.reset();
+    histogram.record(-5);
+    assertEquals(1, snapshot.getTotalCount());
+    assertEquals(42, snapshot.getMax());
+    assertEquals(0, histogram.getMax());
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    assertEquals(expected, actual, expected / (double) LogHistogram.SUB_BUCKETS);
+  }
+}
@@ -0,0 +1,36 @@
+package com.xperfect.cn.helper.photo.lib.gestures;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PointerStatisticsTest {
+
+  @Test
+  public void update_averagesNegativeCoordinates() {
+    PointerStatistics statistics = PointerStatistics.newInstance();
+    float[] startX = {-100, 100};
+    float[] startY = {-25, -25};
+    float[] currentX = {-200, 200};
+    float[] currentY = {-15, -15};
+    statistics.update(startX, startY, currentX, currentY, 2, 2);
+
+    assertEquals(0, statistics.getStartCenterX(), 0);
+    assertEquals(-25, statistics.getStartCenterY(), 0);
+    assertEquals(10, statistics.getTranslationY(), 0);
+    assertEquals(2, statistics.getScale(), 1e-5);
+    assertEquals(0, statistics.getRotation(), 1e-5);
+  }
+
+  @Test
+  public void update_panAcrossZeroDoesNotJump() {
+    PointerStatistics statistics = PointerStatistics.newInstance();
+    float[] start = {20};
+    float[] current = new float[1];
+    for (int x = 20; x >= -20; x -= 5) {
+      current[0] = x;
+      statistics.update(start, start, current, start, 1, 1);
+      assertEquals(x - 20, statistics.getTranslationX(), 0);
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.xperfect.cn.helper.photo.lib.gestures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+public class PointerTableTest {
+
+  @Test
+  public void add_appendsAndKeepsExistingSlots() {
+    PointerTable table = PointerTable.newInstance(3);
+    assertEquals(0, table.add(5));
+    assertEquals(1, table.add(2));
+    assertEquals(0, table.add(5));
+    assertEquals(2, table.add(31));
+    assertEquals(PointerTable.NO_SLOT, table.add(7));
+    assertEquals(PointerTable.NO_SLOT, table.add(32));
+    assertEquals(PointerTable.NO_SLOT, table.add(-1));
+    assertEquals(3, table.size());
+    assertEquals(2, table.getId(1));
+    assertEquals(1, table.slotOf(2));
+    assertEquals(PointerTable.NO_SLOT, table.slotOf(7));
+  }
+
+  @Test
+  public void remove_movesLastPointerIntoFreedSlot() {
+    PointerTable table = PointerTable.newInstance(10);
+    table.add(0);
+    table.add(1);
+    table.add(2);
+    assertEquals(0, table.remove(0));
+    assertEquals(2, table.size());
+    assertEquals(2, table.getId(0));
+    assertEquals(0, table.slotOf(2));
+    assertEquals(1, table.slotOf(1));
+    assertFalse(table.contains(0));
+
+    assertEquals(1, table.remove(1));
+    assertEquals(1, table.size());
+    assertEquals(PointerTable.NO_SLOT, table.remove(1));
+
+    table.clear();
+    assertEquals(0, table.size());
+    assertFalse(table.contains(2));
+    assertEquals(0, table.add(1));
+  }
+}
@@ -0,0 +1,56 @@
+package com.xperfect.cn.helper.photo.lib.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.xperfect.cn.helper.photo.lib.AffineMatrix;
+import org.junit.Test;
+
+public class TransformBufferTest {
+
+  @Test
+  public void read_returnsNewestPublished() {
+    TransformBuffer buffer = TransformBuffer.newInstance();
+    AffineMatrix transform = AffineMatrix.newInstance();
+    AffineMatrix out = AffineMatrix.newInstance();
+    assertFalse(buffer.read(out));
+    assertTrue(out.isIdentity());
+
+    transform.postTranslate(1, 2);
+    buffer.publish(transform);
+    transform.postTranslate(1, 2);
+    buffer.publish(transform);
+    assertTrue(buffer.read(out));
+    assertEquals(transform, out);
+    assertFalse(buffer.read(out));
+    assertEquals(transform, out);
+  }
+
+  @Test
+  public void concurrentReads_seeCompleteTransformsInOrder() throws InterruptedException {
+    final TransformBuffer buffer = TransformBuffer.newInstance();
+    final int count = 200000;
+    Thread writer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        AffineMatrix transform = AffineMatrix.newInstance();
+        for (int i = 1; i <= count; i++) {
+          transform.reset();
+          transform.postTranslate(i, -i);
+          buffer.publish(transform);
+        }
+      }
+    });
+    writer.start();
+    AffineMatrix out = AffineMatrix.newInstance();
+    float last = 0;
+    while (last < count) {
+      buffer.read(out);
+      assertEquals(-out.getTransX(), out.getTransY(), 0);
+      assertTrue(out.getTransX() >= last);
+      last = out.getTransX();
+    }
+    writer.join();
+  }
+}
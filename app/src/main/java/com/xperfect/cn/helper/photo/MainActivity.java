@@ -1,5 +1,6 @@
 package com.xperfect.cn.helper.photo;
 
+import android.net.Uri;
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
 import android.widget.Button;
@@ -11,7 +12,6 @@ import com.facebook.drawee.drawable.ProgressBarDrawable;
 import com.facebook.drawee.drawable.ScalingUtils.ScaleType;
 import com.facebook.drawee.generic.GenericDraweeHierarchy;
 import com.facebook.drawee.generic.GenericDraweeHierarchyBuilder;
-import com.facebook.drawee.interfaces.DraweeController;
 import com.xperfect.cn.helper.photo.view.PhotoFrescoView;
 
 public class MainActivity extends AppCompatActivity {
@@ -31,14 +31,13 @@ public class MainActivity extends AppCompatActivity {
   }
 
   public void initView(String url) {
-    DraweeController ctrl = Fresco.newDraweeControllerBuilder().setUri(
-        url).setTapToRetryEnabled(true).build();
     GenericDraweeHierarchy hierarchy = new GenericDraweeHierarchyBuilder(getResources())
         .setActualImageScaleType(ScaleType.FIT_CENTER)
         .setProgressBarImage(new ProgressBarDrawable())
         .build();
-    ivPhoto.setController(ctrl);
     ivPhoto.setHierarchy(hierarchy);
+    // decoded at the displayed size, and again at a larger size as the zoom grows
+    ivPhoto.setImageUri(Uri.parse(url), true);
   }
 
   @OnClick(R.id.btn_reset)
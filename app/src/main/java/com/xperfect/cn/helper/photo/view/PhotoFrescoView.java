@@ -1,22 +1,39 @@
 package com.xperfect.cn.helper.photo.view;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.graphics.Canvas;
 import android.graphics.Matrix;
+import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.drawable.Animatable;
+import android.net.Uri;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.support.annotation.Nullable;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
+import android.view.ViewConfiguration;
 import com.facebook.common.internal.Preconditions;
+import com.facebook.drawee.backends.pipeline.Fresco;
 import com.facebook.drawee.controller.AbstractDraweeController;
 import com.facebook.drawee.controller.BaseControllerListener;
 import com.facebook.drawee.controller.ControllerListener;
 import com.facebook.drawee.generic.GenericDraweeHierarchy;
 import com.facebook.drawee.interfaces.DraweeController;
 import com.facebook.drawee.view.DraweeView;
+import com.facebook.imagepipeline.common.ResizeOptions;
+import com.facebook.imagepipeline.request.ImageRequest;
+import com.facebook.imagepipeline.request.ImageRequestBuilder;
+import com.xperfect.cn.helper.photo.lib.AffineMatrix;
 import com.xperfect.cn.helper.photo.lib.DefaultTransformHelper;
-import com.xperfect.cn.helper.photo.lib.TransformHelper;
+import com.xperfect.cn.helper.photo.lib.FlingAnimator;
+import com.xperfect.cn.helper.photo.lib.GestureMetrics;
+import com.xperfect.cn.helper.photo.lib.gestures.QuickScaleRecognizer;
+import com.xperfect.cn.helper.photo.lib.overlay.OverlayLayer;
+import com.xperfect.cn.helper.photo.lib.pipeline.BackgroundTransformPipeline;
+import com.xperfect.cn.helper.photo.lib.tile.TiledImageRenderer;
 
 public class PhotoFrescoView extends DraweeView<GenericDraweeHierarchy>
     implements DefaultTransformHelper.Listener {
@@ -24,9 +41,41 @@ public class PhotoFrescoView extends DraweeView<GenericDraweeHierarchy>
   private static final Class<?> TAG = PhotoFrescoView.class;
 
   private static final float HUGE_IMAGE_SCALE_FACTOR_THRESHOLD = 1.1f;
+  private static final int MAX_SCALE_BUCKET = 16;
+  private static final float UPRIGHT_TOLERANCE_DEGREES = 0.01f;
+
+  /**
+   * The transform is concatenated to the canvas in {@link #onDraw(Canvas)}, every change redraws
+   * the hierarchy.
+   */
+  public static final int RENDER_MODE_CANVAS = 0;
+  /**
+   * The transform is applied through the view's scale, rotation and translation properties. The
+   * recorded display list of the hierarchy is replayed under the new matrix without calling
+   * {@link #onDraw(Canvas)}, clipped to the laid-out bounds of the view. Before API 24, updating
+   * the clip redraws the hierarchy all the same.
+   */
+  public static final int RENDER_MODE_PROPERTIES = 1;
+  /**
+   * As {@link #RENDER_MODE_PROPERTIES}, with the content kept rasterised in a hardware layer that
+   * is only composited with the new matrix. Cheapest per frame, but the layer is sampled rather
+   * than redrawn at higher zoom levels.
+   */
+  public static final int RENDER_MODE_HARDWARE_LAYER = 2;
+
+  /**
+   * Notified when the laid-out image or view bounds change, e.g. once an image arrives.
+   */
+  public interface OnBoundsChangeListener {
+
+    void onBoundsChanged(PhotoFrescoView view);
+  }
 
   private final RectF mImageBounds = new RectF();
   private final RectF mViewBounds = new RectF();
+  private final RectF mPreviousImageBounds = new RectF();
+  private final RectF mPreviousViewBounds = new RectF();
+  private OnBoundsChangeListener mOnBoundsChangeListener;
 
   private final ControllerListener mControllerListener = new BaseControllerListener<Object>() {
     @Override
@@ -43,8 +92,77 @@ public class PhotoFrescoView extends DraweeView<GenericDraweeHierarchy>
     }
   };
 
+  private final TiledImageRenderer.Callback mTilesCallback = new TiledImageRenderer.Callback() {
+    @Override
+    public void onTilesChanged(TiledImageRenderer renderer) {
+      invalidate();
+    }
+  };
+
+  private final ComponentCallbacks2 mMemoryCallbacks = new ComponentCallbacks2() {
+    @Override
+    public void onTrimMemory(int level) {
+      trimMemory(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+      trimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+  };
+
   private DraweeController mHugeImageController;
-  private TransformHelper mZoomableController = DefaultTransformHelper.newInstance();
+  /**
+   * Controller the huge image controller replaced, shown again when memory runs low.
+   */
+  private DraweeController mNormalController;
+  private boolean mDegraded;
+  private float mDegradedScale;
+  private TiledImageRenderer mTiledImageRenderer;
+  private ResolutionLadder mResolutionLadder;
+  private int mLadderLevel = -1;
+  private int mPrefetchedLevel = -1;
+  private OverlayLayer mOverlayLayer;
+  private float mLastTouchX;
+  private boolean mDisallowIntercept;
+  private int mRenderMode = RENDER_MODE_CANVAS;
+  private boolean mPropertyTransformApplied;
+  private final AffineMatrix mPropertyTransform = AffineMatrix.newInstance();
+  private final RectF mClipRect = new RectF();
+  private final Rect mClipBounds = new Rect();
+  private final float[] mTouchPoint = new float[2];
+  private SavedState mPendingState;
+  private Uri mSizedUri;
+  private ImageRequest mSizedRequest;
+  private int mSizedScale;
+  private boolean mSizedTapToRetry;
+  private boolean mBackgroundProcessing;
+  private BackgroundTransformPipeline mPipeline;
+  private int mPipelineVersion = -1;
+  private boolean mPipelineGesture;
+  private final AffineMatrix mPipelineTransform = AffineMatrix.newInstance();
+
+  private final BackgroundTransformPipeline.Listener mPipelineListener =
+      new BackgroundTransformPipeline.Listener() {
+        @Override
+        public void onTransformPublished() {
+          // input thread; picked up in the animation phase of the next frame, before drawing
+          postOnAnimation(mPipelineSync);
+        }
+      };
+
+  private final Runnable mPipelineSync = new Runnable() {
+    @Override
+    public void run() {
+      syncFromPipeline();
+    }
+  };
+
+  private DefaultTransformHelper mZoomableController = DefaultTransformHelper.newInstance();
 
   public PhotoFrescoView(Context context) {
     super(context);
@@ -62,16 +180,63 @@ public class PhotoFrescoView extends DraweeView<GenericDraweeHierarchy>
   }
 
   private void init() {
+    configureHelper(getContext(), mZoomableController);
     mZoomableController.setListener(this);
   }
 
+  /**
+   * Sets up a helper the way the view drives it: frame aligned updates, the system touch slop and
+   * double tap timeout, quick scale and flings.
+   */
+  static void configureHelper(Context context, DefaultTransformHelper helper) {
+    // one matrix computation, huge image check and invalidate per vsync
+    helper.setFrameAligned(true);
+    ViewConfiguration configuration = ViewConfiguration.get(context);
+    helper.getGestureDetector().setTouchSlop(configuration.getScaledTouchSlop());
+    // also the double tap window of quick scale
+    helper.getGestureDetector().setClickTimeout(ViewConfiguration.getDoubleTapTimeout());
+    helper.setQuickScaleEnabled(true);
+    configureQuickScale(context, helper.getQuickScaleRecognizer());
+    helper.setFlingAnimator(FlingAnimator.newInstance(context));
+  }
+
+  private static void configureQuickScale(Context context, QuickScaleRecognizer quickScale) {
+    ViewConfiguration configuration = ViewConfiguration.get(context);
+    quickScale.setTouchSlop(configuration.getScaledTouchSlop());
+    quickScale.setMultiTapSlop(configuration.getScaledDoubleTapSlop());
+  }
+
+  /**
+   * Replaces the helper. It gets the frame alignment, touch slop, quick scale and fling animator
+   * of the default one, change those after setting it.
+   */
   public void setZoomableController(DefaultTransformHelper DefaultTransformHelper) {
     Preconditions.checkNotNull(DefaultTransformHelper);
     mZoomableController.setListener(null);
     mZoomableController = DefaultTransformHelper;
+    configureHelper(getContext(), mZoomableController);
     mZoomableController.setListener(this);
   }
 
+  public DefaultTransformHelper getZoomableController() {
+    return mZoomableController;
+  }
+
+  /**
+   * @param outBounds receives the bounds of the image as laid out at identity transform
+   */
+  public void getImageBounds(RectF outBounds) {
+    outBounds.set(mImageBounds);
+  }
+
+  public void getViewBounds(RectF outBounds) {
+    outBounds.set(mViewBounds);
+  }
+
+  public void setOnBoundsChangeListener(@Nullable OnBoundsChangeListener listener) {
+    mOnBoundsChangeListener = listener;
+  }
+
   @Override
   public void setController(@Nullable DraweeController controller) {
     setControllers(controller, null);
@@ -98,18 +263,434 @@ public class PhotoFrescoView extends DraweeView<GenericDraweeHierarchy>
   public void setControllers(
       @Nullable DraweeController controller,
       @Nullable DraweeController hugeImageController) {
+    mPendingState = null;
+    mSizedUri = null;
+    mSizedRequest = null;
+    mSizedScale = 0;
+    mResolutionLadder = null;
+    mLadderLevel = -1;
+    mPrefetchedLevel = -1;
+    mNormalController = null;
+    mDegraded = false;
     setControllersInternal(null, null);
     mZoomableController.setEnabled(false);
+    if (mTiledImageRenderer != null) {
+      mTiledImageRenderer.release();
+    }
     setControllersInternal(controller, hugeImageController);
   }
 
+  /**
+   * Shows the image decoded at the size it is displayed at, rather than at its full resolution.
+   * The decode size is the displayed image bounds, or the view bounds until they are known, times
+   * the zoom rounded up to a power of two. The image is only requested again, with the current one
+   * as the low resolution image, when the zoom crosses the next power of two.
+   */
+  public void setImageUri(@Nullable Uri uri) {
+    setImageUri(uri, false);
+  }
+
+  /**
+   * As {@link #setImageUri(Uri)}.
+   *
+   * @param tapToRetryEnabled whether a failed request is retried when the image is tapped, see
+   * {@link com.facebook.drawee.controller.AbstractDraweeControllerBuilder#setTapToRetryEnabled}
+   */
+  public void setImageUri(@Nullable Uri uri, boolean tapToRetryEnabled) {
+    setControllers(null, null);
+    mSizedUri = uri;
+    mSizedTapToRetry = tapToRetryEnabled;
+    maybeRequestSizedImage();
+  }
+
+  private void maybeRequestSizedImage() {
+    if (mSizedUri == null || mViewBounds.isEmpty() || mDegraded) {
+      return;
+    }
+    int scale = getScaleBucket(mZoomableController.getScaleFactor());
+    if (scale <= mSizedScale) {
+      // a larger decode is already there
+      return;
+    }
+    requestSizedImage(scale, mSizedRequest);
+  }
+
+  private void requestSizedImage(int scale, @Nullable ImageRequest lowResRequest) {
+    // the image bounds left from a previous image do not apply to the first request
+    RectF bounds = mSizedRequest == null || mImageBounds.isEmpty() ? mViewBounds : mImageBounds;
+    ImageRequest request = ImageRequestBuilder.newBuilderWithSource(mSizedUri)
+        .setResizeOptions(new ResizeOptions(
+            (int) Math.ceil(bounds.width() * scale), (int) Math.ceil(bounds.height() * scale)))
+        .build();
+    DraweeController controller = Fresco.newDraweeControllerBuilder()
+        .setImageRequest(request)
+        .setLowResImageRequest(lowResRequest)
+        .setTapToRetryEnabled(mSizedTapToRetry)
+        .setOldController(getController())
+        .build();
+    mSizedRequest = request;
+    mSizedScale = scale;
+    setControllersInternal(controller, null);
+  }
+
+  /**
+   * @return the smallest power of two not below the scale
+   */
+  static int getScaleBucket(float scale) {
+    int bucket = 1;
+    while (bucket < scale && bucket < MAX_SCALE_BUCKET) {
+      bucket <<= 1;
+    }
+    return bucket;
+  }
+
+  /**
+   * Sets the markers drawn on top of the photo, following its transform. Only the markers inside
+   * the visible part of the photo are mapped and drawn.
+   *
+   * @param overlayLayer layer to draw, or null to remove it
+   */
+  public void setOverlayLayer(@Nullable OverlayLayer overlayLayer) {
+    mOverlayLayer = overlayLayer;
+    if (mOverlayLayer != null) {
+      mOverlayLayer.invalidate();
+    }
+    applyTransform();
+  }
+
+  /**
+   * @param renderMode {@link #RENDER_MODE_CANVAS}, {@link #RENDER_MODE_PROPERTIES} or {@link
+   * #RENDER_MODE_HARDWARE_LAYER}. The property modes fall back to the canvas while an overlay is
+   * set or tiles are drawn, both of which follow the transform on every frame, and while the image
+   * is rotated other than by half turns, which a rectangular clip cannot cut back to the view.
+   */
+  public void setRenderMode(int renderMode) {
+    if (mRenderMode == renderMode) {
+      return;
+    }
+    clearPropertyTransform();
+    mRenderMode = renderMode;
+    applyTransform();
+  }
+
+  public int getRenderMode() {
+    return mRenderMode;
+  }
+
+  /**
+   * Moves gesture processing to a dedicated input thread while attached to a window. Touch events
+   * are handed over through a preallocated ring, transformed and clamped there, and the result is
+   * taken over once per frame, so gestures keep up with the finger while the UI thread is busy.
+   * <p>
+   * The controller returned by {@link #getZoomableController()} stays the one to configure: its
+   * settings are copied to the input thread at the start of every gesture, and it follows the
+   * published transform, its listener and the huge image and resolution checks run as usual.
+   * While it has a gesture recorder, gesture metrics or recognizers of the host, which expect the
+   * thread driving the helper to be the UI thread, gestures are processed on the UI thread.
+   */
+  public void setBackgroundProcessing(boolean backgroundProcessing) {
+    if (mBackgroundProcessing == backgroundProcessing) {
+      return;
+    }
+    mBackgroundProcessing = backgroundProcessing;
+    if (backgroundProcessing && isAttachedToWindow()) {
+      startPipeline();
+    } else {
+      stopPipeline();
+    }
+  }
+
+  public boolean isBackgroundProcessing() {
+    return mBackgroundProcessing;
+  }
+
+  private void startPipeline() {
+    if (mPipeline != null) {
+      return;
+    }
+    mPipeline = BackgroundTransformPipeline.newInstance(getContext());
+    mPipeline.copySettings(mZoomableController);
+    mPipeline.setListener(mPipelineListener);
+    mPipeline.setBounds(mImageBounds, mViewBounds);
+    mPipelineVersion = -1;
+  }
+
+  private void stopPipeline() {
+    if (mPipeline == null) {
+      return;
+    }
+    removeCallbacks(mPipelineSync);
+    syncFromPipeline();
+    mPipeline.setListener(null);
+    mPipeline.quit();
+    mPipeline = null;
+  }
+
+  private void syncFromPipeline() {
+    if (mPipeline == null) {
+      return;
+    }
+    if (mZoomableController.getTransformVersion() != mPipelineVersion) {
+      // changed on this thread since the last sync, e.g. restored or reset by a pager; it wins
+      // over a fling or zoom still running on the input thread
+      pushToPipeline();
+    } else if (mPipeline.getTransform(mPipelineTransform)) {
+      mZoomableController.setTransform(mPipelineTransform);
+      mPipelineVersion = mZoomableController.getTransformVersion();
+    }
+  }
+
+  private void pushToPipeline() {
+    mZoomableController.getTransform(mPipelineTransform);
+    mPipeline.setTransform(mPipelineTransform);
+    mPipelineVersion = mZoomableController.getTransformVersion();
+  }
+
+  private boolean usesPropertyTransform() {
+    return mRenderMode != RENDER_MODE_CANVAS && mOverlayLayer == null && !isTiling() &&
+        isUpright();
+  }
+
+  /**
+   * @return whether the image is unrotated or upside down. The view then stays axis aligned, its
+   * clip bounds cut it back to the laid-out rectangle exactly and, scaled up, it still covers that
+   * rectangle for touches
+   */
+  private boolean isUpright() {
+    float rotation = Math.abs(mZoomableController.getRotation());
+    return rotation < UPRIGHT_TOLERANCE_DEGREES || rotation > 180 - UPRIGHT_TOLERANCE_DEGREES;
+  }
+
+  /**
+   * Brings the rendering up to date with the transform, either through the view properties or by
+   * invalidating the canvas path.
+   */
+  private void applyTransform() {
+    if (!usesPropertyTransform()) {
+      clearPropertyTransform();
+      invalidate();
+      return;
+    }
+    // pivot at the origin: translate * rotate * scale, the composition of the helper's transform
+    AffineMatrix transform = mPropertyTransform;
+    mZoomableController.getTransform(transform);
+    setPivotX(0);
+    setPivotY(0);
+    setScaleX(transform.getScale());
+    setScaleY(transform.getScale());
+    setRotation(transform.getRotation());
+    setTranslationX(transform.getTransX());
+    setTranslationY(transform.getTransY());
+    // the scaled view reaches beyond its laid-out bounds, over its siblings, cut it back to them
+    if (transform.invert(transform)) {
+      mClipRect.set(0, 0, getWidth(), getHeight());
+      transform.mapRect(mClipRect);
+      mClipRect.roundOut(mClipBounds);
+      setClipBounds(mClipBounds);
+    }
+    if (!mPropertyTransformApplied) {
+      mPropertyTransformApplied = true;
+      if (mRenderMode == RENDER_MODE_HARDWARE_LAYER) {
+        setLayerType(LAYER_TYPE_HARDWARE, null);
+      }
+      // the content is drawn untransformed from now on
+      invalidate();
+    }
+  }
+
+  private void clearPropertyTransform() {
+    if (!mPropertyTransformApplied) {
+      return;
+    }
+    mPropertyTransformApplied = false;
+    setClipBounds(null);
+    setScaleX(1);
+    setScaleY(1);
+    setRotation(0);
+    setTranslationX(0);
+    setTranslationY(0);
+    if (getLayerType() == LAYER_TYPE_HARDWARE) {
+      setLayerType(LAYER_TYPE_NONE, null);
+    }
+    invalidate();
+  }
+
+  public OverlayLayer getOverlayLayer() {
+    return mOverlayLayer;
+  }
+
+  /**
+   * Sets the sources of the image at increasing resolutions. The view starts with the smallest
+   * level and moves up and down the ladder as the zoom changes, prefetching the next level before
+   * it is needed.
+   */
+  public void setResolutionLadder(ResolutionLadder ladder) {
+    Preconditions.checkNotNull(ladder);
+    Preconditions.checkArgument(ladder.size() > 0);
+    // after a restore, start right away at the level that was shown
+    int level = mPendingState != null && mPendingState.ladderLevel >= 0 ?
+        Math.min(mPendingState.ladderLevel, ladder.size() - 1) : 0;
+    SavedState pendingState = mPendingState;
+    setControllers(Fresco.newDraweeControllerBuilder()
+        .setImageRequest(ImageRequest.fromUri(ladder.getLevel(level).getUri()))
+        .setOldController(getController())
+        .build(), null);
+    mPendingState = pendingState;
+    mResolutionLadder = ladder;
+    mLadderLevel = level;
+  }
+
+  /**
+   * @return index of the ladder level shown, or -1 without a ladder
+   */
+  public int getResolutionLevel() {
+    return mLadderLevel;
+  }
+
+  private void maybeSwitchResolutionLevel() {
+    if (mResolutionLadder == null || mDegraded) {
+      return;
+    }
+    float required = getRequiredDimension();
+    if (required <= 0) {
+      return;
+    }
+    int level = mResolutionLadder.selectLevel(mLadderLevel, required);
+    if (level != mLadderLevel) {
+      setResolutionLevel(level);
+    }
+    int prefetchLevel = mResolutionLadder.getPrefetchLevel(mLadderLevel, required);
+    if (prefetchLevel > mPrefetchedLevel) {
+      mPrefetchedLevel = prefetchLevel;
+      Fresco.getImagePipeline().prefetchToDiskCache(
+          ImageRequest.fromUri(mResolutionLadder.getLevel(prefetchLevel).getUri()), this);
+    }
+  }
+
+  private void setResolutionLevel(int level) {
+    // the level shown so far stays on screen until the new one arrives
+    DraweeController controller = Fresco.newDraweeControllerBuilder()
+        .setImageRequest(ImageRequest.fromUri(mResolutionLadder.getLevel(level).getUri()))
+        .setLowResImageRequest(
+            ImageRequest.fromUri(mResolutionLadder.getLevel(mLadderLevel).getUri()))
+        .setOldController(getController())
+        .build();
+    mLadderLevel = level;
+    setControllersInternal(controller, mHugeImageController);
+  }
+
+  /**
+   * @return the longest edge of the image as currently displayed, in pixels
+   */
+  private float getRequiredDimension() {
+    return getFitDimension() * mZoomableController.getScaleFactor();
+  }
+
+  /**
+   * @return the longest edge of the image as displayed without zoom, in pixels
+   */
+  private float getFitDimension() {
+    float width = mImageBounds.isEmpty() ? mViewBounds.width() : mImageBounds.width();
+    float height = mImageBounds.isEmpty() ? mViewBounds.height() : mImageBounds.height();
+    return Math.max(width, height);
+  }
+
+  /**
+   * Sets a local copy of the current image to be drawn as decoded tiles once the client zooms in,
+   * instead of swapping to a huge image controller. Only the visible part of the image is decoded,
+   * at the resolution the current zoom needs.
+   * <p>
+   * Must be called after the controller is set, setting a controller releases the tiled source.
+   *
+   * @param filePath local file of the full resolution image, or null to stop tiling
+   */
+  public void setTiledImageSource(@Nullable String filePath) {
+    if (mTiledImageRenderer == null) {
+      if (filePath == null) {
+        return;
+      }
+      mTiledImageRenderer = TiledImageRenderer.newInstance();
+      mTiledImageRenderer.setCallback(mTilesCallback);
+    }
+    mTiledImageRenderer.setSource(filePath);
+  }
+
+  private boolean isTiling() {
+    return mTiledImageRenderer != null && mTiledImageRenderer.hasSource() && !mDegraded &&
+        mZoomableController.getScaleFactor() > HUGE_IMAGE_SCALE_FACTOR_THRESHOLD;
+  }
+
   private void maybeSetHugeImageController() {
-    if (mHugeImageController != null &&
+    if (mTiledImageRenderer != null && mTiledImageRenderer.hasSource()) {
+      return;
+    }
+    if (mHugeImageController != null && !mDegraded &&
         mZoomableController.getScaleFactor() > HUGE_IMAGE_SCALE_FACTOR_THRESHOLD) {
-      setControllersInternal(mHugeImageController, null);
+      showHugeImageController();
+    }
+  }
+
+  private void showHugeImageController() {
+    // released once detached, keeping it holds no image
+    DraweeController controller = getController();
+    setControllersInternal(mHugeImageController, null);
+    mNormalController = controller;
+  }
+
+  /**
+   * Gives back image memory in proportion to the trim level, as passed to {@link
+   * ComponentCallbacks2#onTrimMemory(int)}. The view listens to the application itself while
+   * attached, hosts only need to call this for levels they synthesise.
+   * <p>
+   * From {@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_MODERATE}, tiles outside the viewport are
+   * evicted. From {@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_LOW}, which includes the app
+   * being hidden, the view falls back to what the unzoomed image needs: the normal image instead
+   * of the huge one, the ladder level fitting the view, the view sized decode, and no tiles. The
+   * transform is kept, so the viewport stays where it is, only blurrier. Sharper sources are
+   * requested again after the next touch down on the view, also when a touch listener such as the
+   * one of a {@link SyncedPhotoGroup} consumes it, or as soon as the image is zoomed in further by
+   * any means.
+   */
+  public void trimMemory(int level) {
+    if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+      degrade();
+    } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE &&
+        mTiledImageRenderer != null) {
+      mTiledImageRenderer.evictInvisibleTiles();
     }
   }
 
+  private void degrade() {
+    mDegraded = true;
+    mDegradedScale = mZoomableController.getScaleFactor();
+    if (mTiledImageRenderer != null) {
+      mTiledImageRenderer.trimToSize(0);
+    }
+    if (mNormalController != null) {
+      // back to the normal image, the huge one is shown again when zooming
+      DraweeController hugeImageController = getController();
+      DraweeController controller = mNormalController;
+      mNormalController = null;
+      setControllersInternal(controller, hugeImageController);
+    }
+    if (mResolutionLadder != null) {
+      int level = mResolutionLadder.selectLevel(mLadderLevel, getFitDimension());
+      if (level < mLadderLevel) {
+        // unlike moving down while zooming out, the larger level is not kept as the low res image
+        mLadderLevel = level;
+        setControllersInternal(Fresco.newDraweeControllerBuilder()
+            .setImageRequest(ImageRequest.fromUri(mResolutionLadder.getLevel(level).getUri()))
+            .setOldController(getController())
+            .build(), mHugeImageController);
+      }
+    }
+    if (mSizedRequest != null && mSizedScale > 1) {
+      requestSizedImage(1, null);
+    }
+    // without tiles, the property render modes may apply again
+    applyTransform();
+  }
+
   private void removeControllerListener(DraweeController controller) {
     if (controller instanceof AbstractDraweeController) {
       ((AbstractDraweeController) controller)
@@ -126,27 +707,167 @@ public class PhotoFrescoView extends DraweeView<GenericDraweeHierarchy>
 
   @Override
   protected void onDraw(Canvas canvas) {
+    GestureMetrics metrics = mZoomableController.getGestureMetrics();
+    long start = metrics != null ? System.nanoTime() : 0;
     int saveCount = canvas.save();
-    canvas.concat(mZoomableController.getTransform());
+    if (!mPropertyTransformApplied) {
+      canvas.concat(mZoomableController.getTransform());
+    }
     super.onDraw(canvas);
+    if (isTiling()) {
+      mTiledImageRenderer.draw(canvas, mZoomableController.getTransform(), mImageBounds,
+          mViewBounds);
+    }
     canvas.restoreToCount(saveCount);
+    if (mOverlayLayer != null) {
+      mOverlayLayer.update(mZoomableController, mViewBounds);
+      mOverlayLayer.draw(canvas);
+    }
+    if (metrics != null) {
+      metrics.recordDraw(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    getContext().getApplicationContext().registerComponentCallbacks(mMemoryCallbacks);
+    if (mBackgroundProcessing) {
+      startPipeline();
+    }
+  }
+
+  @Override
+  protected void onDetachedFromWindow() {
+    super.onDetachedFromWindow();
+    getContext().getApplicationContext().unregisterComponentCallbacks(mMemoryCallbacks);
+    stopPipeline();
+    if (mTiledImageRenderer != null) {
+      // keep the source open, the tiles are decoded again when needed
+      mTiledImageRenderer.trimToSize(0);
+    }
+  }
+
+  @Override
+  public boolean dispatchTouchEvent(MotionEvent event) {
+    if (mPropertyTransformApplied && event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+      // the parent hit-tests the scaled view, leave touches outside the laid-out bounds to the
+      // views underneath
+      mTouchPoint[0] = event.getX();
+      mTouchPoint[1] = event.getY();
+      getMatrix().mapPoints(mTouchPoint);
+      if (mTouchPoint[0] < 0 || mTouchPoint[1] < 0 || mTouchPoint[0] > getWidth() ||
+          mTouchPoint[1] > getHeight()) {
+        return false;
+      }
+    }
+    if (mDegraded && event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+      // here rather than in onTouchEvent, which a touch listener such as the one of a group
+      // bypasses; upgraded from the next transform change on, a tap alone fetches nothing
+      mDegraded = false;
+    }
+    return super.dispatchTouchEvent(event);
   }
 
   @Override
   public boolean onTouchEvent(MotionEvent event) {
-    if (mZoomableController.onTouchEvent(event)) {
-      if (mZoomableController.getScaleFactor() > 1.0f) {
-        getParent().requestDisallowInterceptTouchEvent(true);
+    // the parent delivers events mapped through the view's own matrix, undo it so that the
+    // gesture is seen in the untransformed frame the helper works in
+    MotionEvent viewEvent = event;
+    if (mPropertyTransformApplied) {
+      viewEvent = MotionEvent.obtain(event);
+      viewEvent.transform(getMatrix());
+    }
+    try {
+      if (mPipeline != null && viewEvent.getActionMasked() == MotionEvent.ACTION_DOWN) {
+        mPipelineGesture = BackgroundTransformPipeline.canMirror(mZoomableController);
+        if (mPipelineGesture) {
+          // settings changed since the last gesture take effect from this one
+          mPipeline.copySettings(mZoomableController);
+        }
+        if (!mPipelineGesture || mZoomableController.getTransformVersion() != mPipelineVersion) {
+          // also stops a fling of the input thread before this thread takes the gesture
+          pushToPipeline();
+        }
+      }
+      if (mPipeline != null && mPipelineGesture && mZoomableController.enabled()) {
+        mPipeline.offer(viewEvent);
+        // decided on the edges of the last synced transform, at most a frame behind
+        updateParentIntercept(mZoomableController, viewEvent);
+        return true;
+      }
+      if (mZoomableController.onTouchEvent(viewEvent)) {
+        updateParentIntercept(mZoomableController, viewEvent);
+        return true;
+      }
+    } finally {
+      if (viewEvent != event) {
+        viewEvent.recycle();
       }
-      return true;
     }
     return super.onTouchEvent(event);
   }
 
+  @Override
+  public boolean canScrollHorizontally(int direction) {
+    return mZoomableController.canScrollHorizontally(direction);
+  }
+
+  @Override
+  public boolean canScrollVertically(int direction) {
+    return mZoomableController.canScrollVertically(direction);
+  }
+
+  /**
+   * Keeps the parent, e.g. a pager, from stealing the gesture while the image can still be panned
+   * in the direction of the drag, and hands it over once the image is at its edge. Multi-pointer
+   * gestures always stay here. The parent is only told when the decision changes.
+   *
+   * @param helper helper the gesture drives, {@code event} is in its view coordinates
+   */
+  void updateParentIntercept(DefaultTransformHelper helper, MotionEvent event) {
+    boolean disallow;
+    switch (event.getActionMasked()) {
+      case MotionEvent.ACTION_DOWN:
+        mLastTouchX = event.getX();
+        mDisallowIntercept = false;
+        disallow = helper.canScrollHorizontally(-1) || helper.canScrollHorizontally(1);
+        break;
+      case MotionEvent.ACTION_POINTER_DOWN:
+        disallow = true;
+        break;
+      case MotionEvent.ACTION_MOVE:
+        if (event.getPointerCount() > 1) {
+          disallow = true;
+          break;
+        }
+        float dx = event.getX() - mLastTouchX;
+        mLastTouchX = event.getX();
+        if (dx == 0) {
+          return;
+        }
+        // dragging to the right moves the image towards its left edge
+        disallow = helper.canScrollHorizontally(dx > 0 ? -1 : 1);
+        break;
+      case MotionEvent.ACTION_POINTER_UP:
+        mLastTouchX = event.getX(event.getActionIndex() == 0 ? 1 : 0);
+        return;
+      default:
+        mDisallowIntercept = false;
+        return;
+    }
+    if (disallow != mDisallowIntercept && getParent() != null) {
+      mDisallowIntercept = disallow;
+      getParent().requestDisallowInterceptTouchEvent(disallow);
+    }
+  }
+
   @Override
   protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
     super.onLayout(changed, left, top, right, bottom);
     updateZoomableControllerBounds();
+    maybeSwitchResolutionLevel();
+    maybeRequestSizedImage();
   }
 
   private void onFinalImageSet() {
@@ -154,6 +875,153 @@ public class PhotoFrescoView extends DraweeView<GenericDraweeHierarchy>
       updateZoomableControllerBounds();
       mZoomableController.setEnabled(true);
     }
+    if (mPendingState != null && !mImageBounds.isEmpty()) {
+      restoreTransform(mPendingState);
+      mPendingState = null;
+    }
+  }
+
+  @Override
+  protected Parcelable onSaveInstanceState() {
+    SavedState state = new SavedState(super.onSaveInstanceState());
+    if (mPendingState != null) {
+      // not shown yet, keep what was restored
+      state.copyFrom(mPendingState);
+      return state;
+    }
+    DefaultTransformHelper controller = mZoomableController;
+    state.rotationEnabled = controller.isRotationEnabled();
+    state.scaleEnabled = controller.isScaleEnabled();
+    state.translationEnabled = controller.isTranslationEnabled();
+    state.scale = controller.getScaleFactor();
+    state.rotation = controller.getRotation();
+    state.ladderLevel = mLadderLevel;
+    state.hugeImage = mHugeImageController == null && getController() != null &&
+        controller.getScaleFactor() > HUGE_IMAGE_SCALE_FACTOR_THRESHOLD;
+    if (!mImageBounds.isEmpty() && !mViewBounds.isEmpty()) {
+      // the viewport is kept as the object point in the middle of the view, which survives a
+      // change of the view size
+      float[] focus = {mViewBounds.centerX(), mViewBounds.centerY()};
+      controller.mapViewToObject(focus, focus, 1);
+      state.focusX = focus[0];
+      state.focusY = focus[1];
+    }
+    return state;
+  }
+
+  @Override
+  protected void onRestoreInstanceState(Parcelable parcelable) {
+    if (!(parcelable instanceof SavedState)) {
+      super.onRestoreInstanceState(parcelable);
+      return;
+    }
+    SavedState state = (SavedState) parcelable;
+    super.onRestoreInstanceState(state.getSuperState());
+    mZoomableController.setRotationEnabled(state.rotationEnabled);
+    mZoomableController.setScaleEnabled(state.scaleEnabled);
+    mZoomableController.setTranslationEnabled(state.translationEnabled);
+    if (mResolutionLadder != null && state.ladderLevel >= 0 &&
+        state.ladderLevel != mLadderLevel && state.ladderLevel < mResolutionLadder.size()) {
+      // nothing is fetched before the view is attached, replace the request with the level shown
+      // before instead of upgrading to it later
+      mLadderLevel = state.ladderLevel;
+      setControllersInternal(Fresco.newDraweeControllerBuilder()
+          .setImageRequest(
+              ImageRequest.fromUri(mResolutionLadder.getLevel(mLadderLevel).getUri()))
+          .setOldController(getController())
+          .build(), mHugeImageController);
+    } else if (state.hugeImage && mHugeImageController != null) {
+      showHugeImageController();
+    }
+    if (mZoomableController.enabled() && !mImageBounds.isEmpty()) {
+      restoreTransform(state);
+    } else {
+      mPendingState = state;
+    }
+  }
+
+  /**
+   * Puts the saved focus point in the middle of the view at the saved scale and rotation.
+   */
+  private void restoreTransform(SavedState state) {
+    float focusX = mImageBounds.left + state.focusX * mImageBounds.width();
+    float focusY = mImageBounds.top + state.focusY * mImageBounds.height();
+    AffineMatrix transform = AffineMatrix.newInstance();
+    transform.postTranslate(-focusX, -focusY);
+    transform.postScale(state.scale, state.scale, 0, 0);
+    transform.postRotate(state.rotation, 0, 0);
+    transform.postTranslate(mViewBounds.centerX(), mViewBounds.centerY());
+    mZoomableController.setTransform(transform);
+    mZoomableController.limitTransform();
+  }
+
+  static class SavedState extends BaseSavedState {
+
+    boolean rotationEnabled = true;
+    boolean scaleEnabled = true;
+    boolean translationEnabled = true;
+    float scale = 1;
+    float rotation = 0;
+    float focusX = 0.5f;
+    float focusY = 0.5f;
+    int ladderLevel = -1;
+    boolean hugeImage;
+
+    SavedState(Parcelable superState) {
+      super(superState);
+    }
+
+    private SavedState(Parcel in) {
+      super(in);
+      rotationEnabled = in.readInt() != 0;
+      scaleEnabled = in.readInt() != 0;
+      translationEnabled = in.readInt() != 0;
+      scale = in.readFloat();
+      rotation = in.readFloat();
+      focusX = in.readFloat();
+      focusY = in.readFloat();
+      ladderLevel = in.readInt();
+      hugeImage = in.readInt() != 0;
+    }
+
+    void copyFrom(SavedState other) {
+      rotationEnabled = other.rotationEnabled;
+      scaleEnabled = other.scaleEnabled;
+      translationEnabled = other.translationEnabled;
+      scale = other.scale;
+      rotation = other.rotation;
+      focusX = other.focusX;
+      focusY = other.focusY;
+      ladderLevel = other.ladderLevel;
+      hugeImage = other.hugeImage;
+    }
+
+    @Override
+    public void writeToParcel(Parcel out, int flags) {
+      super.writeToParcel(out, flags);
+      out.writeInt(rotationEnabled ? 1 : 0);
+      out.writeInt(scaleEnabled ? 1 : 0);
+      out.writeInt(translationEnabled ? 1 : 0);
+      out.writeFloat(scale);
+      out.writeFloat(rotation);
+      out.writeFloat(focusX);
+      out.writeFloat(focusY);
+      out.writeInt(ladderLevel);
+      out.writeInt(hugeImage ? 1 : 0);
+    }
+
+    public static final Parcelable.Creator<SavedState> CREATOR =
+        new Parcelable.Creator<SavedState>() {
+          @Override
+          public SavedState createFromParcel(Parcel in) {
+            return new SavedState(in);
+          }
+
+          @Override
+          public SavedState[] newArray(int size) {
+            return new SavedState[size];
+          }
+        };
   }
 
   private void onRelease() {
@@ -162,14 +1030,35 @@ public class PhotoFrescoView extends DraweeView<GenericDraweeHierarchy>
 
   @Override
   public void onTransformed(Matrix transform) {
+    if (mDegraded && mZoomableController.getScaleFactor() > mDegradedScale) {
+      // zoomed in without a touch on this view, e.g. by a group or the host
+      mDegraded = false;
+    }
     maybeSetHugeImageController();
-    invalidate();
+    maybeSwitchResolutionLevel();
+    maybeRequestSizedImage();
+    if (mOverlayLayer != null) {
+      mOverlayLayer.update(mZoomableController, mViewBounds);
+    }
+    applyTransform();
   }
 
   private void updateZoomableControllerBounds() {
+    mPreviousImageBounds.set(mImageBounds);
+    mPreviousViewBounds.set(mViewBounds);
     getHierarchy().getActualImageBounds(mImageBounds);
     mViewBounds.set(0, 0, getWidth(), getHeight());
     mZoomableController.setObjectBounds(mImageBounds);
     mZoomableController.setViewBounds(mViewBounds);
+    if (mPipeline != null) {
+      mPipeline.setBounds(mImageBounds, mViewBounds);
+    }
+    if (mOverlayLayer != null) {
+      mOverlayLayer.invalidate();
+    }
+    if (mOnBoundsChangeListener != null && (!mImageBounds.equals(mPreviousImageBounds) ||
+        !mViewBounds.equals(mPreviousViewBounds))) {
+      mOnBoundsChangeListener.onBoundsChanged(this);
+    }
   }
 }
\ No newline at end of file
@@ -0,0 +1,234 @@
+package com.xperfect.cn.helper.photo.view;
+
+import android.content.Context;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewPager;
+import android.util.DisplayMetrics;
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+import com.facebook.datasource.DataSource;
+import com.facebook.drawee.backends.pipeline.Fresco;
+import com.facebook.drawee.drawable.ProgressBarDrawable;
+import com.facebook.drawee.drawable.ScalingUtils.ScaleType;
+import com.facebook.drawee.generic.GenericDraweeHierarchyBuilder;
+import com.facebook.imagepipeline.common.Priority;
+import com.facebook.imagepipeline.common.ResizeOptions;
+import com.facebook.imagepipeline.request.ImageRequest;
+import com.facebook.imagepipeline.request.ImageRequestBuilder;
+import com.xperfect.cn.helper.photo.lib.AffineMatrix;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pages through a list of photos with {@link PhotoFrescoView}s taken from a fixed pool of recycled
+ * instances.
+ * <p>
+ * Every page is requested at screen resolution. The {@link #setPrefetchDistance(int) N} pages on
+ * each side of the selected one are prefetched into the bitmap cache at the same resolution, the
+ * nearest ones first, so that swiping to them shows a decoded image instead of a spinner. Prefetches
+ * of pages that fall out of that window, and the requests of pages swiped past, are cancelled.
+ * <p>
+ * The zoom of a page is kept when it is swiped away and restored when it comes back.
+ */
+public class PhotoPagerAdapter extends PagerAdapter {
+
+  public static final int DEFAULT_PREFETCH_DISTANCE = 2;
+
+  private final Context mContext;
+  private final List<Uri> mUris = new ArrayList<>();
+  private final ArrayDeque<PhotoFrescoView> mRecycledViews = new ArrayDeque<>();
+  private final SparseArray<AffineMatrix> mTransforms = new SparseArray<>();
+  private final SparseArray<DataSource<Void>> mPrefetches = new SparseArray<>();
+  private final ResizeOptions mResizeOptions;
+
+  private final ViewPager.OnPageChangeListener mPageChangeListener =
+      new ViewPager.SimpleOnPageChangeListener() {
+        @Override
+        public void onPageSelected(int position) {
+          prefetchAround(position);
+        }
+      };
+
+  private ViewPager mViewPager;
+  private int mPrefetchDistance = DEFAULT_PREFETCH_DISTANCE;
+  private int mMaxRecycledViews;
+
+  public PhotoPagerAdapter(Context context) {
+    mContext = context;
+    DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+    mResizeOptions = new ResizeOptions(metrics.widthPixels, metrics.heightPixels);
+    mMaxRecycledViews = 2;
+  }
+
+  public static PhotoPagerAdapter newInstance(Context context) {
+    return new PhotoPagerAdapter(context);
+  }
+
+  /**
+   * Sets this adapter on the pager, keeping as many pages alive as the pool allows.
+   */
+  public void attachTo(ViewPager viewPager) {
+    detach();
+    mViewPager = viewPager;
+    viewPager.setOffscreenPageLimit(1);
+    viewPager.setAdapter(this);
+    viewPager.addOnPageChangeListener(mPageChangeListener);
+    prefetchAround(viewPager.getCurrentItem());
+  }
+
+  public void detach() {
+    if (mViewPager != null) {
+      mViewPager.removeOnPageChangeListener(mPageChangeListener);
+      mViewPager.setAdapter(null);
+      mViewPager = null;
+    }
+    cancelPrefetches(Integer.MAX_VALUE, Integer.MIN_VALUE);
+    mRecycledViews.clear();
+  }
+
+  public void setUris(List<Uri> uris) {
+    cancelPrefetches(Integer.MAX_VALUE, Integer.MIN_VALUE);
+    mUris.clear();
+    mUris.addAll(uris);
+    mTransforms.clear();
+    notifyDataSetChanged();
+    if (mViewPager != null) {
+      prefetchAround(mViewPager.getCurrentItem());
+    }
+  }
+
+  public Uri getUri(int position) {
+    return mUris.get(position);
+  }
+
+  /**
+   * @param distance number of pages prefetched on each side of the selected one
+   */
+  public void setPrefetchDistance(int distance) {
+    mPrefetchDistance = Math.max(0, distance);
+    if (mViewPager != null) {
+      prefetchAround(mViewPager.getCurrentItem());
+    }
+  }
+
+  /**
+   * @param maxRecycledViews number of detached views kept for reuse, in addition to the pages on
+   * screen and the offscreen ones
+   */
+  public void setMaxRecycledViews(int maxRecycledViews) {
+    mMaxRecycledViews = Math.max(0, maxRecycledViews);
+    while (mRecycledViews.size() > mMaxRecycledViews) {
+      mRecycledViews.pollLast();
+    }
+  }
+
+  @Override
+  public int getCount() {
+    return mUris.size();
+  }
+
+  @NonNull
+  @Override
+  public Object instantiateItem(@NonNull ViewGroup container, int position) {
+    PhotoFrescoView view = mRecycledViews.pollFirst();
+    if (view == null) {
+      view = new PhotoFrescoView(mContext);
+      view.setHierarchy(new GenericDraweeHierarchyBuilder(mContext.getResources())
+          .setActualImageScaleType(ScaleType.FIT_CENTER)
+          .setProgressBarImage(new ProgressBarDrawable())
+          .build());
+    }
+    view.setController(Fresco.newDraweeControllerBuilder()
+        .setImageRequest(newRequest(position, Priority.HIGH))
+        .setOldController(view.getController())
+        .build());
+    AffineMatrix transform = mTransforms.get(position);
+    if (transform != null) {
+      view.getZoomableController().setTransform(transform);
+    } else {
+      view.getZoomableController().reset();
+    }
+    container.addView(view);
+    return view;
+  }
+
+  @Override
+  public void destroyItem(@NonNull ViewGroup container, int position, @NonNull Object object) {
+    PhotoFrescoView view = (PhotoFrescoView) object;
+    saveTransform(position, view);
+    container.removeView(view);
+    // releasing the controller cancels a fetch still in flight
+    view.setController(null);
+    if (mRecycledViews.size() < mMaxRecycledViews) {
+      mRecycledViews.addFirst(view);
+    }
+  }
+
+  @Override
+  public boolean isViewFromObject(@NonNull View view, @NonNull Object object) {
+    return view == object;
+  }
+
+  @Override
+  public int getItemPosition(@NonNull Object object) {
+    return POSITION_NONE;
+  }
+
+  private void saveTransform(int position, PhotoFrescoView view) {
+    AffineMatrix transform = mTransforms.get(position);
+    if (transform == null) {
+      transform = AffineMatrix.newInstance();
+    }
+    view.getZoomableController().getTransform(transform);
+    if (transform.isIdentity()) {
+      mTransforms.remove(position);
+    } else {
+      mTransforms.put(position, transform);
+    }
+  }
+
+  private ImageRequest newRequest(int position, Priority priority) {
+    return ImageRequestBuilder.newBuilderWithSource(mUris.get(position))
+        .setResizeOptions(mResizeOptions)
+        .setRequestPriority(priority)
+        .build();
+  }
+
+  private void prefetchAround(int position) {
+    int first = Math.max(0, position - mPrefetchDistance);
+    int last = Math.min(getCount() - 1, position + mPrefetchDistance);
+    cancelPrefetches(first, last);
+    // nearest pages first, the pipeline also serves them first
+    for (int distance = 1; distance <= mPrefetchDistance; distance++) {
+      Priority priority = distance == 1 ? Priority.HIGH
+          : distance == 2 ? Priority.MEDIUM : Priority.LOW;
+      prefetch(position + distance, first, last, priority);
+      prefetch(position - distance, first, last, priority);
+    }
+  }
+
+  private void prefetch(int position, int first, int last, Priority priority) {
+    if (position < first || position > last || mPrefetches.get(position) != null) {
+      return;
+    }
+    mPrefetches.put(position,
+        Fresco.getImagePipeline().prefetchToBitmapCache(newRequest(position, priority), this));
+  }
+
+  /**
+   * Closes the prefetches outside of [first, last], cancelling those not finished yet.
+   */
+  private void cancelPrefetches(int first, int last) {
+    for (int i = mPrefetches.size() - 1; i >= 0; i--) {
+      int position = mPrefetches.keyAt(i);
+      if (position < first || position > last) {
+        mPrefetches.valueAt(i).close();
+        mPrefetches.removeAt(i);
+      }
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package com.xperfect.cn.helper.photo.view;
+
+import android.net.Uri;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Ordered set of sources of the same image at increasing resolutions, e.g. 512px, 1080px, 2160px
+ * and the original. {@link PhotoFrescoView} moves up and down the ladder as the zoom changes.
+ */
+public class ResolutionLadder {
+
+  public static final float DEFAULT_HYSTERESIS = 0.25f;
+  public static final float DEFAULT_PREFETCH_RATIO = 0.75f;
+
+  public static class Level {
+
+    private final Uri uri;
+    private final int maxDimension;
+
+    Level(Uri uri, int maxDimension) {
+      this.uri = uri;
+      this.maxDimension = maxDimension;
+    }
+
+    public Uri getUri() {
+      return uri;
+    }
+
+    /**
+     * @return the longest edge of this source, in pixels
+     */
+    public int getMaxDimension() {
+      return maxDimension;
+    }
+  }
+
+  private final List<Level> levels = new ArrayList<>();
+  private float hysteresis = DEFAULT_HYSTERESIS;
+  private float prefetchRatio = DEFAULT_PREFETCH_RATIO;
+
+  public static ResolutionLadder newInstance() {
+    return new ResolutionLadder();
+  }
+
+  /**
+   * @param maxDimension the longest edge of the source, in pixels
+   */
+  public ResolutionLadder addLevel(Uri uri, int maxDimension) {
+    levels.add(new Level(uri, maxDimension));
+    Collections.sort(levels, new Comparator<Level>() {
+      @Override
+      public int compare(Level lhs, Level rhs) {
+        return lhs.maxDimension < rhs.maxDimension ? -1
+            : (lhs.maxDimension == rhs.maxDimension ? 0 : 1);
+      }
+    });
+    return this;
+  }
+
+  /**
+   * @param hysteresis fraction below a level's size the required size must drop before moving
+   * down to it, avoids flip-flopping around a boundary
+   */
+  public ResolutionLadder setHysteresis(float hysteresis) {
+    this.hysteresis = hysteresis;
+    return this;
+  }
+
+  /**
+   * @param prefetchRatio fraction of the current level's size above which the next level is
+   * prefetched
+   */
+  public ResolutionLadder setPrefetchRatio(float prefetchRatio) {
+    this.prefetchRatio = prefetchRatio;
+    return this;
+  }
+
+  public int size() {
+    return levels.size();
+  }
+
+  public Level getLevel(int index) {
+    return levels.get(index);
+  }
+
+  /**
+   * Picks the level to show when the image is displayed with the given longest edge. Moving up
+   * happens as soon as the current level is too small, moving down only once the level below is
+   * comfortably large enough.
+   *
+   * @param current index of the level shown now, or -1
+   * @param requiredDimension displayed longest edge, in pixels
+   */
+  public int selectLevel(int current, float requiredDimension) {
+    int last = levels.size() - 1;
+    if (last < 0) {
+      return -1;
+    }
+    int level = Math.max(0, Math.min(current, last));
+    while (level < last && requiredDimension > levels.get(level).maxDimension) {
+      level++;
+    }
+    while (level > 0 &&
+        requiredDimension < levels.get(level - 1).maxDimension * (1 - hysteresis)) {
+      level--;
+    }
+    return level;
+  }
+
+  /**
+   * @return the level worth prefetching while the given one is shown, or -1
+   */
+  public int getPrefetchLevel(int current, float requiredDimension) {
+    if (current < 0 || current >= levels.size() - 1) {
+      return -1;
+    }
+    return requiredDimension > levels.get(current).maxDimension * prefetchRatio ? current + 1
+        : -1;
+  }
+}
@@ -0,0 +1,213 @@
+package com.xperfect.cn.helper.photo.view;
+
+import android.content.Context;
+import android.graphics.Matrix;
+import android.graphics.RectF;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import com.xperfect.cn.helper.photo.lib.AffineMatrix;
+import com.xperfect.cn.helper.photo.lib.DefaultTransformHelper;
+import com.xperfect.cn.helper.photo.lib.gestures.TouchStreamMerger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the zoom and pan of several {@link PhotoFrescoView}s locked together, e.g. to compare
+ * variants of a photo side by side or stacked under a swipe divider.
+ * <p>
+ * Touches on any of the views drive a single master {@link DefaultTransformHelper}, working in
+ * the coordinates of the first view added. Its transform is fanned out to every view, normalised
+ * so that the same relative point of each image ends up at the same relative place of each view,
+ * whatever their image and view sizes. The master is frame aligned, so all views receive their
+ * new transform, and are invalidated, together once per frame.
+ * <p>
+ * Touches on the views only drive the master, never their own helpers, even while the group
+ * cannot handle them yet. The touch streams of the views are merged into one, so that e.g. a pinch
+ * with a finger on each of two views zooms the group. As for a single view, a parent pager or scroll container takes over
+ * once the group is panned to its edge.
+ */
+public class SyncedPhotoGroup implements DefaultTransformHelper.Listener {
+
+  private final DefaultTransformHelper mMasterController = DefaultTransformHelper.newInstance();
+  private final List<PhotoFrescoView> mViews = new ArrayList<>();
+  private final List<Matrix> mTouchMatrices = new ArrayList<>();
+  private final List<Integer> mStreams = new ArrayList<>();
+  private final TouchStreamMerger mMerger = TouchStreamMerger.newInstance();
+  private int mNextStream;
+  private PhotoFrescoView mTouchedView;
+
+  private final AffineMatrix mMasterTransform = AffineMatrix.newInstance();
+  private final AffineMatrix mViewTransform = AffineMatrix.newInstance();
+  private final RectF mReferenceImageBounds = new RectF();
+  private final RectF mReferenceViewBounds = new RectF();
+  private final RectF mImageBounds = new RectF();
+  private final RectF mViewBounds = new RectF();
+  private boolean mTracking;
+
+  private final View.OnTouchListener mTouchListener = new View.OnTouchListener() {
+    @Override
+    public boolean onTouch(View v, MotionEvent event) {
+      return onViewTouch((PhotoFrescoView) v, event);
+    }
+  };
+
+  private final PhotoFrescoView.OnBoundsChangeListener mBoundsListener =
+      new PhotoFrescoView.OnBoundsChangeListener() {
+        @Override
+        public void onBoundsChanged(PhotoFrescoView view) {
+          // e.g. a variant whose image arrived after it was added
+          sync();
+        }
+      };
+
+  private final TouchStreamMerger.Listener mMergedListener = new TouchStreamMerger.Listener() {
+    @Override
+    public void onMergedEvent(MotionEvent event) {
+      if (mMasterController.onTouchEvent(event)) {
+        mTouchedView.updateParentIntercept(mMasterController, event);
+      }
+    }
+  };
+
+  public SyncedPhotoGroup(Context context) {
+    PhotoFrescoView.configureHelper(context, mMasterController);
+    mMasterController.setListener(this);
+    mMerger.setListener(mMergedListener);
+  }
+
+  public static SyncedPhotoGroup newInstance(Context context) {
+    return new SyncedPhotoGroup(context);
+  }
+
+  /**
+   * @return the helper all views follow, e.g. to enable or disable rotation for the group
+   */
+  public DefaultTransformHelper getMasterController() {
+    return mMasterController;
+  }
+
+  public void addView(PhotoFrescoView view) {
+    if (mViews.contains(view)) {
+      return;
+    }
+    mViews.add(view);
+    mTouchMatrices.add(new Matrix());
+    mStreams.add(mNextStream++);
+    view.setOnTouchListener(mTouchListener);
+    view.setOnBoundsChangeListener(mBoundsListener);
+    sync();
+  }
+
+  public void removeView(PhotoFrescoView view) {
+    int index = mViews.indexOf(view);
+    if (index < 0) {
+      return;
+    }
+    mViews.remove(index);
+    mTouchMatrices.remove(index);
+    mMerger.cancelStream(mStreams.remove(index), SystemClock.uptimeMillis());
+    view.setOnTouchListener(null);
+    view.setOnBoundsChangeListener(null);
+    view.getZoomableController().reset();
+    sync();
+  }
+
+  /**
+   * Applies the current transform to all views again. Called by the group whenever the image or
+   * view bounds of one of them change.
+   */
+  public void sync() {
+    if (updateReferenceBounds()) {
+      fanOut();
+    }
+  }
+
+  @Override
+  public void onTransformed(Matrix transform) {
+    fanOut();
+  }
+
+  private boolean onViewTouch(PhotoFrescoView view, MotionEvent event) {
+    int index = mViews.indexOf(view);
+    if (index < 0) {
+      return false;
+    }
+    if (event.getActionMasked() == MotionEvent.ACTION_DOWN && mMerger.getPointerCount() == 0) {
+      mTracking = updateReferenceBounds();
+      if (mTracking) {
+        // bring the touch mapping up to date with the current layout
+        fanOut();
+      }
+    }
+    if (!mTracking) {
+      // consumed all the same, the view's own helper would pan it away from the group
+      return true;
+    }
+    // into the coordinates of the reference view the master works in
+    MotionEvent masterEvent = MotionEvent.obtain(event);
+    if (!view.getMatrix().isIdentity()) {
+      // rendered through the view properties, see PhotoFrescoView#setRenderMode(int)
+      masterEvent.transform(view.getMatrix());
+    }
+    masterEvent.transform(mTouchMatrices.get(index));
+    mTouchedView = view;
+    mMerger.onTouchEvent(mStreams.get(index), masterEvent);
+    masterEvent.recycle();
+    return true;
+  }
+
+  /**
+   * @return whether the first view has been laid out and its image bounds are known
+   */
+  private boolean updateReferenceBounds() {
+    if (mViews.isEmpty()) {
+      return false;
+    }
+    PhotoFrescoView reference = mViews.get(0);
+    reference.getImageBounds(mReferenceImageBounds);
+    reference.getViewBounds(mReferenceViewBounds);
+    if (mReferenceImageBounds.isEmpty() || mReferenceViewBounds.isEmpty()) {
+      return false;
+    }
+    mMasterController.setObjectBounds(mReferenceImageBounds);
+    mMasterController.setViewBounds(mReferenceViewBounds);
+    mMasterController.setEnabled(true);
+    return true;
+  }
+
+  private void fanOut() {
+    mMasterController.getTransform(mMasterTransform);
+    for (int i = 0; i < mViews.size(); i++) {
+      PhotoFrescoView view = mViews.get(i);
+      view.getImageBounds(mImageBounds);
+      view.getViewBounds(mViewBounds);
+      if (mImageBounds.isEmpty() || mViewBounds.isEmpty()) {
+        continue;
+      }
+      AffineMatrix transform = mViewTransform;
+      transform.reset();
+      // this image onto the reference image
+      float imageScale = Math.min(mReferenceImageBounds.width() / mImageBounds.width(),
+          mReferenceImageBounds.height() / mImageBounds.height());
+      transform.postTranslate(-mImageBounds.centerX(), -mImageBounds.centerY());
+      transform.postScale(imageScale, imageScale, 0, 0);
+      transform.postTranslate(mReferenceImageBounds.centerX(), mReferenceImageBounds.centerY());
+      // the shared transform, in reference view coordinates
+      transform.postConcat(mMasterTransform);
+      // the reference view onto this view
+      float viewScale = Math.min(mViewBounds.width() / mReferenceViewBounds.width(),
+          mViewBounds.height() / mReferenceViewBounds.height());
+      transform.postTranslate(-mReferenceViewBounds.centerX(), -mReferenceViewBounds.centerY());
+      transform.postScale(viewScale, viewScale, 0, 0);
+      transform.postTranslate(mViewBounds.centerX(), mViewBounds.centerY());
+      // dispatched to the view, which invalidates itself; all of them land in the same traversal
+      view.getZoomableController().setTransform(transform);
+
+      Matrix touchMatrix = mTouchMatrices.get(i);
+      touchMatrix.setTranslate(-mViewBounds.centerX(), -mViewBounds.centerY());
+      touchMatrix.postScale(1 / viewScale, 1 / viewScale);
+      touchMatrix.postTranslate(mReferenceViewBounds.centerX(), mReferenceViewBounds.centerY());
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package com.xperfect.cn.helper.photo.benchmark;
+
+import android.view.MotionEvent;
+import com.xperfect.cn.helper.photo.lib.gestures.DefaultGestureDetector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of one ACTION_MOVE including the pointer statistics, and of reading all six gesture values
+ * the way a transform update does.
+ */
+@State(Scope.Thread)
+public class DefaultGestureDetectorBenchmark {
+
+  private static final int MOVES = 64;
+
+  @Param({"1", "2", "5"})
+  public int fingers;
+
+  private DefaultGestureDetector detector;
+  private MotionEvent[] moves;
+  private int position;
+
+  @Setup
+  public void setUp() {
+    detector = DefaultGestureDetector.newInstance();
+    for (MotionEvent event : GestureStreams.down(fingers, 0)) {
+      detector.onTouchEvent(event);
+    }
+    moves = GestureStreams.moves(fingers, MOVES, 0, 0);
+    detector.onTouchEvent(moves[0]);
+  }
+
+  @Benchmark
+  public boolean onTouchEvent() {
+    MotionEvent event = moves[position];
+    position = (position + 1) % MOVES;
+    return detector.onTouchEvent(event);
+  }
+
+  @Benchmark
+  public void getters(Blackhole blackhole) {
+    blackhole.consume(detector.getPivotX());
+    blackhole.consume(detector.getPivotY());
+    blackhole.consume(detector.getTranslationX());
+    blackhole.consume(detector.getTranslationY());
+    blackhole.consume(detector.getScale());
+    blackhole.consume(detector.getRotation());
+  }
+}
@@ -0,0 +1,60 @@
+package com.xperfect.cn.helper.photo.benchmark;
+
+import android.graphics.RectF;
+import android.view.MotionEvent;
+import com.xperfect.cn.helper.photo.lib.DefaultTransformHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of the per-event transform path: matrix composition, limitScale and limitTranslation. The
+ * object fills the view, so the synthetic pans keep hitting the translation limits and restarting
+ * the gesture, as they do on device.
+ */
+@State(Scope.Thread)
+public class DefaultTransformHelperBenchmark {
+
+  private static final int MOVES = 64;
+
+  @Param({"1", "2", "5"})
+  public int fingers;
+
+  private DefaultTransformHelper helper;
+  private MotionEvent[] moves;
+  private int position;
+
+  @Setup
+  public void setUp() {
+    RectF bounds = new RectF(0, 0, GestureStreams.VIEW_WIDTH, GestureStreams.VIEW_HEIGHT);
+    helper = DefaultTransformHelper.newInstance();
+    helper.setViewBounds(bounds);
+    helper.setObjectBounds(bounds);
+    for (MotionEvent event : GestureStreams.down(fingers, 0)) {
+      helper.onTouchEvent(event);
+    }
+    moves = GestureStreams.moves(fingers, MOVES, 0, 0);
+    helper.onTouchEvent(moves[0]);
+  }
+
+  /**
+   * Whole path of one move event, from the detector to the clamped transform.
+   */
+  @Benchmark
+  public boolean onTouchEvent() {
+    MotionEvent event = moves[position];
+    position = (position + 1) % MOVES;
+    return helper.onTouchEvent(event);
+  }
+
+  /**
+   * Transform update alone, for the gesture state left by the last move.
+   */
+  @Benchmark
+  public float onGestureUpdate() {
+    helper.onGestureUpdate(helper.getGestureDetector());
+    return helper.getScaleFactor();
+  }
+}
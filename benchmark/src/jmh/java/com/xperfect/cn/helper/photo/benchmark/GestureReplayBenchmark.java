@@ -0,0 +1,59 @@
+package com.xperfect.cn.helper.photo.benchmark;
+
+import android.graphics.RectF;
+import android.view.MotionEvent;
+import com.xperfect.cn.helper.photo.lib.DefaultTransformHelper;
+import com.xperfect.cn.helper.photo.lib.GestureRecorder;
+import com.xperfect.cn.helper.photo.lib.GestureReplayer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Throughput of whole recorded gestures, from down to up, replayed at maximum speed. The
+ * recording is built once from the synthetic streams; a recording dumped on device can be loaded
+ * with {@link GestureRecorder#readFrom(java.io.InputStream)} the same way.
+ */
+@State(Scope.Thread)
+public class GestureReplayBenchmark {
+
+  private static final int MOVES = 120;
+
+  @Param({"1", "2", "5"})
+  public int fingers;
+
+  @Param({"0", "3"})
+  public int historySize;
+
+  private DefaultTransformHelper helper;
+  private GestureReplayer replayer;
+
+  @Setup
+  public void setUp() {
+    RectF bounds = new RectF(0, 0, GestureStreams.VIEW_WIDTH, GestureStreams.VIEW_HEIGHT);
+    helper = DefaultTransformHelper.newInstance();
+    helper.setViewBounds(bounds);
+    helper.setObjectBounds(bounds);
+
+    GestureRecorder recorder = GestureRecorder.newInstance();
+    helper.setGestureRecorder(recorder);
+    for (MotionEvent event : GestureStreams.down(fingers, 0)) {
+      helper.onTouchEvent(event);
+    }
+    for (MotionEvent event : GestureStreams.moves(fingers, MOVES, 0, historySize)) {
+      helper.onTouchEvent(event);
+    }
+    for (MotionEvent event : GestureStreams.up(fingers, 0, 10000)) {
+      helper.onTouchEvent(event);
+    }
+    helper.setGestureRecorder(null);
+    replayer = GestureReplayer.newInstance(recorder);
+  }
+
+  @Benchmark
+  public int replay() {
+    return replayer.replay(helper);
+  }
+}
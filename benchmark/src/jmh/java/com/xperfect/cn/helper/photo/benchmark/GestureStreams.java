@@ -0,0 +1,116 @@
+package com.xperfect.cn.helper.photo.benchmark;
+
+import android.view.MotionEvent;
+import android.view.MotionEvent.PointerCoords;
+import android.view.MotionEvent.PointerProperties;
+
+/**
+ * Synthetic touch streams: the fingers sit on a circle around the middle of a phone sized view and
+ * the move events pan, pinch and twist them periodically.
+ */
+public final class GestureStreams {
+
+  public static final float VIEW_WIDTH = 1080;
+  public static final float VIEW_HEIGHT = 1920;
+
+  private static final float RADIUS = 200;
+  private static final long FRAME_MS = 8;
+
+  private GestureStreams() {
+  }
+
+  /**
+   * @return ACTION_DOWN followed by one ACTION_POINTER_DOWN per extra finger
+   */
+  public static MotionEvent[] down(int fingers, long downTime) {
+    MotionEvent[] events = new MotionEvent[fingers];
+    for (int count = 1; count <= fingers; count++) {
+      int action = count == 1 ? MotionEvent.ACTION_DOWN
+          : MotionEvent.ACTION_POINTER_DOWN
+              | ((count - 1) << MotionEvent.ACTION_POINTER_INDEX_SHIFT);
+      events[count - 1] = obtain(downTime, downTime, action, count, fingers, 0);
+    }
+    return events;
+  }
+
+  /**
+   * @param historySize batched samples per event in addition to the current one
+   * @return one period of move events, to be replayed cyclically
+   */
+  public static MotionEvent[] moves(int fingers, int count, long downTime, int historySize) {
+    MotionEvent[] events = new MotionEvent[count];
+    PointerCoords[] coords = newCoords(fingers);
+    long time = downTime;
+    for (int i = 0; i < count; i++) {
+      int samples = historySize + 1;
+      MotionEvent event = null;
+      for (int sample = 0; sample < samples; sample++) {
+        time += FRAME_MS / samples;
+        float phase = (float) (2 * Math.PI * (i * samples + sample) / (count * samples));
+        place(fingers, fingers, phase, coords);
+        if (event == null) {
+          event = MotionEvent.obtain(downTime, time, MotionEvent.ACTION_MOVE, fingers,
+              newProperties(fingers), coords, 0, 0, 1, 1, 0, 0, 0, 0);
+        } else {
+          event.addBatch(time, coords, 0);
+        }
+      }
+      events[i] = event;
+    }
+    return events;
+  }
+
+  /**
+   * @return one ACTION_POINTER_UP per extra finger, last finger first, then ACTION_UP
+   */
+  public static MotionEvent[] up(int fingers, long downTime, long eventTime) {
+    MotionEvent[] events = new MotionEvent[fingers];
+    for (int count = fingers; count >= 1; count--) {
+      int action = count == 1 ? MotionEvent.ACTION_UP
+          : MotionEvent.ACTION_POINTER_UP
+              | ((count - 1) << MotionEvent.ACTION_POINTER_INDEX_SHIFT);
+      events[fingers - count] = obtain(downTime, eventTime, action, count, fingers, 0);
+    }
+    return events;
+  }
+
+  private static MotionEvent obtain(long downTime, long eventTime, int action, int pointerCount,
+      int fingers, float phase) {
+    PointerCoords[] coords = newCoords(pointerCount);
+    place(pointerCount, fingers, phase, coords);
+    return MotionEvent.obtain(downTime, eventTime, action, pointerCount,
+        newProperties(pointerCount), coords, 0, 0, 1, 1, 0, 0, 0, 0);
+  }
+
+  private static void place(int pointerCount, int fingers, float phase, PointerCoords[] coords) {
+    float centerX = VIEW_WIDTH / 2 + 120 * (float) Math.sin(phase);
+    float centerY = VIEW_HEIGHT / 2 + 80 * (float) Math.cos(phase);
+    float radius = RADIUS * (1 + 0.3f * (float) Math.sin(2 * phase));
+    float rotation = 0.4f * (float) Math.sin(phase);
+    for (int i = 0; i < pointerCount; i++) {
+      double angle = 2 * Math.PI * i / fingers + rotation;
+      coords[i].x = centerX + radius * (float) Math.cos(angle);
+      coords[i].y = centerY + radius * (float) Math.sin(angle);
+    }
+  }
+
+  private static PointerProperties[] newProperties(int pointerCount) {
+    PointerProperties[] properties = new PointerProperties[pointerCount];
+    for (int i = 0; i < pointerCount; i++) {
+      properties[i] = new PointerProperties();
+      properties[i].id = i;
+      properties[i].toolType = MotionEvent.TOOL_TYPE_FINGER;
+    }
+    return properties;
+  }
+
+  private static PointerCoords[] newCoords(int pointerCount) {
+    PointerCoords[] coords = new PointerCoords[pointerCount];
+    for (int i = 0; i < pointerCount; i++) {
+      coords[i] = new PointerCoords();
+      coords[i].pressure = 1;
+      coords[i].size = 1;
+    }
+    return coords;
+  }
+}
@@ -0,0 +1,46 @@
+package com.xperfect.cn.helper.photo.benchmark;
+
+import android.view.MotionEvent;
+import com.xperfect.cn.helper.photo.lib.gestures.MultiPointerGestureDetector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of one ACTION_MOVE through the raw pointer bookkeeping.
+ */
+@State(Scope.Thread)
+public class MultiPointerGestureDetectorBenchmark {
+
+  private static final int MOVES = 64;
+
+  @Param({"1", "2", "5"})
+  public int fingers;
+
+  @Param({"0", "3"})
+  public int historySize;
+
+  private MultiPointerGestureDetector detector;
+  private MotionEvent[] moves;
+  private int position;
+
+  @Setup
+  public void setUp() {
+    detector = MultiPointerGestureDetector.newInstance();
+    detector.setHistoryMode(historySize > 0 ? MultiPointerGestureDetector.HISTORY_MODE_COALESCED
+        : MultiPointerGestureDetector.HISTORY_MODE_NONE);
+    for (MotionEvent event : GestureStreams.down(fingers, 0)) {
+      detector.onTouchEvent(event);
+    }
+    moves = GestureStreams.moves(fingers, MOVES, 0, historySize);
+  }
+
+  @Benchmark
+  public boolean onTouchEvent() {
+    MotionEvent event = moves[position];
+    position = (position + 1) % MOVES;
+    return detector.onTouchEvent(event);
+  }
+}
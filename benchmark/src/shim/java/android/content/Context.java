@@ -0,0 +1,7 @@
+package android.content;
+
+/**
+ * Pure-Java stand-in for the framework class, carries no state.
+ */
+public class Context {
+}
@@ -0,0 +1,190 @@
+package android.graphics;
+
+import java.util.Arrays;
+
+/**
+ * Pure-Java stand-in for the framework class, implementing the subset used by the transform
+ * engine with the same semantics.
+ */
+public class Matrix {
+
+  public static final int MSCALE_X = 0;
+  public static final int MSKEW_X = 1;
+  public static final int MTRANS_X = 2;
+  public static final int MSKEW_Y = 3;
+  public static final int MSCALE_Y = 4;
+  public static final int MTRANS_Y = 5;
+  public static final int MPERSP_0 = 6;
+  public static final int MPERSP_1 = 7;
+  public static final int MPERSP_2 = 8;
+
+  private final float[] values = new float[9];
+
+  public Matrix() {
+    reset();
+  }
+
+  public Matrix(Matrix src) {
+    set(src);
+  }
+
+  public void reset() {
+    Arrays.fill(values, 0);
+    values[MSCALE_X] = values[MSCALE_Y] = values[MPERSP_2] = 1;
+  }
+
+  public boolean isIdentity() {
+    return values[MSCALE_X] == 1 && values[MSKEW_X] == 0 && values[MTRANS_X] == 0
+        && values[MSKEW_Y] == 0 && values[MSCALE_Y] == 1 && values[MTRANS_Y] == 0
+        && values[MPERSP_0] == 0 && values[MPERSP_1] == 0 && values[MPERSP_2] == 1;
+  }
+
+  public void set(Matrix src) {
+    if (src == null) {
+      reset();
+    } else {
+      System.arraycopy(src.values, 0, values, 0, 9);
+    }
+  }
+
+  public void getValues(float[] dst) {
+    System.arraycopy(values, 0, dst, 0, 9);
+  }
+
+  public void setValues(float[] src) {
+    System.arraycopy(src, 0, values, 0, 9);
+  }
+
+  public boolean postTranslate(float dx, float dy) {
+    return postConcat(1, 0, dx, 0, 1, dy);
+  }
+
+  public boolean postScale(float sx, float sy, float px, float py) {
+    return postConcat(sx, 0, px - sx * px, 0, sy, py - sy * py);
+  }
+
+  public boolean postScale(float sx, float sy) {
+    return postConcat(sx, 0, 0, 0, sy, 0);
+  }
+
+  public boolean postRotate(float degrees, float px, float py) {
+    double radians = Math.toRadians(degrees);
+    float sin = (float) Math.sin(radians);
+    float cos = (float) Math.cos(radians);
+    return postConcat(cos, -sin, px - cos * px + sin * py, sin, cos, py - sin * px - cos * py);
+  }
+
+  public boolean postRotate(float degrees) {
+    return postRotate(degrees, 0, 0);
+  }
+
+  public boolean postConcat(Matrix other) {
+    float[] o = other.values;
+    return postConcat(o[MSCALE_X], o[MSKEW_X], o[MTRANS_X], o[MSKEW_Y], o[MSCALE_Y], o[MTRANS_Y]);
+  }
+
+  /**
+   * this = [a b c; d e f; 0 0 1] * this
+   */
+  private boolean postConcat(float a, float b, float c, float d, float e, float f) {
+    float[] v = values;
+    float m0 = a * v[0] + b * v[3] + c * v[6];
+    float m1 = a * v[1] + b * v[4] + c * v[7];
+    float m2 = a * v[2] + b * v[5] + c * v[8];
+    float m3 = d * v[0] + e * v[3] + f * v[6];
+    float m4 = d * v[1] + e * v[4] + f * v[7];
+    float m5 = d * v[2] + e * v[5] + f * v[8];
+    v[0] = m0;
+    v[1] = m1;
+    v[2] = m2;
+    v[3] = m3;
+    v[4] = m4;
+    v[5] = m5;
+    return true;
+  }
+
+  public boolean invert(Matrix inverse) {
+    float[] v = values;
+    float det = v[MSCALE_X] * v[MSCALE_Y] - v[MSKEW_X] * v[MSKEW_Y];
+    if (det == 0 || v[MPERSP_0] != 0 || v[MPERSP_1] != 0) {
+      return false;
+    }
+    float a = v[MSCALE_Y] / det;
+    float b = -v[MSKEW_X] / det;
+    float d = -v[MSKEW_Y] / det;
+    float e = v[MSCALE_X] / det;
+    float c = -(a * v[MTRANS_X] + b * v[MTRANS_Y]);
+    float f = -(d * v[MTRANS_X] + e * v[MTRANS_Y]);
+    float[] out = inverse.values;
+    out[MSCALE_X] = a;
+    out[MSKEW_X] = b;
+    out[MTRANS_X] = c;
+    out[MSKEW_Y] = d;
+    out[MSCALE_Y] = e;
+    out[MTRANS_Y] = f;
+    out[MPERSP_0] = out[MPERSP_1] = 0;
+    out[MPERSP_2] = 1;
+    return true;
+  }
+
+  public void mapPoints(float[] dst, int dstIndex, float[] src, int srcIndex, int pointCount) {
+    float[] v = values;
+    for (int i = 0; i < pointCount; i++) {
+      float x = src[srcIndex + i * 2];
+      float y = src[srcIndex + i * 2 + 1];
+      dst[dstIndex + i * 2] = v[MSCALE_X] * x + v[MSKEW_X] * y + v[MTRANS_X];
+      dst[dstIndex + i * 2 + 1] = v[MSKEW_Y] * x + v[MSCALE_Y] * y + v[MTRANS_Y];
+    }
+  }
+
+  public void mapPoints(float[] dst, float[] src) {
+    mapPoints(dst, 0, src, 0, src.length / 2);
+  }
+
+  public void mapPoints(float[] pts) {
+    mapPoints(pts, 0, pts, 0, pts.length / 2);
+  }
+
+  public float mapRadius(float radius) {
+    float[] v = values;
+    float d0 = (float) Math.hypot(v[MSCALE_X] * radius, v[MSKEW_Y] * radius);
+    float d1 = (float) Math.hypot(v[MSKEW_X] * radius, v[MSCALE_Y] * radius);
+    return (float) Math.sqrt(d0 * d1);
+  }
+
+  public boolean mapRect(RectF rect) {
+    return mapRect(rect, rect);
+  }
+
+  public boolean mapRect(RectF dst, RectF src) {
+    float[] v = values;
+    float x0 = v[MSCALE_X] * src.left + v[MSKEW_X] * src.top + v[MTRANS_X];
+    float y0 = v[MSKEW_Y] * src.left + v[MSCALE_Y] * src.top + v[MTRANS_Y];
+    float x1 = v[MSCALE_X] * src.right + v[MSKEW_X] * src.top + v[MTRANS_X];
+    float y1 = v[MSKEW_Y] * src.right + v[MSCALE_Y] * src.top + v[MTRANS_Y];
+    float x2 = v[MSCALE_X] * src.right + v[MSKEW_X] * src.bottom + v[MTRANS_X];
+    float y2 = v[MSKEW_Y] * src.right + v[MSCALE_Y] * src.bottom + v[MTRANS_Y];
+    float x3 = v[MSCALE_X] * src.left + v[MSKEW_X] * src.bottom + v[MTRANS_X];
+    float y3 = v[MSKEW_Y] * src.left + v[MSCALE_Y] * src.bottom + v[MTRANS_Y];
+    dst.left = Math.min(Math.min(x0, x1), Math.min(x2, x3));
+    dst.right = Math.max(Math.max(x0, x1), Math.max(x2, x3));
+    dst.top = Math.min(Math.min(y0, y1), Math.min(y2, y3));
+    dst.bottom = Math.max(Math.max(y0, y1), Math.max(y2, y3));
+    return v[MSKEW_X] == 0 && v[MSKEW_Y] == 0;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof Matrix && Arrays.equals(values, ((Matrix) obj).values);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(values);
+  }
+
+  @Override
+  public String toString() {
+    return "Matrix" + Arrays.toString(values);
+  }
+}
@@ -0,0 +1,28 @@
+package android.graphics;
+
+/**
+ * Pure-Java stand-in for the framework class.
+ */
+public class PointF {
+
+  public float x;
+  public float y;
+
+  public PointF() {
+  }
+
+  public PointF(float x, float y) {
+    this.x = x;
+    this.y = y;
+  }
+
+  public final void set(float x, float y) {
+    this.x = x;
+    this.y = y;
+  }
+
+  @Override
+  public String toString() {
+    return "PointF(" + x + ", " + y + ")";
+  }
+}
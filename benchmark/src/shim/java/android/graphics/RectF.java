@@ -0,0 +1,89 @@
+package android.graphics;
+
+/**
+ * Pure-Java stand-in for the framework class.
+ */
+public class RectF {
+
+  public float left;
+  public float top;
+  public float right;
+  public float bottom;
+
+  public RectF() {
+  }
+
+  public RectF(float left, float top, float right, float bottom) {
+    set(left, top, right, bottom);
+  }
+
+  public RectF(RectF r) {
+    set(r);
+  }
+
+  public final boolean isEmpty() {
+    return left >= right || top >= bottom;
+  }
+
+  public final float width() {
+    return right - left;
+  }
+
+  public final float height() {
+    return bottom - top;
+  }
+
+  public final float centerX() {
+    return (left + right) * 0.5f;
+  }
+
+  public final float centerY() {
+    return (top + bottom) * 0.5f;
+  }
+
+  public void setEmpty() {
+    left = right = top = bottom = 0;
+  }
+
+  public void set(float left, float top, float right, float bottom) {
+    this.left = left;
+    this.top = top;
+    this.right = right;
+    this.bottom = bottom;
+  }
+
+  public void set(RectF src) {
+    set(src.left, src.top, src.right, src.bottom);
+  }
+
+  public void offset(float dx, float dy) {
+    left += dx;
+    right += dx;
+    top += dy;
+    bottom += dy;
+  }
+
+  public boolean contains(float x, float y) {
+    return left < right && top < bottom && x >= left && x < right && y >= top && y < bottom;
+  }
+
+  public boolean intersect(float left, float top, float right, float bottom) {
+    if (this.left < right && left < this.right && this.top < bottom && top < this.bottom) {
+      this.left = Math.max(this.left, left);
+      this.top = Math.max(this.top, top);
+      this.right = Math.min(this.right, right);
+      this.bottom = Math.min(this.bottom, bottom);
+      return true;
+    }
+    return false;
+  }
+
+  public boolean intersect(RectF r) {
+    return intersect(r.left, r.top, r.right, r.bottom);
+  }
+
+  @Override
+  public String toString() {
+    return "RectF(" + left + ", " + top + ", " + right + ", " + bottom + ")";
+  }
+}
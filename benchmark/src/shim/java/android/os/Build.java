@@ -0,0 +1,21 @@
+package android.os;
+
+/**
+ * Pure-Java stand-in for the framework class, reports the newest platform the shims model.
+ */
+public class Build {
+
+  public static class VERSION {
+
+    public static final int SDK_INT = VERSION_CODES.P;
+  }
+
+  public static class VERSION_CODES {
+
+    public static final int ICE_CREAM_SANDWICH = 14;
+    public static final int JELLY_BEAN = 16;
+    public static final int KITKAT = 19;
+    public static final int LOLLIPOP = 21;
+    public static final int P = 28;
+  }
+}
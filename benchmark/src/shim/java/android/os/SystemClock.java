@@ -0,0 +1,14 @@
+package android.os;
+
+/**
+ * Pure-Java stand-in for the framework class.
+ */
+public final class SystemClock {
+
+  private SystemClock() {
+  }
+
+  public static long uptimeMillis() {
+    return System.nanoTime() / 1000000L;
+  }
+}
@@ -0,0 +1,51 @@
+package android.view;
+
+import java.util.ArrayList;
+
+/**
+ * Pure-Java stand-in for the framework class. Frames are not driven by a display, callers pump
+ * them with {@link #doFrame(long)}.
+ */
+public class Choreographer {
+
+  public interface FrameCallback {
+
+    void doFrame(long frameTimeNanos);
+  }
+
+  private static final ThreadLocal<Choreographer> INSTANCE = new ThreadLocal<Choreographer>() {
+    @Override
+    protected Choreographer initialValue() {
+      return new Choreographer();
+    }
+  };
+
+  private final ArrayList<FrameCallback> callbacks = new ArrayList<>();
+  private final ArrayList<FrameCallback> running = new ArrayList<>();
+
+  public static Choreographer getInstance() {
+    return INSTANCE.get();
+  }
+
+  public void postFrameCallback(FrameCallback callback) {
+    callbacks.add(callback);
+  }
+
+  public void removeFrameCallback(FrameCallback callback) {
+    while (callbacks.remove(callback)) {
+      // remove every posting
+    }
+  }
+
+  /**
+   * Runs the callbacks posted so far, callbacks posted while running wait for the next frame.
+   */
+  public void doFrame(long frameTimeNanos) {
+    running.addAll(callbacks);
+    callbacks.clear();
+    for (int i = 0; i < running.size(); i++) {
+      running.get(i).doFrame(frameTimeNanos);
+    }
+    running.clear();
+  }
+}
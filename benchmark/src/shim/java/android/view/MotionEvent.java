@@ -0,0 +1,274 @@
+package android.view;
+
+/**
+ * Pure-Java stand-in for the framework class, implementing the subset used by the gesture engine
+ * with the same semantics: sample {@code getHistorySize()} is the current one and every earlier
+ * sample is historical. Instances are pooled like the framework's.
+ */
+public final class MotionEvent {
+
+  public static final int INVALID_POINTER_ID = -1;
+  public static final int ACTION_MASK = 0xff;
+  public static final int ACTION_DOWN = 0;
+  public static final int ACTION_UP = 1;
+  public static final int ACTION_MOVE = 2;
+  public static final int ACTION_CANCEL = 3;
+  public static final int ACTION_OUTSIDE = 4;
+  public static final int ACTION_POINTER_DOWN = 5;
+  public static final int ACTION_POINTER_UP = 6;
+  public static final int ACTION_POINTER_INDEX_MASK = 0xff00;
+  public static final int ACTION_POINTER_INDEX_SHIFT = 8;
+  public static final int TOOL_TYPE_FINGER = 1;
+
+  private static final int MAX_POOL_SIZE = 10;
+  private static final Object POOL_LOCK = new Object();
+  private static MotionEvent sPool;
+  private static int sPoolSize;
+
+  public static final class PointerProperties {
+
+    public int id;
+    public int toolType;
+
+    public void clear() {
+      id = INVALID_POINTER_ID;
+      toolType = 0;
+    }
+
+    public void copyFrom(PointerProperties other) {
+      id = other.id;
+      toolType = other.toolType;
+    }
+  }
+
+  public static final class PointerCoords {
+
+    public float x;
+    public float y;
+    public float pressure;
+    public float size;
+
+    public void clear() {
+      x = y = pressure = size = 0;
+    }
+
+    public void copyFrom(PointerCoords other) {
+      x = other.x;
+      y = other.y;
+      pressure = other.pressure;
+      size = other.size;
+    }
+  }
+
+  private MotionEvent next;
+  private long downTime;
+  private int action;
+  private int metaState;
+  private int pointerCount;
+  private int[] pointerIds = new int[0];
+  private int sampleCount;
+  private long[] eventTimes = new long[0];
+  /**
+   * [sample][pointer] flattened, x and y interleaved.
+   */
+  private float[] coords = new float[0];
+
+  private MotionEvent() {
+  }
+
+  private static MotionEvent obtain() {
+    synchronized (POOL_LOCK) {
+      MotionEvent event = sPool;
+      if (event == null) {
+        return new MotionEvent();
+      }
+      sPool = event.next;
+      sPoolSize--;
+      event.next = null;
+      return event;
+    }
+  }
+
+  public static MotionEvent obtain(long downTime, long eventTime, int action, int pointerCount,
+      PointerProperties[] pointerProperties, PointerCoords[] pointerCoords, int metaState,
+      int buttonState, float xPrecision, float yPrecision, int deviceId, int edgeFlags,
+      int source, int flags) {
+    MotionEvent event = obtain();
+    event.downTime = downTime;
+    event.action = action;
+    event.metaState = metaState;
+    event.pointerCount = pointerCount;
+    if (event.pointerIds.length < pointerCount) {
+      event.pointerIds = new int[pointerCount];
+    }
+    for (int i = 0; i < pointerCount; i++) {
+      event.pointerIds[i] = pointerProperties[i].id;
+    }
+    event.sampleCount = 0;
+    event.appendSample(eventTime, pointerCoords);
+    return event;
+  }
+
+  public static MotionEvent obtain(long downTime, long eventTime, int action, float x, float y,
+      int metaState) {
+    MotionEvent event = obtain();
+    event.downTime = downTime;
+    event.action = action;
+    event.metaState = metaState;
+    event.pointerCount = 1;
+    if (event.pointerIds.length < 1) {
+      event.pointerIds = new int[1];
+    }
+    event.pointerIds[0] = 0;
+    event.sampleCount = 0;
+    event.ensureSampleCapacity(1);
+    event.eventTimes[0] = eventTime;
+    event.coords[0] = x;
+    event.coords[1] = y;
+    event.sampleCount = 1;
+    return event;
+  }
+
+  public static MotionEvent obtain(MotionEvent other) {
+    MotionEvent event = obtain();
+    event.downTime = other.downTime;
+    event.action = other.action;
+    event.metaState = other.metaState;
+    event.pointerCount = other.pointerCount;
+    event.pointerIds = other.pointerIds.clone();
+    event.sampleCount = other.sampleCount;
+    event.eventTimes = other.eventTimes.clone();
+    event.coords = other.coords.clone();
+    return event;
+  }
+
+  public void recycle() {
+    synchronized (POOL_LOCK) {
+      if (sPoolSize < MAX_POOL_SIZE) {
+        next = sPool;
+        sPool = this;
+        sPoolSize++;
+      }
+    }
+  }
+
+  public void addBatch(long eventTime, PointerCoords[] pointerCoords, int metaState) {
+    this.metaState = metaState;
+    appendSample(eventTime, pointerCoords);
+  }
+
+  private void appendSample(long eventTime, PointerCoords[] pointerCoords) {
+    ensureSampleCapacity(sampleCount + 1);
+    eventTimes[sampleCount] = eventTime;
+    int base = sampleCount * pointerCount * 2;
+    for (int i = 0; i < pointerCount; i++) {
+      coords[base + i * 2] = pointerCoords[i].x;
+      coords[base + i * 2 + 1] = pointerCoords[i].y;
+    }
+    sampleCount++;
+  }
+
+  private void ensureSampleCapacity(int samples) {
+    if (eventTimes.length < samples) {
+      long[] times = new long[Math.max(samples, eventTimes.length * 2)];
+      System.arraycopy(eventTimes, 0, times, 0, eventTimes.length);
+      eventTimes = times;
+    }
+    int needed = samples * pointerCount * 2;
+    if (coords.length < needed) {
+      float[] values = new float[Math.max(needed, coords.length * 2)];
+      System.arraycopy(coords, 0, values, 0, coords.length);
+      coords = values;
+    }
+  }
+
+  public int getAction() {
+    return action;
+  }
+
+  public void setAction(int action) {
+    this.action = action;
+  }
+
+  public int getActionMasked() {
+    return action & ACTION_MASK;
+  }
+
+  public int getActionIndex() {
+    return (action & ACTION_POINTER_INDEX_MASK) >> ACTION_POINTER_INDEX_SHIFT;
+  }
+
+  public int getMetaState() {
+    return metaState;
+  }
+
+  public long getDownTime() {
+    return downTime;
+  }
+
+  public long getEventTime() {
+    return eventTimes[sampleCount - 1];
+  }
+
+  public int getPointerCount() {
+    return pointerCount;
+  }
+
+  public int getPointerId(int pointerIndex) {
+    return pointerIds[pointerIndex];
+  }
+
+  public int findPointerIndex(int pointerId) {
+    for (int i = 0; i < pointerCount; i++) {
+      if (pointerIds[i] == pointerId) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  public float getX() {
+    return getX(0);
+  }
+
+  public float getY() {
+    return getY(0);
+  }
+
+  public float getX(int pointerIndex) {
+    return coords[((sampleCount - 1) * pointerCount + pointerIndex) * 2];
+  }
+
+  public float getY(int pointerIndex) {
+    return coords[((sampleCount - 1) * pointerCount + pointerIndex) * 2 + 1];
+  }
+
+  public int getHistorySize() {
+    return sampleCount - 1;
+  }
+
+  public long getHistoricalEventTime(int pos) {
+    return eventTimes[pos];
+  }
+
+  public float getHistoricalX(int pointerIndex, int pos) {
+    return coords[(pos * pointerCount + pointerIndex) * 2];
+  }
+
+  public float getHistoricalY(int pointerIndex, int pos) {
+    return coords[(pos * pointerCount + pointerIndex) * 2 + 1];
+  }
+
+  public void offsetLocation(float deltaX, float deltaY) {
+    for (int i = 0; i < sampleCount * pointerCount; i++) {
+      coords[i * 2] += deltaX;
+      coords[i * 2 + 1] += deltaY;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "MotionEvent{action=" + action + ", pointerCount=" + pointerCount
+        + ", historySize=" + getHistorySize() + ", eventTime=" + getEventTime() + "}";
+  }
+}
@@ -0,0 +1,27 @@
+package android.view;
+
+import android.content.Context;
+
+/**
+ * Pure-Java stand-in for the framework class, with the default values of an mdpi device.
+ */
+public class ViewConfiguration {
+
+  private static final ViewConfiguration DEFAULT = new ViewConfiguration();
+
+  public static ViewConfiguration get(Context context) {
+    return DEFAULT;
+  }
+
+  public int getScaledTouchSlop() {
+    return 8;
+  }
+
+  public int getScaledMinimumFlingVelocity() {
+    return 50;
+  }
+
+  public int getScaledMaximumFlingVelocity() {
+    return 8000;
+  }
+}
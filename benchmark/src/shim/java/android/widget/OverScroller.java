@@ -0,0 +1,80 @@
+package android.widget;
+
+import android.content.Context;
+
+/**
+ * Pure-Java stand-in for the framework class, with a constant deceleration fling.
+ */
+public class OverScroller {
+
+  private static final float DECELERATION = 2000f;
+
+  private int startX;
+  private int startY;
+  private int minX;
+  private int maxX;
+  private int minY;
+  private int maxY;
+  private float velocityX;
+  private float velocityY;
+  private long startTime;
+  private long duration;
+  private int currX;
+  private int currY;
+  private boolean finished = true;
+
+  public OverScroller(Context context) {
+  }
+
+  public void fling(int startX, int startY, int velocityX, int velocityY,
+      int minX, int maxX, int minY, int maxY) {
+    this.startX = currX = startX;
+    this.startY = currY = startY;
+    this.velocityX = velocityX;
+    this.velocityY = velocityY;
+    this.minX = minX;
+    this.maxX = maxX;
+    this.minY = minY;
+    this.maxY = maxY;
+    float speed = (float) Math.hypot(velocityX, velocityY);
+    duration = (long) (speed / DECELERATION * 1000);
+    startTime = System.nanoTime() / 1000000L;
+    finished = duration <= 0;
+  }
+
+  public boolean computeScrollOffset() {
+    if (finished) {
+      return false;
+    }
+    long elapsed = System.nanoTime() / 1000000L - startTime;
+    if (elapsed >= duration) {
+      elapsed = duration;
+      finished = true;
+    }
+    float t = elapsed / 1000f;
+    float progress = t - t * t * DECELERATION / (2 * (float) Math.hypot(velocityX, velocityY));
+    currX = clamp(startX + Math.round(velocityX * progress), minX, maxX);
+    currY = clamp(startY + Math.round(velocityY * progress), minY, maxY);
+    return true;
+  }
+
+  public int getCurrX() {
+    return currX;
+  }
+
+  public int getCurrY() {
+    return currY;
+  }
+
+  public boolean isFinished() {
+    return finished;
+  }
+
+  public void forceFinished(boolean finished) {
+    this.finished = finished;
+  }
+
+  private static int clamp(int value, int min, int max) {
+    return Math.max(min, Math.min(max, value));
+  }
+}
@@ -0,0 +1,122 @@
+package com.xperfect.cn.helper.photo.lib;
+
+import static org.junit.Assert.assertEquals;
+
+import android.graphics.RectF;
+import android.view.Choreographer;
+import android.view.MotionEvent;
+import android.view.MotionEvent.PointerCoords;
+import android.view.MotionEvent.PointerProperties;
+import org.junit.Test;
+
+/**
+ * Double tap zoom driven entirely by event times, a manual clock and pumped frames.
+ */
+public class ClickZoomTest {
+
+  private static final long MS = 1000000L;
+
+  private long now = 5000 * MS;
+
+  private final Clock clock = new Clock() {
+    @Override
+    public long nanoTime() {
+      return now;
+    }
+  };
+
+  @Test
+  public void doubleTap_zoomsInOverAnimationDuration() {
+    DefaultTransformHelper helper = DefaultTransformHelper.newInstance();
+    helper.setClock(clock);
+    helper.setObjectBounds(new RectF(0, 0, 1000, 1000));
+    helper.setViewBounds(new RectF(0, 0, 1000, 1000));
+
+    long eventTime = now / MS;
+    tap(helper, eventTime);
+    tap(helper, eventTime + 100);
+    ZoomAnimator animator = helper.getZoomAnimator();
+    assertEquals(true, animator.isRunning());
+
+    long duration = ZoomAnimator.DEFAULT_DURATION_MS * MS;
+    Choreographer.getInstance().doFrame(now + duration / 2);
+    // decelerated: 1 - (1 - 0.5)^2 of the way from 1 to 2
+    assertEquals(1.75f, helper.getScaleFactor(), 1e-4);
+    Choreographer.getInstance().doFrame(now + duration);
+    assertEquals(2, helper.getScaleFactor(), 1e-4);
+    assertEquals(false, animator.isRunning());
+  }
+
+  @Test
+  public void repeatedDoubleTaps_stopAtMaxScale() {
+    DefaultTransformHelper helper = DefaultTransformHelper.newInstance();
+    helper.setClock(clock);
+    helper.setObjectBounds(new RectF(0, 0, 1000, 1000));
+    helper.setViewBounds(new RectF(0, 0, 1000, 1000));
+    helper.setMaxScaleFactor(3);
+
+    long eventTime = now / MS;
+    for (int i = 0; i < 4; i++) {
+      tap(helper, eventTime);
+      tap(helper, eventTime + 100);
+      eventTime += 1000;
+      now += ZoomAnimator.DEFAULT_DURATION_MS * MS;
+      Choreographer.getInstance().doFrame(now);
+    }
+    assertEquals(3, helper.getScaleFactor(), 1e-4);
+  }
+
+  @Test
+  public void twoFingerDoubleTap_staysAtMinScale() {
+    DefaultTransformHelper helper = DefaultTransformHelper.newInstance();
+    helper.setClock(clock);
+    helper.setObjectBounds(new RectF(0, 0, 1000, 1000));
+    helper.setViewBounds(new RectF(0, 0, 1000, 1000));
+
+    long eventTime = now / MS;
+    twoFingerTap(helper, eventTime);
+    twoFingerTap(helper, eventTime + 150);
+    Choreographer.getInstance().doFrame(now + ZoomAnimator.DEFAULT_DURATION_MS * MS);
+    // halving from 1 is clamped back to the minimum
+    assertEquals(1, helper.getScaleFactor(), 1e-4);
+  }
+
+  private void tap(DefaultTransformHelper helper, long eventTime) {
+    MotionEvent down = MotionEvent.obtain(eventTime, eventTime, MotionEvent.ACTION_DOWN, 500, 500,
+        0);
+    helper.onTouchEvent(down);
+    down.recycle();
+    MotionEvent up = MotionEvent.obtain(eventTime, eventTime + 50, MotionEvent.ACTION_UP, 500, 500,
+        0);
+    helper.onTouchEvent(up);
+    up.recycle();
+  }
+
+  private void twoFingerTap(DefaultTransformHelper helper, long eventTime) {
+    send(helper, eventTime, eventTime, MotionEvent.ACTION_DOWN, 1);
+    send(helper, eventTime, eventTime + 10, MotionEvent.ACTION_POINTER_DOWN, 2);
+    send(helper, eventTime, eventTime + 40, MotionEvent.ACTION_POINTER_UP, 2);
+    send(helper, eventTime, eventTime + 50, MotionEvent.ACTION_UP, 1);
+  }
+
+  /**
+   * Sends an event of the first {@code pointerCount} fingers, the last one being the acting one.
+   */
+  private void send(DefaultTransformHelper helper, long downTime, long eventTime, int action,
+      int pointerCount) {
+    PointerProperties[] properties = new PointerProperties[pointerCount];
+    PointerCoords[] coords = new PointerCoords[pointerCount];
+    for (int i = 0; i < pointerCount; i++) {
+      properties[i] = new PointerProperties();
+      properties[i].id = i;
+      coords[i] = new PointerCoords();
+      coords[i].x = 400 + 200 * i;
+      coords[i].y = 500;
+    }
+    MotionEvent event = MotionEvent.obtain(downTime, eventTime,
+        action | ((pointerCount - 1) << MotionEvent.ACTION_POINTER_INDEX_SHIFT), pointerCount,
+        properties, coords, 0, 0, 1, 1, 0, 0, 0, 0);
+    helper.onTouchEvent(event);
+    event.recycle();
+  }
+}
@@ -0,0 +1,164 @@
+package com.xperfect.cn.helper.photo.lib;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import android.graphics.RectF;
+import android.view.MotionEvent;
+import android.view.MotionEvent.PointerCoords;
+import android.view.MotionEvent.PointerProperties;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+
+/**
+ * Records a two finger pinch, twist and pan and checks that replaying it, directly or through a
+ * dump, ends on the same transform as the golden values captured from the engine.
+ */
+public class GestureReplayTest {
+
+  private static final float VIEW_WIDTH = 1080;
+  private static final float VIEW_HEIGHT = 1920;
+  private static final int MOVES = 40;
+  private static final int HISTORY_SIZE = 2;
+
+  /**
+   * Scale 2, rotated by 30 degrees, translation clamped to keep the view covered.
+   */
+  private static final float[] GOLDEN = {
+      1.7320508f, -1.0f, 926.9873f,
+      1.0f, 1.7320508f, -1012.76874f
+  };
+
+  @Test
+  public void recordedGesture_matchesGolden() {
+    DefaultTransformHelper helper = newHelper();
+    GestureRecorder recorder = GestureRecorder.newInstance();
+    helper.setGestureRecorder(recorder);
+    int events = feedGesture(helper);
+
+    assertEquals(events + MOVES * HISTORY_SIZE, recorder.size());
+    assertTransform(GOLDEN, helper);
+  }
+
+  @Test
+  public void replay_reproducesTransform() throws IOException {
+    DefaultTransformHelper recorded = newHelper();
+    GestureRecorder recorder = GestureRecorder.newInstance();
+    recorded.setGestureRecorder(recorder);
+    int events = feedGesture(recorded);
+
+    DefaultTransformHelper replayed = newHelper();
+    assertEquals(events, GestureReplayer.newInstance(recorder).replay(replayed));
+    assertTransform(values(recorded), replayed);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    recorder.writeTo(out);
+    GestureRecorder loaded = GestureRecorder.readFrom(new ByteArrayInputStream(out.toByteArray()));
+    DefaultTransformHelper reloaded = newHelper();
+    GestureReplayer.newInstance(loaded).replay(reloaded);
+    assertTransform(values(recorded), reloaded);
+  }
+
+  @Test
+  public void wrappedRecording_startsAtNextDown() {
+    DefaultTransformHelper recorded = newHelper();
+    GestureRecorder recorder = GestureRecorder.newInstance(MOVES * (HISTORY_SIZE + 1));
+    recorded.setGestureRecorder(recorder);
+    feedGesture(recorded);
+    recorded.setGestureRecorder(null);
+
+    // the oldest samples, including the only ACTION_DOWN, were overwritten
+    assertEquals(0, GestureReplayer.newInstance(recorder).replay(newHelper()));
+  }
+
+  private static DefaultTransformHelper newHelper() {
+    DefaultTransformHelper helper = DefaultTransformHelper.newInstance();
+    helper.setViewBounds(new RectF(0, 0, VIEW_WIDTH, VIEW_HEIGHT));
+    helper.setObjectBounds(new RectF(0, 0, VIEW_WIDTH, VIEW_HEIGHT));
+    return helper;
+  }
+
+  /**
+   * @return number of events dispatched
+   */
+  private static int feedGesture(DefaultTransformHelper helper) {
+    PointerProperties[] properties = new PointerProperties[2];
+    PointerCoords[] coords = new PointerCoords[2];
+    for (int i = 0; i < 2; i++) {
+      properties[i] = new PointerProperties();
+      properties[i].id = i;
+      properties[i].toolType = MotionEvent.TOOL_TYPE_FINGER;
+      coords[i] = new PointerCoords();
+      coords[i].pressure = 1;
+      coords[i].size = 1;
+    }
+    long time = 1000;
+    int events = 0;
+    place(0, coords);
+    events += dispatch(helper, MotionEvent.obtain(time, time, MotionEvent.ACTION_DOWN, 1,
+        properties, coords, 0, 0, 1, 1, 0, 0, 0, 0));
+    time += 4;
+    events += dispatch(helper, MotionEvent.obtain(1000, time,
+        MotionEvent.ACTION_POINTER_DOWN | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT), 2,
+        properties, coords, 0, 0, 1, 1, 0, 0, 0, 0));
+    int samples = HISTORY_SIZE + 1;
+    for (int i = 0; i < MOVES; i++) {
+      MotionEvent event = null;
+      for (int sample = 0; sample < samples; sample++) {
+        time += 4;
+        place((float) (i * samples + sample + 1) / (MOVES * samples), coords);
+        if (event == null) {
+          event = MotionEvent.obtain(1000, time, MotionEvent.ACTION_MOVE, 2, properties, coords,
+              0, 0, 1, 1, 0, 0, 0, 0);
+        } else {
+          event.addBatch(time, coords, 0);
+        }
+      }
+      events += dispatch(helper, event);
+    }
+    time += 4;
+    events += dispatch(helper, MotionEvent.obtain(1000, time,
+        MotionEvent.ACTION_POINTER_UP | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT), 2,
+        properties, coords, 0, 0, 1, 1, 0, 0, 0, 0));
+    time += 4;
+    events += dispatch(helper, MotionEvent.obtain(1000, time, MotionEvent.ACTION_UP, 1,
+        properties, coords, 0, 0, 1, 1, 0, 0, 0, 0));
+    return events;
+  }
+
+  /**
+   * Fingers spread to twice their distance, twist by 30 degrees and drift to the right.
+   */
+  private static void place(float progress, PointerCoords[] coords) {
+    float centerX = 400 + 150 * progress;
+    float centerY = 900 - 60 * progress;
+    float radius = 150 * (1 + progress);
+    double angle = Math.toRadians(30 * progress);
+    for (int i = 0; i < 2; i++) {
+      double fingerAngle = angle + Math.PI * i;
+      coords[i].x = centerX + radius * (float) Math.cos(fingerAngle);
+      coords[i].y = centerY + radius * (float) Math.sin(fingerAngle);
+    }
+  }
+
+  private static int dispatch(DefaultTransformHelper helper, MotionEvent event) {
+    helper.onTouchEvent(event);
+    event.recycle();
+    return 1;
+  }
+
+  private static float[] values(DefaultTransformHelper helper) {
+    AffineMatrix transform = AffineMatrix.newInstance();
+    helper.getTransform(transform);
+    return new float[]{
+        transform.getScaleX(), transform.getSkewX(), transform.getTransX(),
+        transform.getSkewY(), transform.getScaleY(), transform.getTransY()
+    };
+  }
+
+  private static void assertTransform(float[] expected, DefaultTransformHelper helper) {
+    assertArrayEquals(expected, values(helper), 1e-3f);
+  }
+}
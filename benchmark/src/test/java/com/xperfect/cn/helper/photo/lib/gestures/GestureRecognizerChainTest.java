@@ -0,0 +1,214 @@
+package com.xperfect.cn.helper.photo.lib.gestures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.RectF;
+import android.view.MotionEvent;
+import android.view.MotionEvent.PointerCoords;
+import android.view.MotionEvent.PointerProperties;
+import com.xperfect.cn.helper.photo.lib.DefaultTransformHelper;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Recognition and arbitration of the built-in recognizers, fed through one chain.
+ */
+public class GestureRecognizerChainTest {
+
+  private final GestureRecognizerChain chain = GestureRecognizerChain.newInstance();
+  private final List<String> log = new ArrayList<>();
+  private long time = 1000;
+  private long downTime;
+
+  @Test
+  public void tapAndDoubleTap_recognizedTogether() {
+    TapRecognizer tap = add("tap", TapRecognizer.newInstance(1, 1));
+    TapRecognizer doubleTap = add("double", TapRecognizer.newInstance(2, 1));
+    tap(100, 100);
+    assertLog("tap:3");
+    tap(110, 100);
+    assertLog("tap:3", "double:3");
+    assertEquals(GestureRecognizer.STATE_ENDED, doubleTap.getState());
+    assertEquals(110, doubleTap.getX(), 0);
+
+    // too late for a double tap
+    time += 1000;
+    tap(100, 100);
+    assertLog("tap:3");
+    assertEquals(GestureRecognizer.STATE_ENDED, tap.getState());
+  }
+
+  @Test
+  public void longPress_beginsOnTimeoutAndFollowsPointer() {
+    add("tap", TapRecognizer.newInstance(1, 1));
+    LongPressRecognizer longPress = add("long", LongPressRecognizer.newInstance());
+    send(MotionEvent.ACTION_DOWN, 0, 100, 100);
+    assertEquals(time + LongPressRecognizer.DEFAULT_LONG_PRESS_TIMEOUT, chain.getNextTimeout());
+    chain.onTimeout(time + 100);
+    assertLog();
+    time += LongPressRecognizer.DEFAULT_LONG_PRESS_TIMEOUT;
+    chain.onTimeout(time);
+    assertLog("long:1");
+    assertEquals(GestureRecognizer.NO_TIMEOUT, chain.getNextTimeout());
+    send(MotionEvent.ACTION_MOVE, 0, 150, 120);
+    assertEquals(150, longPress.getX(), 0);
+    send(MotionEvent.ACTION_UP, 0, 150, 120);
+    assertLog("long:2", "long:3");
+  }
+
+  @Test
+  public void pinchAndRotate_runTogether() {
+    TapRecognizer tap = add("tap", TapRecognizer.newInstance(1, 1));
+    PinchRecognizer pinch = add("pinch", PinchRecognizer.newInstance());
+    RotateRecognizer rotate = add("rotate", RotateRecognizer.newInstance());
+    send(MotionEvent.ACTION_DOWN, 0, 400, 500);
+    send(MotionEvent.ACTION_POINTER_DOWN, 1, 400, 500, 600, 500);
+    // twice the distance, a quarter turn
+    send(MotionEvent.ACTION_MOVE, 0, 500, 400, 500, 800);
+    assertEquals(GestureRecognizer.STATE_FAILED, tap.getState());
+    assertEquals(GestureRecognizer.STATE_BEGAN, pinch.getState());
+    assertEquals(GestureRecognizer.STATE_BEGAN, rotate.getState());
+    assertEquals(2, pinch.getScale(), 1e-4);
+    assertEquals(Math.PI / 2, rotate.getRotation(), 1e-4);
+    send(MotionEvent.ACTION_POINTER_UP, 1, 500, 400, 500, 800);
+    assertEquals(GestureRecognizer.STATE_ENDED, pinch.getState());
+    assertEquals(GestureRecognizer.STATE_ENDED, rotate.getState());
+  }
+
+  @Test
+  public void higherPriority_cancelsActiveGesture() {
+    PinchRecognizer pinch = add("pinch", PinchRecognizer.newInstance());
+    GestureRecognizer threeFingers = add("three", new GestureRecognizer() {
+      @Override
+      protected void onTouchEvent(PointerSnapshot snapshot) {
+        if (snapshot.getPointerCount() == 3) {
+          begin();
+        }
+      }
+    });
+    threeFingers.setPriority(10);
+    send(MotionEvent.ACTION_DOWN, 0, 400, 500);
+    send(MotionEvent.ACTION_POINTER_DOWN, 1, 400, 500, 600, 500);
+    send(MotionEvent.ACTION_MOVE, 0, 300, 500, 700, 500);
+    assertLog("pinch:1");
+    send(MotionEvent.ACTION_POINTER_DOWN, 2, 300, 500, 700, 500, 500, 700);
+    assertLog("pinch:4", "three:1");
+    assertEquals(GestureRecognizer.STATE_CANCELLED, pinch.getState());
+  }
+
+  @Test
+  public void quickScale_claimsDragAfterTap() {
+    TapRecognizer doubleTap = add("double", TapRecognizer.newInstance(2, 1));
+    QuickScaleRecognizer quickScale = add("quick", QuickScaleRecognizer.newInstance());
+    tap(300, 300);
+    send(MotionEvent.ACTION_DOWN, 0, 300, 300);
+    send(MotionEvent.ACTION_MOVE, 0, 300, 320);
+    assertTrue(chain.isClaimed());
+    send(MotionEvent.ACTION_MOVE, 0, 300, 320 + QuickScaleRecognizer.DEFAULT_SCALE_DISTANCE);
+    assertEquals(Math.E, quickScale.getScale(), 1e-4);
+    send(MotionEvent.ACTION_UP, 0, 300, 520);
+    assertLog("quick:1", "quick:2", "quick:3");
+    assertEquals(GestureRecognizer.STATE_FAILED, doubleTap.getState());
+
+    // a plain drag is not a quick scale
+    time += 1000;
+    send(MotionEvent.ACTION_DOWN, 0, 300, 300);
+    send(MotionEvent.ACTION_MOVE, 0, 300, 400);
+    assertFalse(chain.isClaimed());
+    assertEquals(GestureRecognizer.STATE_FAILED, quickScale.getState());
+  }
+
+  @Test
+  public void quickScale_zoomsTransformHelper() {
+    DefaultTransformHelper helper = DefaultTransformHelper.newInstance();
+    helper.setObjectBounds(new RectF(0, 0, 1000, 1000));
+    helper.setViewBounds(new RectF(0, 0, 1000, 1000));
+    helper.setQuickScaleEnabled(true);
+    helper.getGestureDetector().setTouchSlop(16);
+    send(helper, MotionEvent.ACTION_DOWN, 500, 500);
+    send(helper, MotionEvent.ACTION_UP, 500, 500);
+    send(helper, MotionEvent.ACTION_DOWN, 500, 500);
+    send(helper, MotionEvent.ACTION_MOVE, 500, 520);
+    send(helper, MotionEvent.ACTION_MOVE, 500, 720);
+    send(helper, MotionEvent.ACTION_UP, 500, 720);
+    assertEquals(Math.E, helper.getScaleFactor(), 1e-3);
+  }
+
+  @Test
+  public void quickScale_followsClickTimeoutOfHelper() {
+    DefaultTransformHelper helper = DefaultTransformHelper.newInstance();
+    helper.setObjectBounds(new RectF(0, 0, 1000, 1000));
+    helper.setViewBounds(new RectF(0, 0, 1000, 1000));
+    helper.setQuickScaleEnabled(true);
+    helper.getGestureDetector().setTouchSlop(16);
+    helper.getGestureDetector().setClickTimeout(600);
+    send(helper, MotionEvent.ACTION_DOWN, 500, 500);
+    send(helper, MotionEvent.ACTION_UP, 500, 500);
+    // past the default multi-tap timeout, within the click timeout
+    time += 400;
+    send(helper, MotionEvent.ACTION_DOWN, 500, 500);
+    send(helper, MotionEvent.ACTION_MOVE, 500, 520);
+    send(helper, MotionEvent.ACTION_MOVE, 500, 720);
+    send(helper, MotionEvent.ACTION_UP, 500, 720);
+    assertEquals(Math.E, helper.getScaleFactor(), 1e-3);
+  }
+
+  private <T extends GestureRecognizer> T add(final String name, T recognizer) {
+    recognizer.setListener(new GestureRecognizer.Listener() {
+      @Override
+      public void onGesture(GestureRecognizer recognizer) {
+        log.add(name + ":" + recognizer.getState());
+      }
+    });
+    chain.add(recognizer);
+    return recognizer;
+  }
+
+  private void assertLog(String... expected) {
+    assertEquals(java.util.Arrays.asList(expected), log);
+    log.clear();
+  }
+
+  private void tap(float x, float y) {
+    send(MotionEvent.ACTION_DOWN, 0, x, y);
+    send(MotionEvent.ACTION_UP, 0, x, y);
+  }
+
+  private void send(int action, int actionIndex, float... positions) {
+    MotionEvent event = obtain(action, actionIndex, positions);
+    chain.onTouchEvent(event);
+    event.recycle();
+  }
+
+  private void send(DefaultTransformHelper helper, int action, float x, float y) {
+    MotionEvent event = obtain(action, 0, x, y);
+    helper.onTouchEvent(event);
+    event.recycle();
+  }
+
+  /**
+   * @param positions x and y of every pointer, pointer ids are their indices
+   */
+  private MotionEvent obtain(int action, int actionIndex, float... positions) {
+    int count = positions.length / 2;
+    PointerProperties[] properties = new PointerProperties[count];
+    PointerCoords[] coords = new PointerCoords[count];
+    for (int i = 0; i < count; i++) {
+      properties[i] = new PointerProperties();
+      properties[i].id = i;
+      coords[i] = new PointerCoords();
+      coords[i].x = positions[2 * i];
+      coords[i].y = positions[2 * i + 1];
+    }
+    time += 50;
+    if (action == MotionEvent.ACTION_DOWN) {
+      downTime = time;
+    }
+    return MotionEvent.obtain(downTime, time,
+        action | (actionIndex << MotionEvent.ACTION_POINTER_INDEX_SHIFT), count, properties,
+        coords, 0, 0, 1, 1, 0, 0, 0, 0);
+  }
+}
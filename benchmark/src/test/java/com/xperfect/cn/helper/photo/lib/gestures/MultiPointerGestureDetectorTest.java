@@ -0,0 +1,176 @@
+package com.xperfect.cn.helper.photo.lib.gestures;
+
+import static org.junit.Assert.assertEquals;
+
+import android.view.MotionEvent;
+import android.view.MotionEvent.PointerCoords;
+import android.view.MotionEvent.PointerProperties;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Click counting and gesture restarts of {@link MultiPointerGestureDetector}, as seen by its
+ * listener.
+ */
+public class MultiPointerGestureDetectorTest {
+
+  private final MultiPointerGestureDetector detector = MultiPointerGestureDetector.newInstance();
+  private final List<Integer> clicks = new ArrayList<>();
+  private int begins;
+  private int ends;
+  private long time = 1000;
+
+  @Before
+  public void setUp() {
+    detector.setGestureListener(new MultiPointerGestureDetector.GestureListener() {
+      @Override
+      public void onGestureBegin(MultiPointerGestureDetector detector) {
+        begins++;
+      }
+
+      @Override
+      public void onGestureUpdate(MultiPointerGestureDetector detector) {
+      }
+
+      @Override
+      public void onGestureEnd(MultiPointerGestureDetector detector) {
+        ends++;
+      }
+
+      @Override
+      public void click(int count, MultiPointerGestureDetector detector) {
+        clicks.add(count);
+      }
+    });
+  }
+
+  @Test
+  public void singleTap_doesNotClick() {
+    tap();
+    assertEquals(0, clicks.size());
+  }
+
+  @Test
+  public void doubleTap_clicksOnSecondRelease() {
+    tap();
+    tap();
+    assertEquals(1, clicks.size());
+    assertEquals(1, (int) clicks.get(0));
+    tap();
+    assertEquals(2, clicks.size());
+  }
+
+  @Test
+  public void slowDoubleTap_doesNotClick() {
+    tap();
+    time += MultiPointerGestureDetector.DEFAULT_CLICK_TIMEOUT;
+    tap();
+    assertEquals(0, clicks.size());
+  }
+
+  @Test
+  public void lateDelivery_judgedOnEventTimes() throws InterruptedException {
+    detector.setClickTimeout(200);
+    tap();
+    // the UI thread stalls, the events of the second tap are handled late
+    Thread.sleep(250);
+    tap();
+    assertEquals(1, clicks.size());
+  }
+
+  @Test
+  public void twoFingerDoubleTap_clicksWithTwoPointers() {
+    twoFingerTap();
+    assertEquals(0, clicks.size());
+    twoFingerTap();
+    assertEquals(1, clicks.size());
+    assertEquals(2, (int) clicks.get(0));
+  }
+
+  @Test
+  public void pointerChanges_restartGestureOnCurrentPositions() {
+    send(MotionEvent.ACTION_DOWN, 0, new int[]{0}, 100, 100);
+    send(MotionEvent.ACTION_MOVE, 0, new int[]{0}, 110, 100);
+    assertEquals(1, begins);
+    assertEquals(0, ends);
+
+    send(MotionEvent.ACTION_POINTER_DOWN, 1, new int[]{0, 1}, 110, 100, 300, 300);
+    assertEquals(2, begins);
+    assertEquals(1, ends);
+    assertEquals(2, detector.getCount());
+    assertEquals(110, detector.getStartX()[0], 0);
+    assertEquals(300, detector.getStartX()[1], 0);
+
+    send(MotionEvent.ACTION_MOVE, 0, new int[]{0, 1}, 120, 100, 350, 320);
+    assertEquals(120, detector.getCurrentX()[0], 0);
+    assertEquals(350, detector.getCurrentX()[1], 0);
+    assertEquals(300, detector.getStartX()[1], 0);
+
+    // the first finger goes up, the second one carries on from where it is
+    send(MotionEvent.ACTION_POINTER_UP, 0, new int[]{0, 1}, 120, 100, 350, 320);
+    assertEquals(3, begins);
+    assertEquals(2, ends);
+    assertEquals(350, detector.getStartX()[0], 0);
+    assertEquals(320, detector.getStartY()[0], 0);
+    assertEquals(0, detector.getStartX()[1], 0);
+
+    send(MotionEvent.ACTION_MOVE, 0, new int[]{1}, 360, 330);
+    assertEquals(360, detector.getCurrentX()[0], 0);
+    assertEquals(350, detector.getStartX()[0], 0);
+
+    detector.restartGesture();
+    assertEquals(4, begins);
+    assertEquals(3, ends);
+    assertEquals(360, detector.getStartX()[0], 0);
+
+    send(MotionEvent.ACTION_UP, 0, new int[]{1}, 360, 330);
+    assertEquals(4, ends);
+    assertEquals(false, detector.isGestureInProgress());
+    assertEquals(0, detector.getCount());
+  }
+
+  @Test
+  public void cancel_endsGesture() {
+    send(MotionEvent.ACTION_DOWN, 0, new int[]{0}, 100, 100);
+    send(MotionEvent.ACTION_MOVE, 0, new int[]{0}, 120, 100);
+    send(MotionEvent.ACTION_CANCEL, 0, new int[]{0}, 120, 100);
+    assertEquals(1, begins);
+    assertEquals(1, ends);
+    assertEquals(false, detector.isGestureInProgress());
+  }
+
+  private void tap() {
+    send(MotionEvent.ACTION_DOWN, 0, new int[]{0}, 100, 100);
+    send(MotionEvent.ACTION_UP, 0, new int[]{0}, 100, 100);
+  }
+
+  private void twoFingerTap() {
+    send(MotionEvent.ACTION_DOWN, 0, new int[]{0}, 100, 100);
+    send(MotionEvent.ACTION_POINTER_DOWN, 1, new int[]{0, 1}, 100, 100, 200, 200);
+    send(MotionEvent.ACTION_POINTER_UP, 1, new int[]{0, 1}, 100, 100, 200, 200);
+    send(MotionEvent.ACTION_UP, 0, new int[]{0}, 100, 100);
+  }
+
+  /**
+   * @param positions x and y of every pointer, in pointer index order
+   */
+  private void send(int action, int actionIndex, int[] ids, float... positions) {
+    PointerProperties[] properties = new PointerProperties[ids.length];
+    PointerCoords[] coords = new PointerCoords[ids.length];
+    for (int i = 0; i < ids.length; i++) {
+      properties[i] = new PointerProperties();
+      properties[i].id = ids[i];
+      coords[i] = new PointerCoords();
+      coords[i].x = positions[2 * i];
+      coords[i].y = positions[2 * i + 1];
+    }
+    time += 50;
+    MotionEvent event = MotionEvent.obtain(time, time,
+        action | (actionIndex << MotionEvent.ACTION_POINTER_INDEX_SHIFT), ids.length, properties,
+        coords, 0, 0, 1, 1, 0, 0, 0, 0);
+    detector.onTouchEvent(event);
+    event.recycle();
+  }
+}
@@ -0,0 +1,129 @@
+package com.xperfect.cn.helper.photo.lib.gestures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.RectF;
+import android.view.MotionEvent;
+import android.view.MotionEvent.PointerCoords;
+import android.view.MotionEvent.PointerProperties;
+import com.xperfect.cn.helper.photo.lib.DefaultTransformHelper;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Two views, one finger each, delivered as two interleaved streams.
+ */
+public class TouchStreamMergerTest {
+
+  private final TouchStreamMerger merger = TouchStreamMerger.newInstance();
+  private final List<String> merged = new ArrayList<>();
+  private long time = 1000;
+
+  @Test
+  public void interleavedStreams_becomeOneMultiPointerStream() {
+    record();
+    send(0, MotionEvent.ACTION_DOWN, 7, 100, 100);
+    send(1, MotionEvent.ACTION_DOWN, 7, 300, 100);
+    send(0, MotionEvent.ACTION_MOVE, 7, 90, 100);
+    send(1, MotionEvent.ACTION_MOVE, 7, 310, 100);
+    send(0, MotionEvent.ACTION_UP, 7, 90, 100);
+    send(1, MotionEvent.ACTION_MOVE, 7, 320, 100);
+    send(1, MotionEvent.ACTION_UP, 7, 320, 100);
+
+    assertEquals(7, merged.size());
+    assertEquals("down 0 [0:100.0,100.0]", merged.get(0));
+    assertEquals("pointer_down 1 [0:100.0,100.0 1:300.0,100.0]", merged.get(1));
+    assertEquals("move 0 [0:90.0,100.0 1:300.0,100.0]", merged.get(2));
+    assertEquals("move 0 [0:90.0,100.0 1:310.0,100.0]", merged.get(3));
+    assertEquals("pointer_up 0 [0:90.0,100.0 1:310.0,100.0]", merged.get(4));
+    assertEquals("move 0 [1:320.0,100.0]", merged.get(5));
+    assertEquals("up 0 [1:320.0,100.0]", merged.get(6));
+  }
+
+  @Test
+  public void cancelledStream_onlyLiftsItsPointers() {
+    record();
+    send(0, MotionEvent.ACTION_DOWN, 0, 100, 100);
+    send(1, MotionEvent.ACTION_DOWN, 0, 300, 100);
+    send(1, MotionEvent.ACTION_CANCEL, 0, 300, 100);
+    send(0, MotionEvent.ACTION_CANCEL, 0, 100, 100);
+
+    assertEquals("pointer_up 1 [0:100.0,100.0 1:300.0,100.0]", merged.get(2));
+    assertEquals("cancel 0 [0:100.0,100.0]", merged.get(3));
+    assertEquals(0, merger.getPointerCount());
+  }
+
+  @Test
+  public void pinchAcrossStreams_scalesTheHelper() {
+    final DefaultTransformHelper helper = DefaultTransformHelper.newInstance();
+    helper.setQuickScaleEnabled(false);
+    helper.setObjectBounds(new RectF(0, 0, 1000, 1000));
+    helper.setViewBounds(new RectF(0, 0, 1000, 1000));
+    merger.setListener(new TouchStreamMerger.Listener() {
+      @Override
+      public void onMergedEvent(MotionEvent event) {
+        helper.onTouchEvent(event);
+      }
+    });
+    send(0, MotionEvent.ACTION_DOWN, 0, 400, 500);
+    send(1, MotionEvent.ACTION_DOWN, 0, 600, 500);
+    for (int i = 1; i <= 10; i++) {
+      send(0, MotionEvent.ACTION_MOVE, 0, 400 - 10 * i, 500);
+      send(1, MotionEvent.ACTION_MOVE, 0, 600 + 10 * i, 500);
+    }
+    // the spread went from 200 to 400
+    assertEquals(2, helper.getScaleFactor(), 1e-3);
+    send(0, MotionEvent.ACTION_UP, 0, 300, 500);
+    send(1, MotionEvent.ACTION_UP, 0, 700, 500);
+    assertTrue(helper.getScaleFactor() > 1.9f);
+  }
+
+  private void record() {
+    merger.setListener(new TouchStreamMerger.Listener() {
+      @Override
+      public void onMergedEvent(MotionEvent event) {
+        StringBuilder builder = new StringBuilder(name(event.getActionMasked()))
+            .append(' ').append(event.getActionIndex()).append(" [");
+        for (int i = 0; i < event.getPointerCount(); i++) {
+          builder.append(i > 0 ? " " : "").append(event.getPointerId(i)).append(':')
+              .append(event.getX(i)).append(',').append(event.getY(i));
+        }
+        merged.add(builder.append(']').toString());
+      }
+    });
+  }
+
+  private static String name(int action) {
+    switch (action) {
+      case MotionEvent.ACTION_DOWN:
+        return "down";
+      case MotionEvent.ACTION_UP:
+        return "up";
+      case MotionEvent.ACTION_MOVE:
+        return "move";
+      case MotionEvent.ACTION_CANCEL:
+        return "cancel";
+      case MotionEvent.ACTION_POINTER_DOWN:
+        return "pointer_down";
+      case MotionEvent.ACTION_POINTER_UP:
+        return "pointer_up";
+      default:
+        return String.valueOf(action);
+    }
+  }
+
+  private void send(int stream, int action, int id, float x, float y) {
+    PointerProperties[] properties = {new PointerProperties()};
+    properties[0].id = id;
+    PointerCoords[] coords = {new PointerCoords()};
+    coords[0].x = x;
+    coords[0].y = y;
+    time += 10;
+    MotionEvent event = MotionEvent.obtain(time, time, action, 1, properties, coords, 0, 0, 1, 1,
+        0, 0, 0, 0);
+    merger.onTouchEvent(stream, event);
+    event.recycle();
+  }
+}
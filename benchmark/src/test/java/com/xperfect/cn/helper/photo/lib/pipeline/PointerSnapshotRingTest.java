@@ -0,0 +1,101 @@
+package com.xperfect.cn.helper.photo.lib.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.view.MotionEvent;
+import android.view.MotionEvent.PointerCoords;
+import android.view.MotionEvent.PointerProperties;
+import org.junit.Test;
+
+public class PointerSnapshotRingTest {
+
+  @Test
+  public void batchedEvent_flagsHistoricalSamples() {
+    PointerSnapshotRing ring = PointerSnapshotRing.newInstance(8);
+    offer(ring, MotionEvent.ACTION_DOWN, 100, 10);
+    MotionEvent move = obtain(MotionEvent.ACTION_MOVE, 110, 20);
+    move.addBatch(120, coords(30), 0);
+    move.addBatch(130, coords(40), 0);
+    assertTrue(ring.offer(move));
+    move.recycle();
+
+    assertEquals(0, ring.getReadPosition());
+    assertEquals(4, ring.getWritePosition());
+    assertEquals(MotionEvent.ACTION_DOWN, ring.getAction(0));
+    assertFalse(ring.isBatched(0));
+    // the historical samples come first and are flagged, the current one closes the event
+    for (int i = 1; i <= 3; i++) {
+      assertEquals(MotionEvent.ACTION_MOVE, ring.getAction(i));
+      assertEquals(100 + 10 * i, ring.getEventTime(i));
+      assertEquals(10 + 10 * i, ring.getX(i, 0), 0);
+      assertEquals(7, ring.getPointerId(i, 0));
+    }
+    assertTrue(ring.isBatched(1));
+    assertTrue(ring.isBatched(2));
+    assertFalse(ring.isBatched(3));
+  }
+
+  @Test
+  public void fullRing_dropsMoves() {
+    PointerSnapshotRing ring = PointerSnapshotRing.newInstance(4);
+    offer(ring, MotionEvent.ACTION_DOWN, 100, 10);
+    for (int i = 1; i < 4; i++) {
+      assertTrue(offer(ring, MotionEvent.ACTION_MOVE, 100 + i, 10 + i));
+    }
+    assertFalse(offer(ring, MotionEvent.ACTION_MOVE, 110, 20));
+    assertEquals(1, ring.getDroppedSamples());
+    assertEquals(4, ring.getWritePosition());
+
+    // room again once the consumer released a slot
+    ring.release(1);
+    assertTrue(offer(ring, MotionEvent.ACTION_MOVE, 111, 21));
+    assertEquals(111, ring.getEventTime(4));
+  }
+
+  @Test
+  public void fullRing_blocksOtherActionsUntilReleased() throws InterruptedException {
+    final PointerSnapshotRing ring = PointerSnapshotRing.newInstance(2);
+    offer(ring, MotionEvent.ACTION_DOWN, 100, 10);
+    offer(ring, MotionEvent.ACTION_MOVE, 101, 11);
+    Thread producer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        offer(ring, MotionEvent.ACTION_UP, 102, 12);
+      }
+    });
+    producer.start();
+    producer.join(100);
+    assertTrue(producer.isAlive());
+    assertEquals(2, ring.getWritePosition());
+
+    ring.release(1);
+    producer.join(5000);
+    assertFalse(producer.isAlive());
+    assertEquals(3, ring.getWritePosition());
+    assertEquals(MotionEvent.ACTION_UP, ring.getAction(2));
+    assertEquals(0, ring.getDroppedSamples());
+  }
+
+  private static boolean offer(PointerSnapshotRing ring, int action, long eventTime, float x) {
+    MotionEvent event = obtain(action, eventTime, x);
+    boolean offered = ring.offer(event);
+    event.recycle();
+    return offered;
+  }
+
+  private static MotionEvent obtain(int action, long eventTime, float x) {
+    PointerProperties[] properties = {new PointerProperties()};
+    properties[0].id = 7;
+    return MotionEvent.obtain(100, eventTime, action, 1, properties, coords(x), 0, 0, 1, 1, 0, 0,
+        0, 0);
+  }
+
+  private static PointerCoords[] coords(float x) {
+    PointerCoords[] coords = {new PointerCoords()};
+    coords[0].x = x;
+    coords[0].y = 2 * x;
+    return coords;
+  }
+}